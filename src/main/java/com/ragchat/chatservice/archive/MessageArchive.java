@@ -0,0 +1,349 @@
+package com.ragchat.chatservice.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.ragchat.chatservice.dto.MessageExportDTO;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Read-only file pair holding the messages of one time range, e.g. a detached partition.
+ * <ul>
+ *   <li>{@code <name>.ndjson.gz}: the messages as NDJSON lines (the bulk export format),
+ *       grouped by session, oldest first, with each session in its own gzip member.</li>
+ *   <li>{@code <name>.idx}: the range, then one record per session ordered by session id:
+ *       {@code id (16 bytes) | member offset (8) | member length (4) | messages (4)}.</li>
+ * </ul>
+ * Reading a session decompresses its member only, found by binary search of the mapped index.
+ * Session ids are ordered as unsigned bytes, the order PostgreSQL sorts {@code uuid} in.
+ */
+public class MessageArchive implements Closeable {
+
+    /**
+     * The order sessions must be written in.
+     */
+    public static final Comparator<UUID> SESSION_ORDER = (a, b) -> {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    };
+
+    public static final String DATA_SUFFIX = ".ndjson.gz";
+    public static final String INDEX_SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x52434131;
+    private static final int HEADER_BYTES = 32;
+    private static final int ENTRY_BYTES = 32;
+    private static final long UNBOUNDED = Long.MIN_VALUE;
+
+    private final String name;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final FileChannel data;
+    private final MappedByteBuffer index;
+    private final int sessions;
+    private final ObjectReader lineReader;
+
+    private MessageArchive(String name, FileChannel data, MappedByteBuffer index, ObjectMapper objectMapper) {
+        this.name = name;
+        this.data = data;
+        this.index = index;
+        this.sessions = index.getInt(4);
+        this.from = time(index.getLong(8));
+        this.to = time(index.getLong(16));
+        this.lineReader = objectMapper.readerFor(MessageExportDTO.class);
+    }
+
+    /**
+     * Opens the archive {@code name} in {@code dir}.
+     */
+    public static MessageArchive open(Path dir, String name, ObjectMapper objectMapper) throws IOException {
+        FileChannel data = FileChannel.open(dir.resolve(name + DATA_SUFFIX), StandardOpenOption.READ);
+        try (FileChannel indexChannel = FileChannel.open(dir.resolve(name + INDEX_SUFFIX), StandardOpenOption.READ)) {
+            MappedByteBuffer index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+            if (index.capacity() < HEADER_BYTES || index.getInt(0) != MAGIC
+                    || index.capacity() != HEADER_BYTES + (long) index.getInt(4) * ENTRY_BYTES) {
+                throw new IOException("Not a message archive index: " + name + INDEX_SUFFIX);
+            }
+            return new MessageArchive(name, data, index, objectMapper);
+        } catch (IOException | RuntimeException e) {
+            data.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts writing the archive {@code name} into {@code dir}. Nothing is visible under the
+     * final names until {@link Writer#commit()}.
+     */
+    public static Writer create(Path dir, String name, LocalDateTime from, LocalDateTime to,
+                                ObjectMapper objectMapper) throws IOException {
+        return new Writer(dir, name, from, to, objectMapper);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Start of the range, inclusive; {@code null} when unbounded.
+     */
+    public LocalDateTime from() {
+        return from;
+    }
+
+    /**
+     * End of the range, exclusive; {@code null} when unbounded.
+     */
+    public LocalDateTime to() {
+        return to;
+    }
+
+    public int sessions() {
+        return sessions;
+    }
+
+    /**
+     * Messages of a session in this archive.
+     */
+    public int count(UUID sessionId) {
+        int entry = find(sessionId);
+        return entry < 0 ? 0 : index.getInt(entryOffset(entry) + 28);
+    }
+
+    /**
+     * Up to {@code limit} messages of a session, oldest first, after skipping {@code skip}.
+     */
+    public List<MessageExportDTO> read(UUID sessionId, int skip, int limit) throws IOException {
+        int entry = find(sessionId);
+        if (entry < 0 || limit <= 0) {
+            return List.of();
+        }
+        int offset = entryOffset(entry);
+        byte[] member = new byte[index.getInt(offset + 24)];
+        ByteBuffer buffer = ByteBuffer.wrap(member);
+        long position = index.getLong(offset + 16);
+        while (buffer.hasRemaining()) {
+            if (data.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated message archive: " + name + DATA_SUFFIX);
+            }
+        }
+
+        List<MessageExportDTO> messages = new ArrayList<>(Math.min(limit, index.getInt(offset + 28)));
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(member)), StandardCharsets.UTF_8))) {
+            String line;
+            int seen = 0;
+            while (messages.size() < limit && (line = lines.readLine()) != null) {
+                if (seen++ >= skip) {
+                    messages.add(lineReader.readValue(line));
+                }
+            }
+        }
+        return messages;
+    }
+
+    @Override
+    public void close() throws IOException {
+        data.close();
+    }
+
+    // Binary search over the index records; -1 if the session has no messages here
+    private int find(UUID sessionId) {
+        int low = 0;
+        int high = sessions - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = entryOffset(mid);
+            int cmp = SESSION_ORDER.compare(new UUID(index.getLong(offset), index.getLong(offset + 8)), sessionId);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static int entryOffset(int entry) {
+        return HEADER_BYTES + entry * ENTRY_BYTES;
+    }
+
+    private static LocalDateTime time(long epochSecond) {
+        return epochSecond == UNBOUNDED ? null : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time == null ? UNBOUNDED : time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Appends messages, which must arrive grouped by session in {@link #SESSION_ORDER}.
+     * Closing without committing deletes what was written.
+     */
+    public static final class Writer implements Closeable {
+
+        private final Path dir;
+        private final String name;
+        private final Path dataTmp;
+        private final Path indexTmp;
+        private final ObjectMapper objectMapper;
+        private final ObjectWriter lineWriter;
+        private final CountingOutputStream data;
+        private final OutputStream index;
+        private final ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES);
+        private final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+        private UUID session;
+        private GZIPOutputStream member;
+        private long memberStart;
+        private int memberCount;
+        private int sessions;
+        private long messages;
+        private boolean committed;
+
+        private Writer(Path dir, String name, LocalDateTime from, LocalDateTime to, ObjectMapper objectMapper)
+                throws IOException {
+            this.dir = dir;
+            this.name = name;
+            this.dataTmp = dir.resolve(name + DATA_SUFFIX + ".tmp");
+            this.indexTmp = dir.resolve(name + INDEX_SUFFIX + ".tmp");
+            this.objectMapper = objectMapper;
+            this.lineWriter = objectMapper.writerFor(MessageExportDTO.class);
+            this.data = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(dataTmp), 1 << 16));
+            this.index = new BufferedOutputStream(Files.newOutputStream(indexTmp), 1 << 16);
+            header.putInt(MAGIC).putInt(0).putLong(epochSecond(from)).putLong(epochSecond(to)).putLong(0);
+            index.write(header.array());
+        }
+
+        public void write(MessageExportDTO message) throws IOException {
+            UUID sessionId = message.getSessionId();
+            if (!sessionId.equals(session)) {
+                if (session != null && SESSION_ORDER.compare(session, sessionId) > 0) {
+                    throw new IllegalArgumentException("Messages must be ordered by session: " + sessionId
+                            + " after " + session);
+                }
+                endSession();
+                session = sessionId;
+                memberStart = data.count;
+                // Its own member, so a session can be decompressed without the ones before it
+                member = new GZIPOutputStream(new FilterOutputStream(data) {
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                }, 1 << 13);
+            }
+            member.write(lineWriter.writeValueAsBytes(message));
+            member.write('\n');
+            memberCount++;
+            messages++;
+        }
+
+        public long messages() {
+            return messages;
+        }
+
+        /**
+         * Flushes and syncs both files, moves them to their final names (the index last) and
+         * opens the result.
+         */
+        public MessageArchive commit() throws IOException {
+            endSession();
+            data.close();
+            index.close();
+            try (FileChannel channel = FileChannel.open(indexTmp, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(4).putInt(0, sessions), 4);
+                channel.force(true);
+            }
+            try (FileChannel channel = FileChannel.open(dataTmp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(dataTmp, dir.resolve(name + DATA_SUFFIX),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(indexTmp, dir.resolve(name + INDEX_SUFFIX),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            return MessageArchive.open(dir, name, objectMapper);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            data.close();
+            index.close();
+            Files.deleteIfExists(dataTmp);
+            Files.deleteIfExists(indexTmp);
+        }
+
+        private void endSession() throws IOException {
+            if (member == null) {
+                return;
+            }
+            member.close();
+            long length = data.count - memberStart;
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Session " + session + " exceeds 2 GB compressed");
+            }
+            entry.clear();
+            entry.putLong(session.getMostSignificantBits()).putLong(session.getLeastSignificantBits())
+                    .putLong(memberStart).putInt((int) length).putInt(memberCount);
+            index.write(entry.array());
+            sessions++;
+            member = null;
+            memberCount = 0;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.ragchat.chatservice.cache;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hit-ratio dashboard for the Caffeine caches at {@code /actuator/cachestats}.
+ * Unlike {@code /actuator/caches}, which only lists cache names, this reports hit ratio,
+ * size or weight against its bound, evictions and load time per cache, plus disk tier
+ * hits for a {@link TieredCache}. Counts are cumulative since startup.
+ */
+@Component
+@Endpoint(id = "cachestats")
+public class CacheStatsEndpoint {
+
+    private final CacheManager cacheManager;
+
+    public CacheStatsEndpoint(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @ReadOperation
+    public Map<String, Object> caches() {
+        Map<String, Object> caches = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Map<String, Object> stats = describe(cacheManager.getCache(name));
+            if (stats != null) {
+                caches.put(name, stats);
+            }
+        }
+        return caches;
+    }
+
+    @ReadOperation
+    public Map<String, Object> cache(@Selector String name) {
+        return describe(cacheManager.getCache(name));
+    }
+
+    private static Map<String, Object> describe(Cache cache) {
+        if (!(cache instanceof CaffeineCache caffeineCache)) {
+            return null;
+        }
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = caffeineCache.getNativeCache();
+        CacheStats stats = nativeCache.stats();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hitRatio", round(stats.hitRate()));
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("size", nativeCache.estimatedSize());
+        nativeCache.policy().eviction().ifPresent(eviction -> describeBound(eviction, result));
+        result.put("evictions", stats.evictionCount());
+        result.put("evictedWeight", stats.evictionWeight());
+        result.put("loads", stats.loadCount());
+        result.put("loadFailures", stats.loadFailureCount());
+        result.put("averageLoadPenaltyMs", round(stats.averageLoadPenalty() / 1_000_000.0));
+
+        if (cache instanceof TieredCache tiered) {
+            Map<String, Object> disk = new LinkedHashMap<>();
+            disk.put("hitRatio", round(tiered.diskHitRatio()));
+            disk.put("hits", tiered.diskHitCount());
+            disk.put("misses", tiered.diskMissCount());
+            disk.put("sizeBytes", tiered.getDiskTier().sizeBytes());
+            result.put("disk", disk);
+        }
+        return result;
+    }
+
+    private static void describeBound(Policy.Eviction<Object, Object> eviction, Map<String, Object> result) {
+        if (eviction.isWeighted()) {
+            result.put("weightBytes", eviction.weightedSize().orElse(0L));
+            result.put("maximumWeightBytes", eviction.getMaximum());
+        } else {
+            result.put("maximumSize", eviction.getMaximum());
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10_000) / 10_000.0;
+    }
+}
@@ -0,0 +1,213 @@
+package com.ragchat.chatservice.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Best-effort key/value store of gzip-compressed blobs, one file per key.
+ * Writes are queued to a single background thread and dropped when the queue is full;
+ * a delete or clear also cancels writes of the affected keys that are still queued.
+ * Entries older than the time-to-live are ignored on read; when the directory grows past
+ * its size bound, the oldest files are deleted.
+ */
+public class DiskCacheTier {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskCacheTier.class);
+    private static final String SUFFIX = ".json.gz";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long timeToLiveMillis;
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final ThreadPoolExecutor writer;
+
+    // Guards publishing a file against a concurrent delete/clear of the same key
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private final Map<Path, Long> deletedAt = new ConcurrentHashMap<>();
+    private volatile long clearedAt = System.nanoTime();
+
+    public DiskCacheTier(Path directory, long maxBytes, Duration timeToLive) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1000),
+                r -> {
+                    Thread t = new Thread(r, "disk-cache-writer");
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+        try {
+            Files.createDirectories(directory);
+            clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot initialise disk cache in " + directory, e);
+        }
+    }
+
+    /**
+     * Returns the stored bytes, or null if absent or expired.
+     */
+    public byte[] read(Object key) {
+        Path file = fileFor(key);
+        try {
+            if (System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > timeToLiveMillis) {
+                delete(key);
+                return null;
+            }
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+                return in.readAllBytes();
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.debug("Disk cache read failed for {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    public void write(Object key, byte[] value) {
+        long submittedAt = System.nanoTime();
+        writer.execute(() -> {
+            Path file = fileFor(key);
+            try {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(value.length / 4 + 64);
+                try (OutputStream out = new GZIPOutputStream(compressed)) {
+                    out.write(value);
+                }
+                Path tmp = Files.createTempFile(directory, "entry", ".tmp");
+                Files.write(tmp, compressed.toByteArray());
+
+                publishLock.lock();
+                try {
+                    Long deleted = deletedAt.get(file);
+                    if (clearedAt - submittedAt > 0 || (deleted != null && deleted - submittedAt > 0)) {
+                        Files.deleteIfExists(tmp); // invalidated while queued
+                        return;
+                    }
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    publishLock.unlock();
+                }
+                if (usedBytes.addAndGet(compressed.size()) > maxBytes) {
+                    trim();
+                }
+            } catch (IOException e) {
+                log.debug("Disk cache write failed for {}: {}", key, e.getMessage());
+            }
+        });
+    }
+
+    public void delete(Object key) {
+        Path file = fileFor(key);
+        publishLock.lock();
+        try {
+            deletedAt.put(file, System.nanoTime());
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Disk cache delete failed for {}: {}", key, e.getMessage());
+        } finally {
+            publishLock.unlock();
+        }
+        // Tombstones only need to outlive the writes already queued
+        if (deletedAt.size() > 10_000) {
+            deletedAt.clear();
+        }
+    }
+
+    public void clear() throws IOException {
+        publishLock.lock();
+        try {
+            clearedAt = System.nanoTime();
+            deletedAt.clear();
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            usedBytes.set(0);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Approximate bytes on disk (exact after each trim).
+     */
+    public long sizeBytes() {
+        return usedBytes.get();
+    }
+
+    public void shutdown() {
+        writer.shutdownNow();
+    }
+
+    // Deletes the oldest entries until the tier is back under 90% of its bound
+    private void trim() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(p -> p.toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparingLong(DiskCacheTier::lastModified))
+                    .toList();
+        }
+        long total = 0;
+        for (Path file : files) {
+            total += Files.size(file);
+        }
+        long target = maxBytes / 10 * 9;
+        for (Path file : files) {
+            if (total <= target) {
+                break;
+            }
+            long size = Files.size(file);
+            Files.deleteIfExists(file);
+            total -= size;
+        }
+        usedBytes.set(total);
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private Path fileFor(Object key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash, 0, 16) + SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.ragchat.chatservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NullValue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Callable;
+
+/**
+ * Caffeine cache (L1) backed by a {@link DiskCacheTier} (L2).
+ * Every value put into L1 is also written to disk in the background; an L1 miss is
+ * served from disk when possible and promoted back into L1. As a CaffeineCache subclass,
+ * L1 statistics are exported like those of any other Caffeine cache.
+ */
+public class TieredCache extends CaffeineCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredCache.class);
+
+    /**
+     * Converts cached values to and from bytes for the disk tier.
+     */
+    public interface Codec {
+
+        byte[] encode(Object value) throws IOException;
+
+        Object decode(byte[] bytes) throws IOException;
+    }
+
+    private final DiskCacheTier disk;
+    private final Codec codec;
+    private final Counter diskHits;
+    private final Counter diskMisses;
+
+    public TieredCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> l1,
+                       DiskCacheTier disk, Codec codec, MeterRegistry meterRegistry) {
+        super(name, l1, true);
+        this.disk = disk;
+        this.codec = codec;
+        this.diskHits = Counter.builder("cache.l2.gets").tag("cache", name).tag("result", "hit")
+                .description("Disk tier lookups after an L1 miss").register(meterRegistry);
+        this.diskMisses = Counter.builder("cache.l2.gets").tag("cache", name).tag("result", "miss")
+                .description("Disk tier lookups after an L1 miss").register(meterRegistry);
+        Gauge.builder("cache.l2.size", disk, DiskCacheTier::sizeBytes).tag("cache", name)
+                .description("Approximate bytes stored in the disk tier").baseUnit("bytes").register(meterRegistry);
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = super.lookup(key);
+        if (value != null) {
+            return value;
+        }
+        Object fromDisk = readDisk(key);
+        if (fromDisk != null) {
+            getNativeCache().put(key, fromDisk); // promote without writing it back to disk
+        }
+        return fromDisk;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return super.get(key, () -> {
+            Object fromDisk = readDisk(key);
+            if (fromDisk != null) {
+                return (T) fromDisk;
+            }
+            T loaded = valueLoader.call();
+            writeDisk(key, loaded);
+            return loaded;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        super.put(key, value);
+        writeDisk(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = super.putIfAbsent(key, value);
+        if (existing == null) {
+            writeDisk(key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        super.evict(key);
+        disk.delete(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        disk.delete(key);
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        clearDisk();
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean hadEntries = super.invalidate();
+        clearDisk();
+        return hadEntries;
+    }
+
+    public DiskCacheTier getDiskTier() {
+        return disk;
+    }
+
+    public long diskHitCount() {
+        return (long) diskHits.count();
+    }
+
+    public long diskMissCount() {
+        return (long) diskMisses.count();
+    }
+
+    public double diskHitRatio() {
+        double lookups = diskHits.count() + diskMisses.count();
+        return lookups == 0 ? 1.0 : diskHits.count() / lookups;
+    }
+
+    private Object readDisk(Object key) {
+        byte[] bytes = disk.read(key);
+        if (bytes != null) {
+            try {
+                Object value = codec.decode(bytes);
+                diskHits.increment();
+                return value;
+            } catch (IOException e) {
+                log.debug("Discarding unreadable disk cache entry {}: {}", key, e.getMessage());
+                disk.delete(key);
+            }
+        }
+        diskMisses.increment();
+        return null;
+    }
+
+    private void writeDisk(Object key, Object value) {
+        if (value == null || value == NullValue.INSTANCE) {
+            return;
+        }
+        try {
+            disk.write(key, codec.encode(value));
+        } catch (IOException e) {
+            log.debug("Cannot encode {} for the disk cache: {}", key, e.getMessage());
+        }
+    }
+
+    private void clearDisk() {
+        try {
+            disk.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
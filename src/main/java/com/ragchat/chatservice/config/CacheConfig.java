@@ -0,0 +1,144 @@
+package com.ragchat.chatservice.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ragchat.chatservice.cache.DiskCacheTier;
+import com.ragchat.chatservice.cache.TieredCache;
+import com.ragchat.chatservice.dto.ApiResponseDTO;
+import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.mapper.ChatMapper;
+import com.ragchat.chatservice.repository.ChatSessionRepository;
+import com.ragchat.chatservice.service.ChatCacheInvalidator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Application caches, each with its own Caffeine spec from {@code chat.cache.*}.
+ * All of them record statistics, which Actuator exports as {@code cache.*} metrics, plus a
+ * {@code cache.hit.ratio{cache}} gauge over each cache's lifetime.
+ * <ul>
+ *   <li>{@code chatSessionById} refreshes entries in the background after
+ *       {@code refresh-after-write}, so hot sessions never expire into a blocking miss.</li>
+ *   <li>{@code chatMessages} is bounded by the serialized size of its pages and can spill
+ *       to an on-disk tier ({@code chat.cache.messages-disk}).</li>
+ * </ul>
+ */
+@Configuration
+@EnableConfigurationProperties(ChatCacheProperties.class)
+public class CacheConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheConfig.class);
+
+    // Fallback weight of a value that cannot be serialized
+    private static final int DEFAULT_WEIGHT = 1024;
+
+    @Bean
+    public CacheManager cacheManager(ChatCacheProperties properties,
+                                     ChatSessionRepository chatSessionRepository,
+                                     ChatMapper chatMapper,
+                                     ObjectMapper objectMapper,
+                                     MeterRegistry meterRegistry) {
+        CaffeineCache sessions = new CaffeineCache(ChatCacheInvalidator.SESSIONS,
+                builder(properties.getSessions()).build());
+
+        // The loader is only used for background refreshes; misses still go through @Cacheable
+        CaffeineCache sessionById = new CaffeineCache(ChatCacheInvalidator.SESSION_BY_ID,
+                builder(properties.getSessionById()).build(id -> chatSessionRepository.findById((UUID) id)
+                        .map(chatMapper::toDto)
+                        .orElse(null)));
+
+        Caffeine<Object, Object> messagesBuilder = builder(properties.getMessages());
+        if (properties.getMessages().getMaximumWeight() != null) {
+            messagesBuilder.weigher((key, value) -> serializedSize(objectMapper, value));
+        }
+        ChatCacheProperties.Disk disk = properties.getMessagesDisk();
+        CaffeineCache messages;
+        if (disk.isEnabled()) {
+            DiskCacheTier tier = new DiskCacheTier(disk.getDirectory(), disk.getMaxSize().toBytes(), disk.getTimeToLive());
+            messages = new TieredCache(ChatCacheInvalidator.MESSAGES, messagesBuilder.build(), tier,
+                    messagePageCodec(objectMapper), meterRegistry);
+            log.info("Message page cache has an on-disk tier in {} (max {}, ttl {})",
+                    disk.getDirectory(), disk.getMaxSize(), disk.getTimeToLive());
+        } else {
+            messages = new CaffeineCache(ChatCacheInvalidator.MESSAGES, messagesBuilder.build());
+        }
+
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.<Cache>of(sessions, sessionById, messages));
+        return cacheManager;
+    }
+
+    @Bean
+    public MeterBinder cacheHitRatioMetrics(CacheManager cacheManager) {
+        return registry -> {
+            for (String name : cacheManager.getCacheNames()) {
+                if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+                    Gauge.builder("cache.hit.ratio", cache, c -> c.getNativeCache().stats().hitRate())
+                            .tag("cache", name)
+                            .description("Share of cache lookups answered from the cache")
+                            .register(registry);
+                }
+            }
+        };
+    }
+
+    private static Caffeine<Object, Object> builder(ChatCacheProperties.Spec spec) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (spec.getMaximumWeight() != null) {
+            builder.maximumWeight(spec.getMaximumWeight().toBytes());
+        } else if (spec.getMaximumSize() != null) {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getRefreshAfterWrite() != null) {
+            builder.refreshAfterWrite(spec.getRefreshAfterWrite());
+        }
+        return builder;
+    }
+
+    private static int serializedSize(ObjectMapper objectMapper, Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value).length;
+        } catch (IOException e) {
+            return DEFAULT_WEIGHT;
+        }
+    }
+
+    /**
+     * JSON codec for getMessages results: an ApiResponseDTO whose data is a list of MessageDTO.
+     */
+    static TieredCache.Codec messagePageCodec(ObjectMapper objectMapper) {
+        JavaType messageList = objectMapper.getTypeFactory().constructCollectionType(List.class, MessageDTO.class);
+        return new TieredCache.Codec() {
+            @Override
+            public byte[] encode(Object value) throws IOException {
+                return objectMapper.writeValueAsBytes(value);
+            }
+
+            @Override
+            public Object decode(byte[] bytes) throws IOException {
+                JsonNode node = objectMapper.readTree(bytes);
+                List<MessageDTO> messages = objectMapper.convertValue(node.get("data"), messageList);
+                return new ApiResponseDTO(node.get("code").asInt(), node.get("message").asText(), messages);
+            }
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.ragchat.chatservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Sizing of the application caches ({@code chat.cache.*}), one spec per cache.
+ */
+@Data
+@ConfigurationProperties(prefix = "chat.cache")
+public class ChatCacheProperties {
+
+    private Spec sessions = new Spec(10_000L, null, Duration.ofMinutes(10), null);
+    private Spec sessionById = new Spec(50_000L, null, Duration.ofMinutes(30), Duration.ofMinutes(5));
+    private Spec messages = new Spec(null, DataSize.ofMegabytes(128), Duration.ofMinutes(10), null);
+    private Disk messagesDisk = new Disk();
+
+    @Data
+    public static class Spec {
+
+        // Entry count bound; ignored when maximumWeight is set
+        private Long maximumSize;
+
+        // Approximate bytes (serialized JSON size of the cached values)
+        private DataSize maximumWeight;
+
+        private Duration expireAfterWrite;
+
+        // Reload in the background on access after this long (chatSessionById only)
+        private Duration refreshAfterWrite;
+
+        public Spec() {
+        }
+
+        public Spec(Long maximumSize, DataSize maximumWeight, Duration expireAfterWrite, Duration refreshAfterWrite) {
+            this.maximumSize = maximumSize;
+            this.maximumWeight = maximumWeight;
+            this.expireAfterWrite = expireAfterWrite;
+            this.refreshAfterWrite = refreshAfterWrite;
+        }
+    }
+
+    /**
+     * Optional on-disk second tier for {@code chatMessages}.
+     */
+    @Data
+    public static class Disk {
+
+        private boolean enabled = false;
+
+        // Must be local to this instance; it is wiped on startup
+        private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "rag-chat-cache", "messages");
+
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+
+        private Duration timeToLive = Duration.ofHours(1);
+    }
+}
@@ -0,0 +1,37 @@
+package com.ragchat.chatservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Tail sampling and local export of traces ({@code chat.tracing.*}). Tracing itself is
+ * switched with {@code management.tracing.enabled}.
+ */
+@Data
+@ConfigurationProperties(prefix = "chat.tracing")
+public class ChatTracingProperties {
+
+    // Traces whose root span takes at least this long are kept
+    private Duration slowThreshold = Duration.ofSeconds(1);
+
+    // Share of fast, successful traces kept anyway, as a baseline
+    private double sampleRate = 0.0;
+
+    // Bounds on spans held while their trace is still running
+    private int maxPendingTraces = 10_000;
+    private int maxSpansPerTrace = 500;
+    // Spans whose local root never ends are dropped after this
+    private Duration pendingTimeout = Duration.ofMinutes(2);
+
+    private File file = new File();
+
+    @Data
+    public static class File {
+        // One JSON object per kept span; set management.otlp.tracing.endpoint to export over OTLP as well
+        private boolean enabled = true;
+        private Path path = Path.of("logs", "traces.jsonl");
+    }
+}
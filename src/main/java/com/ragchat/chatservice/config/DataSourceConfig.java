@@ -0,0 +1,66 @@
+package com.ragchat.chatservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Puts a {@link ConnectionLimitingDataSource} in front of the connection pool
+ * ({@code chat.datasource.connection-limit.*}). Enabled by default together with
+ * virtual threads, where request concurrency is no longer bounded by the Tomcat pool.
+ * The limit is the Hikari {@code maximum-pool-size}, so the pool itself never queues.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "chat.datasource.connection-limit", name = "enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    // Static: post-processors are created before regular beans
+    @Bean
+    static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment env) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource) {
+                    return bean;
+                }
+                int maxConnections = dataSource instanceof HikariDataSource hikari
+                        ? hikari.getMaximumPoolSize()
+                        : env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                Duration acquireTimeout = env.getProperty("chat.datasource.connection-limit.acquire-timeout",
+                        Duration.class, Duration.ofSeconds(2));
+                int maxWaiting = env.getProperty("chat.datasource.connection-limit.max-waiting", Integer.class, 1000);
+                log.info("Limiting '{}' to {} concurrent connections (acquire timeout {}, max {} waiting)",
+                        beanName, maxConnections, acquireTimeout, maxWaiting);
+                return new ConnectionLimitingDataSource(dataSource, maxConnections, acquireTimeout, maxWaiting);
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder connectionLimitMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream()
+                .filter(ConnectionLimitingDataSource.class::isInstance)
+                .map(ConnectionLimitingDataSource.class::cast)
+                .forEach(dataSource -> {
+                    Gauge.builder("jdbc.connections.limit.active", dataSource, ConnectionLimitingDataSource::getActiveConnections)
+                            .description("Connections currently handed out through the limiter").register(registry);
+                    Gauge.builder("jdbc.connections.limit.waiting", dataSource, ConnectionLimitingDataSource::getWaiting)
+                            .description("Callers queued for a connection").register(registry);
+                    Gauge.builder("jdbc.connections.limit.max", dataSource, ConnectionLimitingDataSource::getMaxConnections)
+                            .description("Maximum concurrent connections").register(registry);
+                });
+    }
+}
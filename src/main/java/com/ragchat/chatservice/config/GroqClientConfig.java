@@ -0,0 +1,85 @@
+package com.ragchat.chatservice.config;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dedicated Reactor Netty client for the Groq API, configured from {@code groq.client.*}:
+ * its own connection pool, HTTP/2 over TLS, gzip, a cap on buffered response size and
+ * connect/write/response timeouts.
+ * <p>
+ * Reactor Netty records per-phase timings (connect, TLS handshake, request sent, response
+ * received) as {@code reactor.netty.http.client.*} timers, and pool usage as
+ * {@code reactor.netty.connection.provider.*} gauges, both tagged with pool name {@code groq}.
+ */
+@Configuration
+@EnableConfigurationProperties(GroqClientProperties.class)
+public class GroqClientConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(GroqClientConfig.class);
+
+    public static final String POOL_NAME = "groq";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider groqConnectionProvider(GroqClientProperties properties) {
+        return ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .maxLifeTime(properties.getMaxLifeTime())
+                .evictInBackground(Duration.ofSeconds(30))
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient groqWebClient(WebClient.Builder webClientBuilder,
+                                   ConnectionProvider groqConnectionProvider,
+                                   GroqClientProperties properties,
+                                   @Value("${groq.api.base-url:https://api.groq.com/openai/v1}") String baseUrl) {
+        boolean secure = "https".equalsIgnoreCase(UriComponentsBuilder.fromHttpUrl(baseUrl).build().getScheme());
+        boolean http2 = properties.isHttp2() && secure;
+
+        HttpClient httpClient = HttpClient.create(groqConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, properties.isKeepAlive())
+                .keepAlive(properties.isKeepAlive())
+                .compress(properties.isCompression())
+                .responseTimeout(properties.getResponseTimeout())
+                .doOnConnected(connection -> connection.addHandlerLast(
+                        new WriteTimeoutHandler(properties.getWriteTimeout().toMillis(), TimeUnit.MILLISECONDS)))
+                // Only two paths are called; tag them without query strings
+                .metrics(true, uri -> UriComponentsBuilder.fromUriString(uri).build().getPath());
+        if (http2) {
+            // HTTP/2 needs TLS with ALPN; HTTP/1.1 remains the fallback
+            httpClient = httpClient.secure().protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        log.info("Groq client: {} ({}), pool {} connections, timeouts connect={} response={} total={}",
+                baseUrl, http2 ? "HTTP/2" : "HTTP/1.1", properties.getMaxConnections(),
+                properties.getConnectTimeout(), properties.getResponseTimeout(), properties.getTotalTimeout());
+
+        // Cloned so Boot's shared builder keeps its default connector for other clients
+        return webClientBuilder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) properties.getMaxInMemorySize().toBytes()))
+                .build();
+    }
+}
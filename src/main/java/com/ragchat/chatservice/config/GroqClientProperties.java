@@ -0,0 +1,40 @@
+package com.ragchat.chatservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * HTTP client settings for the Groq API ({@code groq.client.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "groq.client")
+public class GroqClientProperties {
+
+    // Connection pool
+    private int maxConnections = 100;
+    private int pendingAcquireMaxCount = 1000;
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+    private boolean keepAlive = true;
+
+    // Negotiated via ALPN; only applies to https base URLs, plain http stays on HTTP/1.1
+    private boolean http2 = true;
+
+    // Accept-Encoding: gzip, and transparent decompression
+    private boolean compression = true;
+
+    // Largest completion body that is buffered for decoding
+    private DataSize maxInMemorySize = DataSize.ofMegabytes(2);
+
+    // Per-phase timeouts
+    private Duration connectTimeout = Duration.ofSeconds(3);
+    private Duration writeTimeout = Duration.ofSeconds(10);
+    // Until the response starts and between reads after that, so it also bounds stalls in a stream
+    private Duration responseTimeout = Duration.ofSeconds(30);
+    // Whole non-streaming completion, including decoding
+    private Duration totalTimeout = Duration.ofSeconds(60);
+}
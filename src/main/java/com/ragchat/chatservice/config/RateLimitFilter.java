@@ -2,10 +2,14 @@ package com.ragchat.chatservice.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ragchat.chatservice.dto.ApiResponseDTO;
+import com.ragchat.chatservice.ratelimit.ApiKeyRateLimits;
+import com.ragchat.chatservice.ratelimit.RateLimit;
+import com.ragchat.chatservice.ratelimit.RateLimiterBackend;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
@@ -13,26 +17,37 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Rate limiter based on API keys loaded from .env
- * Each key has its own limit and time window.
+ * Each key has its own limit and time window (RATE_LIMIT_&lt;KEY&gt; / RATE_WINDOW_&lt;KEY&gt;).
+ * Limits of the configured API keys are resolved once at startup ({@link ApiKeyRateLimits});
+ * counting is delegated to the selected {@link RateLimiterBackend} (per replica by default,
+ * or shared via PostgreSQL).
  * Safe with Swagger, ApiKeyFilter, and SecurityConfig.
  */
 @Component
 public class RateLimitFilter extends OncePerRequestFilter {
 
-    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
-    private final ObjectMapper mapper = new ObjectMapper();
-    private final Environment env;
+    public static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String RETRY_AFTER_HEADER = "Retry-After";
+    // Rejections per API key, labelled with ApiKeyRateLimits.fingerprint rather than the key
+    public static final String REJECTED_METRIC = "ratelimit.rejected";
 
-    private final Map<String, RequestBucket> rateLimiters = new ConcurrentHashMap<>();
+    // Bucket shared by all keys that are not in api.keys (ApiKeyFilter rejects them anyway)
+    static final String UNKNOWN_KEYS_BUCKET = ApiKeyRateLimits.UNKNOWN_KEYS_BUCKET;
 
-    public RateLimitFilter(Environment env) {
-        this.env = env;
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ApiKeyRateLimits limits;
+    private final RateLimiterBackend backend;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(Environment env, RateLimiterBackend backend, MeterRegistry meterRegistry) {
+        this.limits = new ApiKeyRateLimits(env);
+        this.backend = backend;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
@@ -56,38 +71,28 @@ public class RateLimitFilter extends OncePerRequestFilter {
             return;
         }
 
-        // Fetch per-key limit and window from .env (case-insensitive)
-        int limit = Integer.parseInt(env.getProperty("RATE_LIMIT_" + apiKey.toUpperCase(),
-                env.getProperty("RATE_LIMIT_DEFAULT", "5")));
-
-        long windowMs = Long.parseLong(env.getProperty("RATE_WINDOW_" + apiKey.toUpperCase(),
-                env.getProperty("RATE_WINDOW_DEFAULT", "60000")));
-
-        // Track requests per API key
-        RequestBucket bucket = rateLimiters.computeIfAbsent(apiKey, k -> new RequestBucket(windowMs, limit));
-
-        synchronized (bucket) {
-            long now = Instant.now().toEpochMilli();
-
-            // Reset if window expired
-            if (now - bucket.windowStart >= bucket.windowMs) {
-                bucket.windowStart = now;
-                bucket.requestCount = 0;
-            }
-
-            // Check limit
-            if (bucket.requestCount >= bucket.limit) {
-                long wait = bucket.windowMs - (now - bucket.windowStart);
-                sendError(response, 429,
-                        "Rate limit exceeded for API key '" + apiKey +
-                                "'. Try again in " + (wait / 1000) + " seconds.");
-                return;
-            }
-
-            bucket.requestCount++;
+        ApiKeyRateLimits.Assignment assignment = limits.forKey(apiKey);
+        RateLimit limit = assignment.limit();
+
+        long now = System.currentTimeMillis();
+        long result = backend.tryAcquire(assignment.bucket(), limit, now);
+
+        response.setHeader(LIMIT_HEADER, limit.header());
+        if (result < 0) {
+            long retryAfterSeconds = (-result + 999) / 1000;
+            meterRegistry.counter(REJECTED_METRIC, "key", assignment.label()).increment();
+            response.setHeader(REMAINING_HEADER, "0");
+            response.setHeader(RETRY_AFTER_HEADER, Long.toString(retryAfterSeconds));
+            sendError(response, 429,
+                    "Rate limit exceeded for API key '" + apiKey +
+                            "'. Try again in " + retryAfterSeconds + " seconds.");
+            return;
+        }
+        response.setHeader(REMAINING_HEADER, Long.toString(result));
 
-            // (Optional logging, won’t affect anything)
-            log.debug("API Key [{}] → {}/{} requests (window={}ms)", apiKey, bucket.requestCount, bucket.limit, bucket.windowMs);
+        if (log.isTraceEnabled()) {
+            log.trace("API Key [{}] → {} of {} requests left (window={}ms)",
+                    apiKey, result, limit.limit(), limit.windowMs());
         }
 
         filterChain.doFilter(request, response);
@@ -99,16 +104,4 @@ public class RateLimitFilter extends OncePerRequestFilter {
         ApiResponseDTO error = new ApiResponseDTO(code, message, null);
         response.getWriter().write(mapper.writeValueAsString(error));
     }
-
-    private static class RequestBucket {
-        long windowStart = Instant.now().toEpochMilli();
-        int requestCount = 0;
-        final long windowMs;
-        final int limit;
-
-        RequestBucket(long windowMs, int limit) {
-            this.windowMs = windowMs;
-            this.limit = limit;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package com.ragchat.chatservice.config;
+
+import com.ragchat.chatservice.embedding.Embedder;
+import com.ragchat.chatservice.embedding.HashedNgramEmbedder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RetrievalConfig {
+
+    /**
+     * Embedder for message retrieval. The built-in one needs no model files or network access;
+     * declare another {@link Embedder} bean (e.g. a local ONNX sentence model) to replace it.
+     */
+    @Bean
+    @ConditionalOnMissingBean(Embedder.class)
+    public Embedder messageEmbedder(@Value("${chat.retrieval.dimensions:512}") int dimensions) {
+        return new HashedNgramEmbedder(dimensions);
+    }
+}
@@ -0,0 +1,49 @@
+package com.ragchat.chatservice.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Versioned schema migrations ({@code chat.schema.migrations.*}), on by default. They own the
+ * schema: while they are enabled Hibernate only validates it, whatever {@code ddl-auto} says.
+ * The scripts in {@code db/migration} are written for PostgreSQL; runs against other
+ * databases (H2) disable migrations and fall back to {@code ddl-auto}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "chat.schema.migrations", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SchemaMigrationConfig {
+
+    private static final Pattern LANGUAGE = Pattern.compile("[a-z_]+");
+
+    @Bean(initMethod = "migrate")
+    SchemaMigrator schemaMigrator(DataSource dataSource,
+                                  @Value("${chat.schema.migrations.location:db/migration}") String location,
+                                  @Value("${chat.search.language:english}") String searchLanguage) {
+        // Substituted into SQL, so only a bare text search configuration name is accepted
+        if (!LANGUAGE.matcher(searchLanguage).matches()) {
+            throw new IllegalStateException("Invalid chat.search.language: " + searchLanguage);
+        }
+        return new SchemaMigrator(dataSource, location, Map.of("search_language", searchLanguage));
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer validateMigratedSchema() {
+        return properties -> properties.put(AvailableSettings.HBM2DDL_AUTO, "validate");
+    }
+
+    // Static: post-processors are created before regular beans. The entity manager factory, and
+    // every bean that waits for it, starts only once the schema is migrated.
+    @Bean
+    static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnSchemaMigrator() {
+        return new EntityManagerFactoryDependsOnPostProcessor("schemaMigrator");
+    }
+}
@@ -0,0 +1,187 @@
+package com.ragchat.chatservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Applies the versioned SQL scripts of a classpath directory in version order and records
+ * them in {@code schema_version}. Scripts follow the Flyway naming,
+ * {@code V<version>__<description>.sql}, and each runs as one statement batch in its own
+ * transaction. {@code ${name}} placeholders are replaced before a script runs; the checksum
+ * covers the script as written, so changing a placeholder value does not fail startup. Applied scripts are skipped; one edited after it was applied (checksum
+ * mismatch) stops startup. On PostgreSQL, replicas starting together serialize on an
+ * advisory lock.
+ */
+public class SchemaMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{(\\w+)}");
+    private static final long LOCK_KEY = 0x5C4E_4D41L;
+
+    private static final String CREATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version      INTEGER      NOT NULL PRIMARY KEY,
+                description  VARCHAR(200) NOT NULL,
+                checksum     BIGINT       NOT NULL,
+                installed_at TIMESTAMP    NOT NULL
+            )""";
+    private static final String APPLIED = "SELECT version, checksum FROM schema_version";
+    private static final String RECORD = """
+            INSERT INTO schema_version (version, description, checksum, installed_at) VALUES (?, ?, ?, ?)""";
+
+    record Migration(int version, String description, String script, long checksum) {
+    }
+
+    private final DataSource dataSource;
+    private final String location;
+    private final Map<String, String> placeholders;
+
+    public SchemaMigrator(DataSource dataSource, String location) {
+        this(dataSource, location, Map.of());
+    }
+
+    public SchemaMigrator(DataSource dataSource, String location, Map<String, String> placeholders) {
+        this.dataSource = dataSource;
+        this.location = location;
+        this.placeholders = Map.copyOf(placeholders);
+    }
+
+    /**
+     * Applies every pending script; returns the versions applied.
+     */
+    public List<Integer> migrate() {
+        List<Migration> migrations = load();
+        List<Integer> applied = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            if (postgres) {
+                execute(connection, "SELECT pg_advisory_lock(" + LOCK_KEY + ")");
+            }
+            try {
+                execute(connection, CREATE_TABLE);
+                Map<Integer, Long> done = appliedVersions(connection);
+                for (Migration migration : migrations) {
+                    Long checksum = done.get(migration.version());
+                    if (checksum == null) {
+                        apply(connection, migration);
+                        applied.add(migration.version());
+                    } else if (checksum != migration.checksum()) {
+                        throw new IllegalStateException("Migration V" + migration.version()
+                                + " was changed after it was applied; add a new version instead");
+                    }
+                }
+            } finally {
+                if (postgres) {
+                    execute(connection, "SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Schema migration failed: " + e.getMessage(), e);
+        }
+        log.info("Schema is at version {} ({} migrations applied now)",
+                migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version(), applied.size());
+        return applied;
+    }
+
+    // Scripts of the location, ordered by version
+    List<Migration> load() {
+        List<Migration> migrations = new ArrayList<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver()
+                    .getResources("classpath*:" + location + "/V*__*.sql")) {
+                Matcher name = SCRIPT_NAME.matcher(resource.getFilename());
+                if (!name.matches()) {
+                    throw new IllegalStateException("Invalid migration file name: " + resource.getFilename());
+                }
+                String script = resource.getContentAsString(StandardCharsets.UTF_8).replace("\r\n", "\n");
+                CRC32 crc = new CRC32();
+                crc.update(script.getBytes(StandardCharsets.UTF_8));
+                migrations.add(new Migration(Integer.parseInt(name.group(1)), name.group(2).replace('_', ' '),
+                        script, crc.getValue()));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read migrations from " + location, e);
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version() == migrations.get(i - 1).version()) {
+                throw new IllegalStateException("Duplicate migration version V" + migrations.get(i).version());
+            }
+        }
+        return migrations;
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        String script = resolve(migration);
+        log.info("Applying migration V{} ({})", migration.version(), migration.description());
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement();
+             PreparedStatement record = connection.prepareStatement(RECORD)) {
+            statement.execute(script);
+            record.setInt(1, migration.version());
+            record.setString(2, migration.description());
+            record.setLong(3, migration.checksum());
+            record.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+            record.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("V" + migration.version() + ": " + e.getMessage(), e.getSQLState(), e);
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private String resolve(Migration migration) {
+        Matcher placeholder = PLACEHOLDER.matcher(migration.script());
+        StringBuilder script = new StringBuilder();
+        while (placeholder.find()) {
+            String value = placeholders.get(placeholder.group(1));
+            if (value == null) {
+                throw new IllegalStateException("Migration V" + migration.version()
+                        + " uses undefined placeholder " + placeholder.group());
+            }
+            placeholder.appendReplacement(script, Matcher.quoteReplacement(value));
+        }
+        return placeholder.appendTail(script).toString();
+    }
+
+    private static Map<Integer, Long> appliedVersions(Connection connection) throws SQLException {
+        Map<Integer, Long> versions = new HashMap<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(APPLIED)) {
+            while (rs.next()) {
+                versions.put(rs.getInt(1), rs.getLong(2));
+            }
+        }
+        return versions;
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ragchat.chatservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ragchat.chatservice.tracing.JsonLinesSpanExporter;
+import com.ragchat.chatservice.tracing.TailSamplingSpanProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.tracing.ConditionalOnEnabledTracing;
+import org.springframework.boot.actuate.autoconfigure.tracing.SpanProcessors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * Tail-based sampling for the OpenTelemetry tracer that Spring Boot configures.
+ * <p>
+ * Every trace is recorded, and its spans are held in memory until the local root span ends.
+ * Then the whole trace is kept if it was slow ({@code chat.tracing.slow-threshold}) or failed,
+ * or by chance ({@code chat.tracing.sample-rate}); otherwise it is dropped. Kept spans go to
+ * Boot's batch span processor and from there to every exporter: a JSON-lines file by default,
+ * and an OTLP collector when {@code management.otlp.tracing.endpoint} is set.
+ */
+@Configuration
+@ConditionalOnEnabledTracing
+@EnableConfigurationProperties(ChatTracingProperties.class)
+public class TracingConfig {
+
+    // Sampling happens when a trace ends, so every trace has to be recorded first
+    @Bean
+    public Sampler otelSampler() {
+        return Sampler.parentBased(Sampler.alwaysOn());
+    }
+
+    @Bean
+    public SpanProcessors spanProcessors(ObjectProvider<SpanProcessor> spanProcessors,
+                                         ChatTracingProperties properties,
+                                         MeterRegistry meterRegistry) {
+        return SpanProcessors.of(spanProcessors.orderedStream()
+                .map(delegate -> (SpanProcessor) new TailSamplingSpanProcessor(delegate, properties, meterRegistry))
+                .toList());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "chat.tracing.file.enabled", havingValue = "true", matchIfMissing = true)
+    public JsonLinesSpanExporter jsonLinesSpanExporter(ChatTracingProperties properties, ObjectMapper objectMapper)
+            throws IOException {
+        return new JsonLinesSpanExporter(properties.getFile().getPath(), objectMapper);
+    }
+}
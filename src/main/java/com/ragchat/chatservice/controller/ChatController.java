@@ -1,11 +1,21 @@
 package com.ragchat.chatservice.controller;
 
 import com.ragchat.chatservice.dto.ApiResponseDTO;
+import com.ragchat.chatservice.dto.ChatExchangeDTO;
 import com.ragchat.chatservice.dto.ChatSessionDTO;
 import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.dto.WriteDurability;
 import com.ragchat.chatservice.exception.ResourceNotFoundException;
+import com.ragchat.chatservice.exception.ServiceOverloadedException;
+import com.ragchat.chatservice.metrics.ChatTurnMetrics;
 import com.ragchat.chatservice.service.AIResponseService;
 import com.ragchat.chatservice.service.ChatService;
+import com.ragchat.chatservice.service.ConversationContextService;
+import com.ragchat.chatservice.service.MessageIngestionService;
+import com.ragchat.chatservice.service.MessageSearchService;
+import com.ragchat.chatservice.service.MessageRetrievalService;
+import com.ragchat.chatservice.service.MessageTransferService;
+import com.ragchat.chatservice.service.SemanticResponseCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,12 +23,22 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -33,6 +53,27 @@ public class ChatController {
     @Autowired
     private AIResponseService aiResponseService;
 
+    @Autowired
+    private ConversationContextService conversationContextService;
+
+    @Autowired
+    private MessageIngestionService messageIngestionService;
+
+    @Autowired
+    private SemanticResponseCache responseCache;
+
+    @Autowired
+    private ChatTurnMetrics chatTurnMetrics;
+
+    @Autowired
+    private MessageTransferService messageTransferService;
+
+    @Autowired
+    private MessageSearchService messageSearchService;
+
+    @Autowired
+    private MessageRetrievalService messageRetrievalService;
+
     // -------------------- SESSION MANAGEMENT --------------------
 
     @PostMapping("/session")
@@ -66,6 +107,24 @@ public class ChatController {
         return ResponseEntity.ok(chatService.deleteSession(sessionId));
     }
 
+    @GetMapping("/user/{userId}/sessions")
+    @Operation(summary = "List a user's chat sessions", tags = {"Sessions"},
+            description = "Favorites first, then most recently active first. Each session carries its message count "
+                    + "and a preview of the latest message. Pass 'nextCursor' as 'after' for the next page.")
+    public ResponseEntity<ApiResponseDTO> getSessions(
+            @Parameter(description = "Owner of the sessions", example = "123451")
+            @PathVariable String userId,
+
+            @Parameter(description = "Return sessions after this cursor")
+            @RequestParam(required = false) String after,
+
+            @Parameter(description = "Number of sessions per page (max 100)", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+
+        log.info("Listing sessions for userId={}, after={}, size={}", userId, after, size);
+        return ResponseEntity.ok(chatService.getSessions(userId, after, size));
+    }
+
     @PatchMapping("/session/{sessionId}/favorite")
     @Operation(summary = "Toggle favorite status of a chat session", tags = {"Sessions"})
     public ResponseEntity<ApiResponseDTO> toggleFavorite(@PathVariable UUID sessionId) {
@@ -78,8 +137,27 @@ public class ChatController {
     @Operation(summary = "Add a message to a chat session", tags = {"Messages"})
     public ResponseEntity<ApiResponseDTO> addMessage(
             @PathVariable UUID sessionId,
-            @Valid @RequestBody MessageDTO dto) {
-        return ResponseEntity.ok(chatService.addMessage(sessionId, dto));
+            @Valid @RequestBody MessageDTO dto,
+
+            @Parameter(description = "SYNC stores before responding; BATCHED waits for a group commit; "
+                    + "ASYNC responds 202 once queued (falls back to SYNC when batched ingestion is disabled)")
+            @RequestParam(defaultValue = "SYNC") WriteDurability durability) {
+
+        if (durability == WriteDurability.SYNC || !messageIngestionService.isEnabled()) {
+            return ResponseEntity.ok(chatService.addMessage(sessionId, dto));
+        }
+
+        // Cached lookup, so unknown sessions are rejected without a DB round trip
+        chatService.getSessionById(sessionId);
+
+        if (durability == WriteDurability.BATCHED) {
+            MessageDTO stored = messageIngestionService.submitAndWait(sessionId, dto);
+            return ResponseEntity.ok(new ApiResponseDTO(200, "Message added successfully", stored));
+        }
+
+        messageIngestionService.submit(sessionId, dto);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponseDTO(202, "Message accepted for storage", dto));
     }
 
     @GetMapping("/session/{sessionId}/messages")
@@ -99,6 +177,114 @@ public class ChatController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/session/{sessionId}/messages/cursor")
+    @Operation(summary = "Retrieve messages for a session (cursor pagination)", tags = {"Messages"},
+            description = "Pass 'nextCursor' as 'after' or 'prevCursor' as 'before' to page forwards or backwards. "
+                    + "Page cost is independent of how deep the client has scrolled.")
+    public ResponseEntity<ApiResponseDTO> getMessagesByCursor(
+            @Parameter(description = "Unique chat session ID")
+            @PathVariable UUID sessionId,
+
+            @Parameter(description = "Return messages newer than this cursor")
+            @RequestParam(required = false) String after,
+
+            @Parameter(description = "Return messages older than this cursor")
+            @RequestParam(required = false) String before,
+
+            @Parameter(description = "Number of records per page (max 100)", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+
+        log.info("Fetching messages for sessionId={}, after={}, before={}, size={}", sessionId, after, before, size);
+        return ResponseEntity.ok(chatService.getMessagesByCursor(sessionId, after, before, size));
+    }
+
+    @GetMapping("/user/{userId}/messages/search")
+    @Operation(summary = "Search a user's chat history", tags = {"Messages"},
+            description = "Full-text search over all sessions of the user, or one session. Hits are ranked by relevance "
+                    + "and carry a snippet with the matched terms in <mark> tags. Pass 'nextCursor' as 'after' for the next page.")
+    public ResponseEntity<ApiResponseDTO> searchMessages(
+            @Parameter(description = "User whose sessions are searched", example = "123451")
+            @PathVariable String userId,
+
+            @Parameter(description = "Search words; \"quoted phrases\", 'or' and -excluded words are supported", example = "account balance")
+            @RequestParam String q,
+
+            @Parameter(description = "Only search this session")
+            @RequestParam(required = false) UUID sessionId,
+
+            @Parameter(description = "Return hits after this cursor")
+            @RequestParam(required = false) String after,
+
+            @Parameter(description = "Number of hits per page (max 100)", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+
+        log.info("Searching messages for userId={}, sessionId={}, size={}", userId, sessionId, size);
+        return ResponseEntity.ok(messageSearchService.search(userId, sessionId, q, after, size));
+    }
+
+    @GetMapping("/user/{userId}/messages/similar")
+    @Operation(summary = "Find a user's messages most similar in meaning to a text", tags = {"Messages"},
+            description = "Nearest-neighbour search over message embeddings, across all sessions of the user or one session. "
+                    + "Hits are ordered by similarity (cosine, 0 to 1). Messages are indexed asynchronously, so the newest "
+                    + "ones may be missing for a moment. Returns 503 when retrieval is disabled.")
+    public ResponseEntity<ApiResponseDTO> findSimilarMessages(
+            @Parameter(description = "User whose sessions are searched", example = "123451")
+            @PathVariable String userId,
+
+            @Parameter(description = "Text to compare messages with", example = "how do I reset my card pin")
+            @RequestParam String q,
+
+            @Parameter(description = "Only search this session")
+            @RequestParam(required = false) UUID sessionId,
+
+            @Parameter(description = "Number of messages to return (max 20)", example = "5")
+            @RequestParam(defaultValue = "5") int k) {
+
+        if (!messageRetrievalService.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ApiResponseDTO(503, "Message retrieval is disabled", null));
+        }
+        log.info("Retrieving similar messages for userId={}, sessionId={}, k={}", userId, sessionId, k);
+        return ResponseEntity.ok(new ApiResponseDTO(200, "Similar messages retrieved successfully",
+                messageRetrievalService.retrieve(userId, sessionId, q, k)));
+    }
+
+    // -------------------- BULK IMPORT / EXPORT --------------------
+
+    @PostMapping(value = "/session/{sessionId}/messages/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Import messages into a session from NDJSON", tags = {"Messages"},
+            description = "One JSON object per line: {\"sender\":\"user\",\"message\":\"...\",\"createdAt\":\"...\"} "
+                    + "(createdAt optional). All lines are stored in one transaction; an invalid line rejects the file.")
+    public ResponseEntity<ApiResponseDTO> importMessages(@PathVariable UUID sessionId, InputStream body) {
+        long imported = messageTransferService.importMessages(sessionId, body);
+        return ResponseEntity.ok(new ApiResponseDTO(200, "Messages imported successfully", Map.of("imported", imported)));
+    }
+
+    @GetMapping(value = "/session/{sessionId}/messages/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all messages of a session as NDJSON", tags = {"Messages"},
+            description = "Streamed from a database cursor, oldest first; the output can be imported as is.")
+    public ResponseEntity<StreamingResponseBody> exportSessionMessages(@PathVariable UUID sessionId) {
+        // Fail with 404 before the response is committed
+        chatService.getSessionById(sessionId);
+        return ndjsonAttachment("session-" + sessionId,
+                out -> messageTransferService.exportSession(sessionId, out));
+    }
+
+    @GetMapping(value = "/user/{userId}/messages/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all messages of all sessions of a user as NDJSON", tags = {"Messages"},
+            description = "Streamed from a database cursor, grouped by session and oldest first within each.")
+    public ResponseEntity<StreamingResponseBody> exportUserMessages(@PathVariable String userId) {
+        return ndjsonAttachment("user-" + userId,
+                out -> messageTransferService.exportUser(userId, out));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> ndjsonAttachment(String name, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + ".ndjson").build().toString())
+                .body(body);
+    }
 
     // -------------------- GroqAI CHAT --------------------
 
@@ -108,6 +294,67 @@ public class ChatController {
             @PathVariable UUID sessionId,
             @Valid @RequestBody MessageDTO messageDTO) {
 
+        // Timed and traced per stage, with DB, mapping and Groq time broken out (chat.turn.* metrics)
+        try (ChatTurnMetrics.Turn turn = chatTurnMetrics.start("session")) {
+            try {
+                ChatSessionDTO session = chatService.getSessionById(sessionId);
+                if (session == null)
+                    throw new ResourceNotFoundException("Chat session not found for ID: " + sessionId);
+
+                messageDTO.setSender("user");
+
+                String aiReply;
+                try {
+                    // Session history plus the new question, which is stored together with the reply
+                    turn.stage("context");
+                    List<Map<String, Object>> context = conversationContextService.buildContext(sessionId, messageDTO);
+                    // Related messages from the user's other conversations, when enabled; part of the cache key
+                    turn.stage("retrieval");
+                    context = messageRetrievalService.augment(session.getUserId(), context, messageDTO.getMessage());
+                    turn.stage("response_cache");
+                    Optional<String> cached = responseCache.lookup(context);
+                    if (cached.isPresent()) {
+                        aiReply = cached.get();
+                    } else {
+                        turn.stage(ChatTurnMetrics.STAGE_LLM);
+                        aiReply = aiResponseService.getAIResponse(Map.of("messages", context));
+                    }
+                } catch (ServiceOverloadedException e) {
+                    turn.failure(e);
+                    throw e;
+                } catch (Exception e) {
+                    log.error("Error communicating with Groq AI: {}", e.getMessage());
+                    turn.failure(e);
+                    return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                            .body(new ApiResponseDTO(502, "Failed to get response from Groq AI", e.getMessage()));
+                }
+
+                // Save the question and the AI response in one transaction
+                turn.stage("store_exchange");
+                MessageDTO aiMessage = new MessageDTO();
+                aiMessage.setSender("assistant");
+                aiMessage.setMessage(aiReply);
+                ChatExchangeDTO exchange = chatService.recordExchange(sessionId, messageDTO, aiMessage);
+
+                turn.success();
+                return ResponseEntity.ok(
+                        new ApiResponseDTO(200, "Chat response generated successfully", exchange.getAssistantMessage())
+                );
+            } catch (ResourceNotFoundException e) {
+                // The session is missing, or was soft-deleted while the reply was generated
+                turn.failure(e);
+                throw e;
+            }
+        }
+    }
+
+    @PostMapping(value = "/sessions/{sessionId}/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Chat with Groq AI, streaming the reply as server-sent events", tags = {"Groq AI"},
+            description = "Emits 'delta' events as tokens arrive, then a 'done' event carrying the stored assistant message.")
+    public Flux<ServerSentEvent<Object>> streamChatWithGroqAI(
+            @PathVariable UUID sessionId,
+            @Valid @RequestBody MessageDTO messageDTO) {
+
         ChatSessionDTO session = chatService.getSessionById(sessionId);
         if (session == null)
             throw new ResourceNotFoundException("Chat session not found for ID: " + sessionId);
@@ -116,28 +363,41 @@ public class ChatController {
         messageDTO.setSender("user");
         chatService.addMessage(sessionId, messageDTO);
 
-        String aiReply;
-        try {
-            aiReply = aiResponseService.getAIResponse(
-                    Map.of("messages", List.of(
-                            Map.of("role", "user", "content", messageDTO.getMessage())
-                    ))
-            );
-        } catch (Exception e) {
-            log.error("Error communicating with Groq AI: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
-                    .body(new ApiResponseDTO(502, "Failed to get response from Groq AI", e.getMessage()));
-        }
+        StringBuilder aiReply = new StringBuilder();
+        List<Map<String, Object>> context = messageRetrievalService.augment(session.getUserId(),
+                conversationContextService.buildContext(sessionId), messageDTO.getMessage());
 
-        // Save AI response
+        return aiResponseService.streamAIResponse(context)
+                .doOnNext(aiReply::append)
+                .map(delta -> ServerSentEvent.<Object>builder(delta).event("delta").build())
+                // Persist the assembled AI response once the stream completes, off the event loop
+                .concatWith(Mono.fromCallable(() -> saveAssistantReply(sessionId, aiReply.toString()))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .map(saved -> ServerSentEvent.<Object>builder(saved).event("done").build()))
+                .onErrorResume(e -> {
+                    // The SSE response is already committed here, so a shed stream is reported in the event
+                    if (e instanceof ServiceOverloadedException) {
+                        log.warn("Shedding load: {}", e.getMessage());
+                        return Mono.just(ServerSentEvent.<Object>builder(new ApiResponseDTO(503, e.getMessage(), null))
+                                .event("error")
+                                .build());
+                    }
+                    log.error("Error streaming from Groq AI: {}", e.getMessage());
+                    return Mono.just(ServerSentEvent.<Object>builder(
+                                    new ApiResponseDTO(502, "Failed to get response from Groq AI", e.getMessage()))
+                            .event("error")
+                            .build());
+                });
+    }
+
+    private ApiResponseDTO saveAssistantReply(UUID sessionId, String reply) {
+        if (reply.isBlank()) {
+            return new ApiResponseDTO(204, "Groq AI returned an empty response", null);
+        }
         MessageDTO aiMessage = new MessageDTO();
         aiMessage.setSender("assistant");
-        aiMessage.setMessage(aiReply);
-        chatService.addMessage(sessionId, aiMessage);
-
-        return ResponseEntity.ok(
-                new ApiResponseDTO(200, "Chat response generated successfully", aiMessage)
-        );
+        aiMessage.setMessage(reply);
+        return chatService.addMessage(sessionId, aiMessage);
     }
 
     // -------------------- ADMIN UTILITY (Protected via API Key) --------------------
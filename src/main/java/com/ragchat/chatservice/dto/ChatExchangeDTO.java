@@ -0,0 +1,18 @@
+package com.ragchat.chatservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatExchangeDTO {
+
+    @Schema(description = "The stored user message")
+    private MessageDTO userMessage;
+
+    @Schema(description = "The stored assistant reply to it")
+    private MessageDTO assistantMessage;
+}
@@ -0,0 +1,34 @@
+package com.ragchat.chatservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One line of a bulk NDJSON export or import. On import, {@code id} and {@code sessionId}
+ * are ignored and {@code createdAt} is optional.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageExportDTO {
+
+    @Schema(description = "Message ID", accessMode = Schema.AccessMode.READ_ONLY)
+    private UUID id;
+
+    @Schema(description = "Session the message belongs to", accessMode = Schema.AccessMode.READ_ONLY)
+    private UUID sessionId;
+
+    @Schema(description = "Message sender (user or assistant)", example = "user")
+    private String sender;
+
+    @Schema(description = "Message text", example = "What is RTGS?")
+    private String message;
+
+    @Schema(description = "When the message was written; defaults to the import time", example = "2025-10-27T20:00:00")
+    private LocalDateTime createdAt;
+}
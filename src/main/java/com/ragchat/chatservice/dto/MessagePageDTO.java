@@ -0,0 +1,26 @@
+package com.ragchat.chatservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessagePageDTO {
+
+    @Schema(description = "Messages of this page, oldest first")
+    private List<MessageDTO> messages;
+
+    @Schema(description = "Pass as 'after' to fetch the following page; null when this is the newest page")
+    private String nextCursor;
+
+    @Schema(description = "Pass as 'before' to fetch the preceding page; null when this is the oldest page")
+    private String prevCursor;
+
+    @Schema(description = "Whether more messages exist in the requested direction", example = "true")
+    private boolean hasMore;
+}
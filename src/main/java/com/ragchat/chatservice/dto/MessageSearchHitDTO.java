@@ -0,0 +1,35 @@
+package com.ragchat.chatservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSearchHitDTO {
+
+    @Schema(description = "Message ID")
+    private UUID id;
+
+    @Schema(description = "Session the message belongs to")
+    private UUID sessionId;
+
+    @Schema(description = "Message sender (user or assistant)", example = "user")
+    private String sender;
+
+    @Schema(description = "Excerpt with the matched terms wrapped in <mark></mark>. The message text is not "
+            + "HTML-escaped; escape it before rendering and treat only the mark tags as markup.",
+            example = "How do I check my <mark>account</mark> <mark>balance</mark>?")
+    private String snippet;
+
+    @Schema(description = "Relevance; higher is better. Always 0 without PostgreSQL full-text search", example = "0.2")
+    private float rank;
+
+    @Schema(description = "When the message was written", example = "2025-10-27T20:04:10.586788")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,33 @@
+package com.ragchat.chatservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetrievedMessageDTO {
+
+    @Schema(description = "Message ID")
+    private UUID id;
+
+    @Schema(description = "Session the message belongs to")
+    private UUID sessionId;
+
+    @Schema(description = "Message sender (user or assistant)", example = "assistant")
+    private String sender;
+
+    @Schema(description = "Message text", example = "RTGS settles each transfer individually and in real time.")
+    private String message;
+
+    @Schema(description = "Cosine similarity of the message to the query, from -1 to 1", example = "0.62")
+    private float score;
+
+    @Schema(description = "When the message was written", example = "2025-10-27T20:04:10.586788")
+    private LocalDateTime createdAt;
+}
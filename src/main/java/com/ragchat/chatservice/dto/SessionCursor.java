@@ -0,0 +1,33 @@
+package com.ragchat.chatservice.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of a session in a user's (favorite, updatedAt, id) listing order.
+ * Exposed to clients only as an opaque URL-safe token.
+ */
+public record SessionCursor(boolean favorite, LocalDateTime updatedAt, UUID id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = favorite + SEPARATOR + updatedAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SessionCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 3 || !(parts[0].equals("true") || parts[0].equals("false"))) {
+                throw new IllegalArgumentException();
+            }
+            return new SessionCursor(Boolean.parseBoolean(parts[0]), LocalDateTime.parse(parts[1]), UUID.fromString(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid session cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.ragchat.chatservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionPageDTO {
+
+    @Schema(description = "Sessions, favorites first, then most recently active first")
+    private List<SessionSummaryDTO> sessions;
+
+    @Schema(description = "Pass as 'after' to fetch the following page; null when this is the last page")
+    private String nextCursor;
+
+    @Schema(description = "Whether more sessions follow this page", example = "true")
+    private boolean hasMore;
+}
@@ -0,0 +1,47 @@
+package com.ragchat.chatservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One row of a user's session listing, read as a projection: no entity or message
+ * collection is loaded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionSummaryDTO {
+
+    @Schema(description = "Session ID")
+    private UUID id;
+
+    @Schema(description = "Session name", example = "Support Chat")
+    private String name;
+
+    @Schema(description = "Marked as favorite", example = "false")
+    private boolean favorite;
+
+    @Schema(description = "When the session was created", example = "2025-10-27T20:00:00")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "Last activity: the latest message, rename or favorite change", example = "2025-10-27T20:04:11.123456")
+    private LocalDateTime updatedAt;
+
+    @Schema(description = "Number of messages in the session", example = "12")
+    private long messageCount;
+
+    @Schema(description = "Sender of the latest message; null for an empty session", example = "assistant")
+    private String lastMessageSender;
+
+    @Schema(description = "First 200 characters of the latest message; null for an empty session",
+            example = "You can check it in the mobile app.")
+    private String lastMessagePreview;
+
+    @Schema(description = "When the latest message was written; null for an empty session", example = "2025-10-27T20:04:11.123456")
+    private LocalDateTime lastMessageAt;
+}
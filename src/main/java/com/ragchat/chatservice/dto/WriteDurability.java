@@ -0,0 +1,16 @@
+package com.ragchat.chatservice.dto;
+
+/**
+ * How long a message write waits before the request is answered.
+ */
+public enum WriteDurability {
+
+    /** Stored in its own transaction before responding (default). */
+    SYNC,
+
+    /** Queued and written with other messages in one JDBC batch; responds once that batch has committed. */
+    BATCHED,
+
+    /** Queued and acknowledged immediately; may be lost if the service stops before the next flush. */
+    ASYNC
+}
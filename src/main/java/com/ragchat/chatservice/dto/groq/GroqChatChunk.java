@@ -0,0 +1,28 @@
+package com.ragchat.chatservice.dto.groq;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * One server-sent event of a streaming completion ({@code stream: true}).
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record GroqChatChunk(String id, List<Choice> choices) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Choice(int index, GroqMessage delta, @JsonProperty("finish_reason") String finishReason) {
+    }
+
+    /**
+     * Content of the first choice's delta, or null for chunks without any (role headers, finish markers).
+     */
+    public String content() {
+        if (choices == null || choices.isEmpty() || choices.get(0).delta() == null) {
+            return null;
+        }
+        String content = choices.get(0).delta().content();
+        return content == null || content.isEmpty() ? null : content;
+    }
+}
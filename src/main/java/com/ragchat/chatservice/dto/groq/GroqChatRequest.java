@@ -0,0 +1,12 @@
+package com.ragchat.chatservice.dto.groq;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Body of {@code POST /chat/completions}; {@code stream} is omitted unless set.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record GroqChatRequest(String model, List<GroqMessage> messages, double temperature, Boolean stream) {
+}
@@ -0,0 +1,24 @@
+package com.ragchat.chatservice.dto.groq;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Non-streaming completion returned by {@code POST /chat/completions}. Only the fields
+ * the service reads are mapped.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record GroqChatResponse(String id, String model, List<Choice> choices, Usage usage) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Choice(int index, GroqMessage message, @JsonProperty("finish_reason") String finishReason) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Usage(@JsonProperty("prompt_tokens") int promptTokens,
+                        @JsonProperty("completion_tokens") int completionTokens,
+                        @JsonProperty("total_tokens") int totalTokens) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.ragchat.chatservice.dto.groq;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One chat message in a Groq (OpenAI-compatible) completion request or response.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record GroqMessage(String role, String content) {
+
+    /**
+     * Converts the {@code role}/{@code content} maps built by ConversationContextService.
+     */
+    public static List<GroqMessage> fromContext(List<Map<String, Object>> messages) {
+        return messages.stream()
+                .map(m -> new GroqMessage(String.valueOf(m.get("role")), String.valueOf(m.get("content"))))
+                .toList();
+    }
+}
@@ -0,0 +1,17 @@
+package com.ragchat.chatservice.embedding;
+
+/**
+ * Turns text into a unit-length vector, so the dot product of two embeddings is their cosine
+ * similarity. Implementations run in-process; replace the default by declaring another bean.
+ */
+public interface Embedder {
+
+    /**
+     * Identifies the model and its settings. Stored vectors from a different id are discarded.
+     */
+    String id();
+
+    int dimensions();
+
+    float[] embedText(String text);
+}
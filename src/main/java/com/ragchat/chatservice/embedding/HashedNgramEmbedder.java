@@ -0,0 +1,124 @@
+package com.ragchat.chatservice.embedding;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Dependency-free text embedding: word unigrams, word bigrams and character trigrams are
+ * hashed into a fixed number of signed buckets ("feature hashing") and the vector is
+ * L2-normalized, so the dot product of two embeddings is their cosine similarity.
+ * It captures lexical overlap, not meaning: rephrasings that share most words score high,
+ * synonyms do not.
+ */
+public class HashedNgramEmbedder implements Embedder {
+
+    private static final float WORD_WEIGHT = 1.0f;
+    private static final float BIGRAM_WEIGHT = 1.0f;
+    private static final float TRIGRAM_WEIGHT = 0.5f;
+
+    private final int dimensions;
+
+    public HashedNgramEmbedder(int dimensions) {
+        if (Integer.bitCount(dimensions) != 1) {
+            throw new IllegalArgumentException("dimensions must be a power of two: " + dimensions);
+        }
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public String id() {
+        return "hashed-ngram-" + dimensions;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public float[] embedText(String text) {
+        return embed(normalize(text));
+    }
+
+    /**
+     * Lower-cases, folds Unicode compatibility forms, drops punctuation and collapses whitespace.
+     */
+    public static String normalize(String text) {
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder out = new StringBuilder(folded.length());
+        boolean space = true;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                out.append(c);
+                space = false;
+            } else if (!space) {
+                out.append(' ');
+                space = true;
+            }
+        }
+        int end = out.length();
+        if (end > 0 && out.charAt(end - 1) == ' ') {
+            out.setLength(end - 1);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Embeds already {@link #normalize normalized} text.
+     */
+    public float[] embed(String normalized) {
+        float[] vector = new float[dimensions];
+        String[] words = normalized.isEmpty() ? new String[0] : normalized.split(" ");
+        for (int i = 0; i < words.length; i++) {
+            add(vector, words[i].hashCode(), WORD_WEIGHT);
+            if (i > 0) {
+                add(vector, words[i - 1].hashCode() * 31 + words[i].hashCode() + 0x5bd1e995, BIGRAM_WEIGHT);
+            }
+            String padded = "^" + words[i] + "$";
+            for (int j = 0; j + 3 <= padded.length(); j++) {
+                add(vector, padded.substring(j, j + 3).hashCode() ^ 0x27d4eb2f, TRIGRAM_WEIGHT);
+            }
+        }
+        normalizeLength(vector);
+        return vector;
+    }
+
+    public static float cosine(float[] a, float[] b) {
+        float dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+
+    private void add(float[] vector, int featureHash, float weight) {
+        int h = mix(featureHash);
+        // Low bits pick the bucket, the top bit the sign, so collisions cancel out on average
+        vector[h & (dimensions - 1)] += (h < 0 ? -weight : weight);
+    }
+
+    private static void normalizeLength(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        if (sum == 0) {
+            return;
+        }
+        float scale = (float) (1 / Math.sqrt(sum));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+    }
+
+    // Murmur3 finalizer; String.hashCode alone has poorly distributed low bits
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
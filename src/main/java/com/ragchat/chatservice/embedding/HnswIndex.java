@@ -0,0 +1,274 @@
+package com.ragchat.chatservice.embedding;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Approximate nearest-neighbour graph (HNSW, Malkov and Yashunin 2016) for maximum-similarity
+ * search. Nodes are int keys whose vectors live elsewhere; similarities come from a callback,
+ * so the graph holds only links. Each node keeps up to {@code m} links per layer, and
+ * {@code 2m} on the bottom layer, chosen with the paper's diversity heuristic.
+ * <p>
+ * Removing a key hides it from results but keeps it as a route for searches.
+ * Searches run concurrently; additions and removals take a write lock.
+ */
+public class HnswIndex {
+
+    /**
+     * Similarity of the vectors of two keys; higher is closer.
+     */
+    public interface Similarity {
+        double between(int a, int b);
+    }
+
+    public record Neighbor(int key, double similarity) {
+    }
+
+    private record Candidate(int node, double similarity) {
+    }
+
+    private static final Comparator<Candidate> CLOSEST_LAST = Comparator.comparingDouble(Candidate::similarity);
+    private static final Comparator<Candidate> CLOSEST_FIRST = CLOSEST_LAST.reversed();
+    private static final int MAX_LEVEL = 16;
+
+    private final Similarity similarity;
+    private final int m;
+    private final int efConstruction;
+    private final double levelFactor;
+    private final SplittableRandom random;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<Integer, Integer> nodeByKey = new HashMap<>();
+    private int entryPoint = -1;
+    private int live;
+
+    public HnswIndex(Similarity similarity, int m, int efConstruction, long seed) {
+        if (m < 2) {
+            throw new IllegalArgumentException("m must be at least 2: " + m);
+        }
+        this.similarity = similarity;
+        this.m = m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelFactor = 1 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Keys added and not removed.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Links a key into the graph; adding a key twice has no effect.
+     */
+    public void add(int key) {
+        lock.writeLock().lock();
+        try {
+            if (nodeByKey.containsKey(key)) {
+                return;
+            }
+            int level = (int) Math.min(MAX_LEVEL, Math.floor(-Math.log(1 - random.nextDouble()) * levelFactor));
+            int node = nodes.size();
+            nodes.add(new Node(key, level, m));
+            nodeByKey.put(key, node);
+            live++;
+            if (entryPoint < 0) {
+                entryPoint = node;
+                return;
+            }
+
+            IntToDoubleFunction toNew = other -> similarity.between(key, nodes.get(other).key);
+            int topLevel = nodes.get(entryPoint).level();
+            int current = entryPoint;
+            for (int layer = topLevel; layer > level; layer--) {
+                current = searchLayer(current, toNew, 1, layer).get(0).node();
+            }
+            for (int layer = Math.min(level, topLevel); layer >= 0; layer--) {
+                List<Candidate> candidates = searchLayer(current, toNew, efConstruction, layer);
+                for (Candidate neighbor : selectNeighbors(candidates, maxLinks(layer))) {
+                    link(node, neighbor.node(), neighbor.similarity(), layer);
+                    link(neighbor.node(), node, neighbor.similarity(), layer);
+                }
+                current = candidates.get(0).node();
+            }
+            if (level > topLevel) {
+                entryPoint = node;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Hides a key from search results.
+     */
+    public void remove(int key) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodeByKey.get(key);
+            if (node != null && !nodes.get(node).removed) {
+                nodes.get(node).removed = true;
+                live--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code k} keys most similar to a query, best first. {@code ef} is the size of the
+     * candidate list kept while searching the bottom layer; larger is slower and more accurate.
+     */
+    public List<Neighbor> search(IntToDoubleFunction similarityToQuery, int k, int ef) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+            IntToDoubleFunction toQuery = node -> similarityToQuery.applyAsDouble(nodes.get(node).key);
+            int current = entryPoint;
+            for (int layer = nodes.get(entryPoint).level(); layer > 0; layer--) {
+                current = searchLayer(current, toQuery, 1, layer).get(0).node();
+            }
+            List<Neighbor> found = new ArrayList<>(k);
+            for (Candidate candidate : searchLayer(current, toQuery, Math.max(ef, k), 0)) {
+                Node node = nodes.get(candidate.node());
+                if (!node.removed) {
+                    found.add(new Neighbor(node.key, candidate.similarity()));
+                    if (found.size() == k) {
+                        break;
+                    }
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best-first search of one layer; returns up to ef nodes, closest first
+    private List<Candidate> searchLayer(int entry, IntToDoubleFunction toQuery, int ef, int layer) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(CLOSEST_FIRST);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(CLOSEST_LAST);
+        Candidate start = new Candidate(entry, toQuery.applyAsDouble(entry));
+        visited.set(entry);
+        frontier.add(start);
+        results.add(start);
+
+        while (!frontier.isEmpty()) {
+            Candidate closest = frontier.poll();
+            if (results.size() >= ef && closest.similarity() < results.peek().similarity()) {
+                break;
+            }
+            Node node = nodes.get(closest.node());
+            int[] links = node.links[layer];
+            for (int i = 0; i < node.linkCounts[layer]; i++) {
+                int next = links[i];
+                if (visited.get(next)) {
+                    continue;
+                }
+                visited.set(next);
+                double nextSimilarity = toQuery.applyAsDouble(next);
+                if (results.size() < ef || nextSimilarity > results.peek().similarity()) {
+                    Candidate candidate = new Candidate(next, nextSimilarity);
+                    frontier.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(CLOSEST_FIRST);
+        return sorted;
+    }
+
+    // Keeps a candidate only if it is closer to the base than to every neighbour kept so far,
+    // so links spread in different directions; then fills up with the closest skipped ones
+    private List<Candidate> selectNeighbors(List<Candidate> closestFirst, int max) {
+        List<Candidate> selected = new ArrayList<>(max);
+        List<Candidate> skipped = new ArrayList<>();
+        for (Candidate candidate : closestFirst) {
+            if (selected.size() == max) {
+                break;
+            }
+            boolean diverse = true;
+            for (Candidate kept : selected) {
+                if (similarity.between(nodes.get(candidate.node()).key, nodes.get(kept.node()).key) > candidate.similarity()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : skipped).add(candidate);
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < max; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected;
+    }
+
+    private void link(int from, int to, double linkSimilarity, int layer) {
+        Node node = nodes.get(from);
+        int count = node.linkCounts[layer];
+        int[] links = node.links[layer];
+        if (count < links.length) {
+            links[count] = to;
+            node.linkCounts[layer]++;
+            return;
+        }
+        // Full: re-select among the current links and the new one
+        List<Candidate> candidates = new ArrayList<>(count + 1);
+        candidates.add(new Candidate(to, linkSimilarity));
+        for (int i = 0; i < count; i++) {
+            candidates.add(new Candidate(links[i], similarity.between(node.key, nodes.get(links[i]).key)));
+        }
+        candidates.sort(CLOSEST_FIRST);
+        List<Candidate> kept = selectNeighbors(candidates, links.length);
+        for (int i = 0; i < kept.size(); i++) {
+            links[i] = kept.get(i).node();
+        }
+        node.linkCounts[layer] = kept.size();
+    }
+
+    private int maxLinks(int layer) {
+        return layer == 0 ? 2 * m : m;
+    }
+
+    private static final class Node {
+        final int key;
+        final int[][] links;
+        final int[] linkCounts;
+        boolean removed;
+
+        Node(int key, int level, int m) {
+            this.key = key;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int layer = 0; layer <= level; layer++) {
+                links[layer] = new int[layer == 0 ? 2 * m : m];
+            }
+        }
+
+        int level() {
+            return links.length - 1;
+        }
+    }
+}
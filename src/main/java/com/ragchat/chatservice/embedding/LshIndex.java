@@ -0,0 +1,91 @@
+package com.ragchat.chatservice.embedding;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Approximate nearest-neighbour index for unit vectors using random-hyperplane LSH: each of
+ * {@code tables} hash tables buckets a vector by which side of {@code bits} random hyperplanes
+ * it falls on, so vectors at a small angle share a bucket in at least one table with high
+ * probability. Callers re-rank the returned candidates by exact cosine.
+ * <p>
+ * Entries also carry a {@code partition}; only entries of the same partition are returned.
+ * Thread-safe.
+ */
+public class LshIndex {
+
+    private final int bits;
+    private final float[][] hyperplanes;
+    private final List<ConcurrentHashMap<Long, Set<String>>> tables;
+
+    public LshIndex(int dimensions, int tables, int bits, long seed) {
+        if (bits < 1 || bits > 31) {
+            throw new IllegalArgumentException("bits must be between 1 and 31: " + bits);
+        }
+        Random random = new Random(seed);
+        this.bits = bits;
+        this.hyperplanes = new float[tables * bits][dimensions];
+        for (float[] plane : hyperplanes) {
+            for (int i = 0; i < dimensions; i++) {
+                plane[i] = (float) random.nextGaussian();
+            }
+        }
+        this.tables = IntStream.range(0, tables)
+                .mapToObj(t -> new ConcurrentHashMap<Long, Set<String>>())
+                .toList();
+    }
+
+    /**
+     * Per-table bucket signatures of a vector; pass the result to add, remove and candidates.
+     */
+    public int[] signatures(float[] vector) {
+        int[] signatures = new int[tables.size()];
+        for (int t = 0; t < signatures.length; t++) {
+            int signature = 0;
+            for (int b = 0; b < bits; b++) {
+                if (HashedNgramEmbedder.cosine(hyperplanes[t * bits + b], vector) >= 0) {
+                    signature |= 1 << b;
+                }
+            }
+            signatures[t] = signature;
+        }
+        return signatures;
+    }
+
+    public void add(String id, long partition, int[] signatures) {
+        for (int t = 0; t < signatures.length; t++) {
+            tables.get(t).computeIfAbsent(bucket(partition, signatures[t]), k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    public void remove(String id, long partition, int[] signatures) {
+        for (int t = 0; t < signatures.length; t++) {
+            tables.get(t).computeIfPresent(bucket(partition, signatures[t]), (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Ids sharing a bucket with the given signatures in at least one table.
+     */
+    public Set<String> candidates(long partition, int[] signatures) {
+        Set<String> candidates = new HashSet<>();
+        for (int t = 0; t < signatures.length; t++) {
+            Set<String> ids = tables.get(t).get(bucket(partition, signatures[t]));
+            if (ids != null) {
+                candidates.addAll(ids);
+            }
+        }
+        return candidates;
+    }
+
+    private static long bucket(long partition, int signature) {
+        return partition * 0x9E3779B97F4A7C15L + signature;
+    }
+}
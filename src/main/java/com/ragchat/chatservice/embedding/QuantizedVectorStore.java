@@ -0,0 +1,355 @@
+package com.ragchat.chatservice.embedding;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Append-only store of unit vectors, each quantized to one signed byte per dimension plus a
+ * float scale: a quarter of the float32 size, with dot products accurate to about 1%.
+ * A record is {@code id (16 bytes) | owner (8) | scale (4) | dimensions bytes}, addressed by
+ * its slot. The owner is a caller-chosen key for grouping records; {@link #remove} overwrites
+ * it with {@link #REMOVED}, and {@link #copyLiveTo} compacts the store by copying only the
+ * remaining records.
+ * <p>
+ * The records live outside the Java heap: memory-mapped from a file, which survives restarts,
+ * or in direct buffers. They are allocated in fixed-size segments, so no mapping exceeds 2 GB.
+ * The header records the embedder id, dimensions and a caller-defined {@link #checkpoint()};
+ * a file written by another embedder or format is discarded on open.
+ * <p>
+ * Writes are serialized; reads take no lock and may run concurrently with writes for any
+ * slot below {@link #size()}.
+ */
+public class QuantizedVectorStore implements Closeable {
+
+    /**
+     * Owner of removed records; never pass it to {@link #append}.
+     */
+    public static final long REMOVED = 0;
+
+    // Header: magic | dimensions | size | embedder id length | checkpoint (8) | embedder id
+    private static final int MAGIC = 0x52435632;
+    private static final int HEADER_BYTES = 64;
+    private static final int CHECKPOINT_OFFSET = 16;
+    private static final int EMBEDDER_ID_OFFSET = 24;
+    private static final int MAX_EMBEDDER_ID_BYTES = HEADER_BYTES - EMBEDDER_ID_OFFSET;
+    private static final int SEGMENT_BYTES = 16 << 20;
+    private static final int ID_BYTES = 16;
+    private static final int OWNER_OFFSET = ID_BYTES;
+    private static final int SCALE_OFFSET = OWNER_OFFSET + 8;
+    private static final int VECTOR_OFFSET = SCALE_OFFSET + 4;
+
+    private final int dimensions;
+    private final int recordBytes;
+    private final int recordsPerSegment;
+    private final FileChannel channel;
+    private final ByteBuffer header;
+    private final ThreadLocal<byte[]> scratch;
+    private volatile ByteBuffer[] segments = new ByteBuffer[0];
+    private volatile int size;
+    private volatile int removed;
+
+    private QuantizedVectorStore(int dimensions, FileChannel channel, ByteBuffer header) {
+        this.dimensions = dimensions;
+        this.recordBytes = VECTOR_OFFSET + dimensions;
+        this.recordsPerSegment = SEGMENT_BYTES / recordBytes;
+        this.channel = channel;
+        this.header = header;
+        this.scratch = ThreadLocal.withInitial(() -> new byte[2 * dimensions]);
+    }
+
+    /**
+     * A store in direct buffers; its contents are lost when the process exits.
+     */
+    public static QuantizedVectorStore offHeap(String embedderId, int dimensions) {
+        QuantizedVectorStore store = new QuantizedVectorStore(dimensions, null, ByteBuffer.allocate(HEADER_BYTES));
+        store.writeHeader(embedderId);
+        return store;
+    }
+
+    /**
+     * Opens or creates a store memory-mapped from {@code file}. Records written by a different
+     * embedder, or beyond the last complete one, are discarded.
+     */
+    public static QuantizedVectorStore open(Path file, String embedderId, int dimensions) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long fileSize = channel.size();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            QuantizedVectorStore store = new QuantizedVectorStore(dimensions, channel, header);
+            if (fileSize < HEADER_BYTES || !store.headerMatches(embedderId)) {
+                store.writeHeader(embedderId);
+                return store;
+            }
+            long complete = (fileSize - HEADER_BYTES) / store.recordBytes;
+            store.size = (int) Math.min(header.getInt(8), complete);
+            if (store.size > 0) {
+                store.segment(store.size - 1);
+            }
+            for (int slot = 0; slot < store.size; slot++) {
+                if (store.owner(slot) == REMOVED) {
+                    store.removed++;
+                }
+            }
+            return store;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Slots written so far, removed ones included.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Slots removed since the store was created or compacted.
+     */
+    public int removed() {
+        return removed;
+    }
+
+    /**
+     * The value last passed to {@link #checkpoint(long)}, 0 for a new store.
+     */
+    public long checkpoint() {
+        return header.getLong(CHECKPOINT_OFFSET);
+    }
+
+    /**
+     * Records a caller-defined position, e.g. how far the source of the vectors has been read.
+     * Records written before it are flushed first, so a persisted checkpoint never runs ahead
+     * of the vectors it covers.
+     */
+    public synchronized void checkpoint(long value) {
+        force();
+        header.putLong(CHECKPOINT_OFFSET, value);
+        if (channel != null) {
+            ((MappedByteBuffer) header).force();
+        }
+    }
+
+    /**
+     * Off-heap or mapped bytes reserved for records.
+     */
+    public long reservedBytes() {
+        return (long) segments.length * recordsPerSegment * recordBytes;
+    }
+
+    /**
+     * Stores a unit vector under an owner key and returns its slot.
+     */
+    public synchronized int append(UUID id, long owner, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+        if (owner == REMOVED) {
+            throw new IllegalArgumentException("Owner " + REMOVED + " marks removed records");
+        }
+        int slot = size;
+        ByteBuffer segment = segment(slot);
+        int offset = offset(slot);
+
+        float max = 0;
+        for (float v : vector) {
+            max = Math.max(max, Math.abs(v));
+        }
+        float scale = max / 127f;
+        byte[] quantized = new byte[dimensions];
+        if (scale > 0) {
+            for (int i = 0; i < dimensions; i++) {
+                quantized[i] = (byte) Math.round(vector[i] / scale);
+            }
+        }
+        segment.putLong(offset, id.getMostSignificantBits());
+        segment.putLong(offset + 8, id.getLeastSignificantBits());
+        segment.putLong(offset + OWNER_OFFSET, owner);
+        segment.putFloat(offset + SCALE_OFFSET, scale);
+        segment.put(offset + VECTOR_OFFSET, quantized);
+        return publish(slot);
+    }
+
+    /**
+     * Marks a record removed. Its vector stays readable until the store is compacted, so
+     * index links through it keep working meanwhile.
+     */
+    public synchronized void remove(int slot) {
+        ByteBuffer segment = segments[slot / recordsPerSegment];
+        int offset = offset(slot);
+        if (segment.getLong(offset + OWNER_OFFSET) != REMOVED) {
+            segment.putLong(offset + OWNER_OFFSET, REMOVED);
+            removed++;
+        }
+    }
+
+    /**
+     * Appends every record not removed to {@code target}, in slot order, along with the
+     * checkpoint. Slots are renumbered: a record keeps its id and owner, not its slot.
+     */
+    public synchronized void copyLiveTo(QuantizedVectorStore target) {
+        if (target.dimensions != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + target.dimensions);
+        }
+        byte[] record = new byte[recordBytes];
+        for (int slot = 0; slot < size; slot++) {
+            if (owner(slot) != REMOVED) {
+                segments[slot / recordsPerSegment].get(offset(slot), record);
+                target.appendRecord(record);
+            }
+        }
+        target.checkpoint(checkpoint());
+    }
+
+    public UUID id(int slot) {
+        ByteBuffer segment = segments[slot / recordsPerSegment];
+        int offset = offset(slot);
+        return new UUID(segment.getLong(offset), segment.getLong(offset + 8));
+    }
+
+    /**
+     * The record's owner key, {@link #REMOVED} once removed.
+     */
+    public long owner(int slot) {
+        return segments[slot / recordsPerSegment].getLong(offset(slot) + OWNER_OFFSET);
+    }
+
+    /**
+     * Dot product of a stored vector with a float vector.
+     */
+    public float dot(int slot, float[] query) {
+        ByteBuffer segment = segments[slot / recordsPerSegment];
+        int offset = offset(slot);
+        byte[] quantized = scratch.get();
+        segment.get(offset + VECTOR_OFFSET, quantized, 0, dimensions);
+        float sum = 0;
+        for (int i = 0; i < dimensions; i++) {
+            sum += quantized[i] * query[i];
+        }
+        return sum * segment.getFloat(offset + SCALE_OFFSET);
+    }
+
+    /**
+     * Dot product of two stored vectors.
+     */
+    public float dot(int a, int b) {
+        ByteBuffer segmentA = segments[a / recordsPerSegment];
+        ByteBuffer segmentB = segments[b / recordsPerSegment];
+        int offsetA = offset(a);
+        int offsetB = offset(b);
+        byte[] bytes = scratch.get();
+        segmentA.get(offsetA + VECTOR_OFFSET, bytes, 0, dimensions);
+        segmentB.get(offsetB + VECTOR_OFFSET, bytes, dimensions, dimensions);
+        int sum = 0;
+        for (int i = 0; i < dimensions; i++) {
+            sum += bytes[i] * bytes[dimensions + i];
+        }
+        return sum * segmentA.getFloat(offsetA + SCALE_OFFSET) * segmentB.getFloat(offsetB + SCALE_OFFSET);
+    }
+
+    /**
+     * Closes the file. Buffers already handed out stay readable until they are collected, so
+     * readers still using a store replaced by a compacted one are not cut off.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        force();
+        ((MappedByteBuffer) header).force();
+        channel.close();
+    }
+
+    private synchronized void appendRecord(byte[] record) {
+        int slot = size;
+        segment(slot).put(offset(slot), record);
+        publish(slot);
+    }
+
+    // Published only once the record is complete
+    private int publish(int slot) {
+        size = slot + 1;
+        header.putInt(8, size);
+        return slot;
+    }
+
+    private void force() {
+        if (channel != null) {
+            for (ByteBuffer segment : segments) {
+                ((MappedByteBuffer) segment).force();
+            }
+        }
+    }
+
+    private int offset(int slot) {
+        return (slot % recordsPerSegment) * recordBytes;
+    }
+
+    // Maps or allocates segments up to the one holding the slot
+    private ByteBuffer segment(int slot) {
+        int index = slot / recordsPerSegment;
+        ByteBuffer[] current = segments;
+        if (index < current.length) {
+            return current[index];
+        }
+        ByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+        int segmentBytes = recordsPerSegment * recordBytes;
+        for (int i = current.length; i <= index; i++) {
+            if (channel == null) {
+                grown[i] = ByteBuffer.allocateDirect(segmentBytes);
+            } else {
+                try {
+                    grown[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                            HEADER_BYTES + (long) i * segmentBytes, segmentBytes);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot grow vector store", e);
+                }
+            }
+        }
+        segments = grown;
+        return grown[index];
+    }
+
+    private boolean headerMatches(String embedderId) {
+        int idLength = header.getInt(12);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != dimensions
+                || idLength < 0 || idLength > MAX_EMBEDDER_ID_BYTES) {
+            return false;
+        }
+        byte[] stored = new byte[idLength];
+        header.get(EMBEDDER_ID_OFFSET, stored);
+        return Arrays.equals(embedderId(embedderId), stored);
+    }
+
+    private void writeHeader(String embedderId) {
+        byte[] id = embedderId(embedderId);
+        header.putInt(0, MAGIC);
+        header.putInt(4, dimensions);
+        header.putInt(8, 0);
+        header.putInt(12, id.length);
+        header.putLong(CHECKPOINT_OFFSET, 0);
+        header.put(EMBEDDER_ID_OFFSET, id);
+        size = 0;
+        removed = 0;
+    }
+
+    private static byte[] embedderId(String embedderId) {
+        byte[] id = embedderId.getBytes(StandardCharsets.UTF_8);
+        return id.length <= MAX_EMBEDDER_ID_BYTES ? id : Arrays.copyOf(id, MAX_EMBEDDER_ID_BYTES);
+    }
+}
@@ -3,14 +3,20 @@ package com.ragchat.chatservice.exception;
 import com.ragchat.chatservice.dto.ApiResponseDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
+import java.sql.SQLTransientConnectionException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -39,6 +45,16 @@ public class GlobalExceptionHandler {
                 .body(new ApiResponseDTO(400, "Validation error", errors));
     }
 
+    // WebFlux counterpart of MethodArgumentNotValidException (reactive runtime)
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ApiResponseDTO> handleReactiveValidationErrors(WebExchangeBindException ex) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getFieldErrors().forEach(error -> errors.put(error.getField(), error.getDefaultMessage()));
+        log.warn("Validation failed: {}", errors);
+        return ResponseEntity.badRequest()
+                .body(new ApiResponseDTO(400, "Validation error", errors));
+    }
+
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<ApiResponseDTO> handleInvalidJson(HttpMessageNotReadableException ex) {
         log.error("Malformed JSON in request: {}", ex.getMessage());
@@ -46,6 +62,32 @@ public class GlobalExceptionHandler {
                 .body(new ApiResponseDTO(400, "Malformed JSON request", null));
     }
 
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ApiResponseDTO> handleOverloaded(ServiceOverloadedException ex) {
+        log.warn("Shedding load: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ApiResponseDTO(503, ex.getMessage(), null));
+    }
+
+    @ExceptionHandler({CannotCreateTransactionException.class, TransientDataAccessException.class})
+    public ResponseEntity<ApiResponseDTO> handleConnectionUnavailable(Exception ex) {
+        if (!(NestedExceptionUtils.getMostSpecificCause(ex) instanceof SQLTransientConnectionException cause)) {
+            return handleGlobalException(ex);
+        }
+        log.warn("No database connection available: {}", cause.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponseDTO(503, "Service is busy, please retry", null));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ApiResponseDTO> handleIllegalArgument(IllegalArgumentException ex) {
+        log.warn("Bad request: {}", ex.getMessage());
+        return ResponseEntity.badRequest()
+                .body(new ApiResponseDTO(400, ex.getMessage(), null));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiResponseDTO> handleGlobalException(Exception ex) {
         log.error("Internal server error: {}", ex.getMessage(), ex);
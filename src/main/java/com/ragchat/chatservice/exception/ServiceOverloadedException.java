@@ -0,0 +1,19 @@
+package com.ragchat.chatservice.exception;
+
+/**
+ * Thrown when the service sheds load instead of queueing more work.
+ * Mapped to 503 with a Retry-After hint.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,34 @@
+package com.ragchat.chatservice.mapper;
+
+import com.ragchat.chatservice.dto.ChatSessionDTO;
+import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.model.ChatMessage;
+import com.ragchat.chatservice.model.ChatSession;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Entity/DTO conversions, generated at compile time by MapStruct
+ * (plain getter/setter calls, no reflection at runtime).
+ * Ids and timestamps are always assigned by the persistence layer, never copied from a request.
+ */
+@Mapper(componentModel = "spring")
+public interface ChatMapper {
+
+    ChatSessionDTO toDto(ChatSession session);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "deletedAt", ignore = true)
+    @Mapping(target = "messages", ignore = true)
+    ChatSession toEntity(ChatSessionDTO dto);
+
+    MessageDTO toDto(ChatMessage message);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "session", ignore = true)
+    ChatMessage toEntity(MessageDTO dto);
+}
@@ -0,0 +1,150 @@
+package com.ragchat.chatservice.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency breakdown of a chat turn ({@code POST /sessions/{id}/chat}).
+ * <ul>
+ *   <li>{@code chat.turn{outcome}}: the whole turn.</li>
+ *   <li>{@code chat.turn.stage{stage}}: each step of the turn, in order.</li>
+ *   <li>{@code chat.turn.component{component=db|mapping|llm|other}}: time per turn spent in
+ *       repository calls, entity/DTO mapping, the Groq call, and everything else. Repository
+ *       and mapper calls are attributed by {@link ChatTurnMetricsAspect}.</li>
+ * </ul>
+ * The turn and its stages are observations, so with tracing enabled each is also a span:
+ * repository calls and the Groq request nest under the stage that made them.
+ * A turn is bound to the calling thread, which servlet requests keep for their whole duration.
+ */
+@Component
+public class ChatTurnMetrics {
+
+    public static final String STAGE_LLM = "llm";
+
+    private static final ThreadLocal<Turn> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+
+    public ChatTurnMetrics(MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * Starts timing a turn on this thread, beginning with {@code firstStage}.
+     * Close the turn in a finally block.
+     */
+    public Turn start(String firstStage) {
+        Turn turn = new Turn(firstStage);
+        CURRENT.set(turn);
+        return turn;
+    }
+
+    static void addDb(long nanos) {
+        Turn turn = CURRENT.get();
+        if (turn != null) {
+            turn.dbNanos += nanos;
+        }
+    }
+
+    static void addMapping(long nanos) {
+        Turn turn = CURRENT.get();
+        if (turn != null) {
+            turn.mappingNanos += nanos;
+        }
+    }
+
+    static boolean active() {
+        return CURRENT.get() != null;
+    }
+
+    public final class Turn implements AutoCloseable {
+
+        private final long startNanos = System.nanoTime();
+        private final Observation observation;
+        private final Observation.Scope scope;
+        private String stage;
+        private Observation stageObservation;
+        private Observation.Scope stageScope;
+        private long stageStartNanos = startNanos;
+        private long dbNanos;
+        private long mappingNanos;
+        private long llmNanos;
+        private boolean succeeded;
+
+        private Turn(String firstStage) {
+            observation = Observation.createNotStarted("chat.turn", observationRegistry)
+                    .contextualName("chat turn")
+                    .start();
+            scope = observation.openScope();
+            beginStage(firstStage);
+        }
+
+        /**
+         * Ends the current stage and begins the next one.
+         */
+        public void stage(String next) {
+            long now = System.nanoTime();
+            endStage(now);
+            stageStartNanos = now;
+            beginStage(next);
+        }
+
+        public void success() {
+            succeeded = true;
+        }
+
+        /**
+         * Records the error that failed the turn; on the span it marks the trace as failed.
+         */
+        public void failure(Throwable error) {
+            stageObservation.error(error);
+            observation.error(error);
+        }
+
+        @Override
+        public void close() {
+            CURRENT.remove();
+            long now = System.nanoTime();
+            endStage(now);
+            scope.close();
+            observation.lowCardinalityKeyValue("outcome", succeeded ? "success" : "error").stop();
+
+            long total = now - startNanos;
+            component("db", dbNanos);
+            component("mapping", mappingNanos);
+            component(STAGE_LLM, llmNanos);
+            component("other", Math.max(0, total - dbNanos - mappingNanos - llmNanos));
+        }
+
+        private void beginStage(String name) {
+            stage = name;
+            stageObservation = Observation.createNotStarted("chat.turn.stage", observationRegistry)
+                    .contextualName("chat " + name)
+                    .lowCardinalityKeyValue("stage", name)
+                    .start();
+            stageScope = stageObservation.openScope();
+        }
+
+        private void endStage(long now) {
+            if (STAGE_LLM.equals(stage)) {
+                llmNanos += now - stageStartNanos;
+            }
+            stageScope.close();
+            stageObservation.stop();
+        }
+
+        private void component(String component, long nanos) {
+            Timer.builder("chat.turn.component").tag("component", component)
+                    .description("Chat turn time per component")
+                    .register(meterRegistry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
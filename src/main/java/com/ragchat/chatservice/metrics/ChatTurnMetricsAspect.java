@@ -0,0 +1,42 @@
+package com.ragchat.chatservice.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Attributes repository and mapper time to the chat turn running on the current thread.
+ * Outside a turn the calls pass straight through; per-repository latency is already
+ * recorded by Spring Data as {@code spring.data.repository.invocations}.
+ */
+@Aspect
+@Component
+public class ChatTurnMetricsAspect {
+
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object timeRepositoryCall(ProceedingJoinPoint call) throws Throwable {
+        if (!ChatTurnMetrics.active()) {
+            return call.proceed();
+        }
+        long start = System.nanoTime();
+        try {
+            return call.proceed();
+        } finally {
+            ChatTurnMetrics.addDb(System.nanoTime() - start);
+        }
+    }
+
+    @Around("execution(* com.ragchat.chatservice.mapper.ChatMapper.*(..))")
+    public Object timeMapping(ProceedingJoinPoint call) throws Throwable {
+        if (!ChatTurnMetrics.active()) {
+            return call.proceed();
+        }
+        long start = System.nanoTime();
+        try {
+            return call.proceed();
+        } finally {
+            ChatTurnMetrics.addMapping(System.nanoTime() - start);
+        }
+    }
+}
@@ -11,7 +11,12 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "chat_message")
+@Table(name = "chat_message", indexes = {
+        // Serves per-session ordering and keyset pagination
+        @Index(name = "idx_chat_message_session_created_id", columnList = "session_id, created_at, id"),
+        // Serves scans of recently written messages (retrieval catch-up)
+        @Index(name = "idx_chat_message_created_id", columnList = "created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -3,6 +3,7 @@ package com.ragchat.chatservice.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SQLRestriction;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -14,7 +15,14 @@ import java.util.UUID;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "chat_session")
+@Table(name = "chat_session", indexes = {
+        // Serves the keyset-paginated session listing and user-scoped message search
+        @Index(name = "idx_chat_session_user_listing", columnList = "user_id, favorite, updated_at, id"),
+        // Serves the purge sweep for sessions deleted but not yet purged
+        @Index(name = "idx_chat_session_deleted_at", columnList = "deleted_at")
+})
+// Soft-deleted sessions are invisible to every entity load and query until SessionPurgeService removes them
+@SQLRestriction("deleted_at IS NULL")
 public class ChatSession {
 
     @Id
@@ -36,7 +44,10 @@ public class ChatSession {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
-    // Added ORM relationship
-    @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, orphanRemoval = true)
+    // Set when the session is deleted; its messages are then purged in the background
+    private LocalDateTime deletedAt;
+
+    // No cascade: messages are removed with bulk deletes, never loaded one by one
+    @OneToMany(mappedBy = "session")
     private List<ChatMessage> messages = new ArrayList<>();
 }
@@ -0,0 +1,97 @@
+package com.ragchat.chatservice.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps an API key to its rate limit bucket, shared by the servlet and reactive filters.
+ * Limits come from .env (RATE_LIMIT_&lt;KEY&gt; / RATE_WINDOW_&lt;KEY&gt;, case-insensitive) and are
+ * resolved once at startup for the keys in {@code api.keys}.
+ */
+public class ApiKeyRateLimits {
+
+    // Bucket shared by all keys that are not in api.keys (the API key check rejects them anyway)
+    public static final String UNKNOWN_KEYS_BUCKET = "__unknown__";
+    // Metric label for dev-mode keys, which are unbounded in number
+    public static final String DEV_MODE_LABEL = "__dev__";
+
+    /**
+     * Backend bucket to count against, its limit, and a label that identifies the key
+     * in metrics without revealing it.
+     */
+    public record Assignment(String bucket, RateLimit limit, String label) {
+    }
+
+    private final Environment env;
+    private final RateLimit defaultLimit;
+    private final Assignment unknownKeys;
+    private final Map<String, Assignment> configured;
+    private final Cache<String, Assignment> devMode;
+
+    public ApiKeyRateLimits(Environment env) {
+        this.env = env;
+        this.defaultLimit = new RateLimit(
+                Integer.parseInt(env.getProperty("RATE_LIMIT_DEFAULT", "5")),
+                Long.parseLong(env.getProperty("RATE_WINDOW_DEFAULT", "60000")));
+        this.unknownKeys = new Assignment(UNKNOWN_KEYS_BUCKET, defaultLimit, UNKNOWN_KEYS_BUCKET);
+
+        // Precompute limits for the known keys so requests never hit the Environment
+        Map<String, Assignment> limits = new HashMap<>();
+        for (String key : Binder.get(env).bind("api.keys", Bindable.listOf(String.class)).orElse(List.of())) {
+            limits.put(key, new Assignment(key, resolveLimit(key), fingerprint(key)));
+        }
+        this.configured = Map.copyOf(limits);
+        this.devMode = Caffeine.newBuilder().maximumSize(10_000).build();
+    }
+
+    public Assignment forKey(String apiKey) {
+        Assignment assignment = configured.get(apiKey);
+        if (assignment != null) {
+            return assignment;
+        }
+        if (configured.isEmpty()) {
+            // Dev mode: every key is accepted, so every key gets its own limit
+            return devMode.get(apiKey, key -> new Assignment(key, resolveLimit(key), DEV_MODE_LABEL));
+        }
+        // Unknown keys share one bucket so random keys cannot grow the limiter state
+        return unknownKeys;
+    }
+
+    /**
+     * First 8 hex digits of the key's SHA-256, e.g. {@code key-3f2a9c1e}: stable across
+     * restarts and replicas, and safe to export.
+     */
+    public static String fingerprint(String apiKey) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+            return "key-" + HexFormat.of().formatHex(hash, 0, 4);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Per-key limit and window from .env, falling back to the defaults
+    private RateLimit resolveLimit(String apiKey) {
+        String suffix = apiKey.toUpperCase(Locale.ROOT);
+        String limit = env.getProperty("RATE_LIMIT_" + suffix);
+        String window = env.getProperty("RATE_WINDOW_" + suffix);
+        if (limit == null && window == null) {
+            return defaultLimit;
+        }
+        return new RateLimit(
+                limit != null ? Integer.parseInt(limit) : defaultLimit.limit(),
+                window != null ? Long.parseLong(window) : defaultLimit.windowMs());
+    }
+}
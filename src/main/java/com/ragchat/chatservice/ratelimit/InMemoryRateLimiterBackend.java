@@ -0,0 +1,108 @@
+package com.ragchat.chatservice.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-replica rate limiter: every key has a lock-free fixed-window counter in this JVM.
+ * With N replicas, a key effectively gets N times its limit; use the postgres backend
+ * when that matters. Counters are swept once a key has been idle for a full window.
+ */
+@Component
+@ConditionalOnProperty(prefix = "rate-limit", name = "backend", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimiterBackend implements RateLimiterBackend {
+
+    private final int maxKeys;
+    private final Map<String, WindowCounter> counters = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong();
+    private volatile WindowCounter overflow;
+
+    public InMemoryRateLimiterBackend(@Value("${RATE_LIMIT_MAX_KEYS:100000}") int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    public long tryAcquire(String key, RateLimit limit, long now) {
+        WindowCounter counter = counters.get(key);
+        if (counter == null) {
+            counter = register(key, limit, now);
+        }
+        return counter.tryAcquire(now);
+    }
+
+    // Slow path, once per key and window: sweep idle counters and keep the map bounded
+    private WindowCounter register(String key, RateLimit limit, long now) {
+        long sweepAt = nextSweep.get();
+        if (now >= sweepAt && nextSweep.compareAndSet(sweepAt, now + 1000)) {
+            counters.values().removeIf(c -> c.isIdle(now));
+        }
+        if (counters.size() >= maxKeys) {
+            // Flood of distinct keys: newcomers share one counter instead of growing the map
+            WindowCounter shared = overflow;
+            if (shared == null || shared.isIdle(now)) {
+                shared = new WindowCounter(limit, now);
+                overflow = shared;
+            }
+            return shared;
+        }
+        return counters.computeIfAbsent(key, k -> new WindowCounter(limit, now));
+    }
+
+    /**
+     * Fixed-window request counter for one key.
+     * The window number (high 32 bits) and the requests used in it (low 32 bits) share one
+     * AtomicLong, so acquiring is a single CAS with no locking or allocation.
+     */
+    static final class WindowCounter {
+
+        private final RateLimit limit;
+        private final long origin;
+        private final AtomicLong state = new AtomicLong();
+
+        WindowCounter(RateLimit limit, long origin) {
+            this.limit = limit;
+            this.origin = origin;
+        }
+
+        long tryAcquire(long now) {
+            long elapsedWindows = (now - origin) / limit.windowMs();
+            while (true) {
+                long current = state.get();
+                int currentWindow = (int) (current >>> 32);
+                int window = (int) elapsedWindows;
+                int used = (int) current;
+
+                // Compare with wrap-around; a racing thread may already have moved to a later window
+                if (window - currentWindow > 0) {
+                    used = 0;
+                } else {
+                    window = currentWindow;
+                }
+
+                if (used >= limit.limit()) {
+                    long windowEnd = origin + (elapsedWindows + 1) * limit.windowMs();
+                    return -Math.max(1, windowEnd - now);
+                }
+
+                long next = ((long) window << 32) | ((used + 1) & 0xFFFFFFFFL);
+                if (state.compareAndSet(current, next)) {
+                    return limit.limit() - used - 1L;
+                }
+            }
+        }
+
+        /**
+         * True when no request was counted in the previous window either, so a fresh counter
+         * would behave the same and this one can be dropped.
+         */
+        boolean isIdle(long now) {
+            int window = (int) ((now - origin) / limit.windowMs());
+            return window - (int) (state.get() >>> 32) >= 2;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.ragchat.chatservice.ratelimit;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rate limiter shared by all replicas through one PostgreSQL row per key.
+ * Windows are aligned to the epoch so every replica agrees on them without coordination.
+ * Instead of a round trip per request, a replica leases a block of tokens from the row
+ * (up to {@code rate-limit.postgres.lease-size}, at most half the limit) and serves
+ * requests from the lease locally. Each lease is one statement that also returns the
+ * tokens left in the row. The table comes from migration V4. Tokens leased but unused when the window ends are lost,
+ * so a key can be under-served by at most one lease per replica, never over-served.
+ * If the database is unavailable, requests are limited per replica in memory until it recovers.
+ */
+@Component
+@ConditionalOnProperty(prefix = "rate-limit", name = "backend", havingValue = "postgres")
+public class PostgresRateLimiterBackend implements RateLimiterBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresRateLimiterBackend.class);
+
+    private static final int TOKEN_BITS = 20;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long FALLBACK_BACKOFF_MS = 5000;
+
+    // Requested as a generated key: PgJDBC appends RETURNING remaining to the statement
+    private static final String[] REMAINING = {"remaining"};
+
+    private static final String TAKE = """
+            UPDATE rate_limit_bucket SET remaining = remaining - ?
+            WHERE bucket_key = ? AND window_start = ? AND remaining >= ?""";
+    private static final String RESET_WINDOW = """
+            UPDATE rate_limit_bucket SET window_start = ?, remaining = ?
+            WHERE bucket_key = ? AND window_start < ?""";
+    private static final String INSERT_WINDOW = """
+            INSERT INTO rate_limit_bucket (bucket_key, window_start, remaining) VALUES (?, ?, ?)
+            ON CONFLICT DO NOTHING""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int leaseSize;
+    private final RateLimiterBackend fallback;
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong();
+    private volatile long fallbackUntil;
+
+    public PostgresRateLimiterBackend(JdbcTemplate jdbcTemplate,
+                                      @Value("${rate-limit.postgres.lease-size:20}") int leaseSize,
+                                      @Value("${RATE_LIMIT_MAX_KEYS:100000}") int maxKeys) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leaseSize = (int) Math.min(Math.max(1, leaseSize), TOKEN_MASK);
+        this.fallback = new InMemoryRateLimiterBackend(maxKeys);
+    }
+
+    @PostConstruct
+    public void init() {
+        log.info("Distributed rate limiting enabled (PostgreSQL, lease size {})", leaseSize);
+    }
+
+    @Override
+    public long tryAcquire(String key, RateLimit limit, long now) {
+        if (now < fallbackUntil) {
+            return fallback.tryAcquire(key, limit, now);
+        }
+        Lease lease = leases.get(key);
+        if (lease == null) {
+            lease = register(key, limit, now);
+        }
+        long window = now / limit.windowMs();
+        long left = lease.take(window);
+        if (left >= 0) {
+            return left + lease.sharedRemaining;
+        }
+        return renew(key, lease, limit, window, now);
+    }
+
+    private Lease register(String key, RateLimit limit, long now) {
+        long sweepAt = nextSweep.get();
+        if (now >= sweepAt && nextSweep.compareAndSet(sweepAt, now + 1000)) {
+            leases.values().removeIf(l -> l.isIdle(now));
+        }
+        return leases.computeIfAbsent(key, k -> new Lease(limit));
+    }
+
+    // Slow path: the local lease is used up, so take a new one from the shared row
+    private long renew(String key, Lease lease, RateLimit limit, long window, long now) {
+        lease.lock.lock();
+        try {
+            long left = lease.take(window);
+            if (left >= 0) {
+                return left + lease.sharedRemaining; // another thread renewed it meanwhile
+            }
+            if (lease.exhaustedWindow == window) {
+                return rejected(limit, window, now);
+            }
+
+            // At most half the limit, so a second replica can still lease while this one holds tokens
+            int want = (int) Math.min(leaseSize, Math.max(1, (limit.limit() + 1) / 2));
+            Grant grant;
+            try {
+                grant = lease(key, limit, window * limit.windowMs(), want);
+            } catch (DataAccessException e) {
+                log.warn("Rate limit store unavailable, limiting per replica for {} ms: {}",
+                        FALLBACK_BACKOFF_MS, e.getMessage());
+                fallbackUntil = now + FALLBACK_BACKOFF_MS;
+                return fallback.tryAcquire(key, limit, now);
+            }
+
+            lease.sharedRemaining = grant.remaining();
+            if (grant.tokens() == 0) {
+                lease.exhaustedWindow = window;
+                return rejected(limit, window, now);
+            }
+            // This request consumes the first leased token
+            lease.reset(window, grant.tokens() - 1);
+            return grant.tokens() - 1L + grant.remaining();
+        } finally {
+            lease.lock.unlock();
+        }
+    }
+
+    /**
+     * Takes up to {@code want} tokens from the row for the window starting at {@code windowStart}.
+     * Each statement is atomic on its own, so concurrent replicas never over-grant.
+     */
+    private Grant lease(String key, RateLimit limit, long windowStart, int want) {
+        Integer remaining = updateReturningRemaining(TAKE, want, key, windowStart, want);
+        if (remaining != null) {
+            return new Grant(want, remaining);
+        }
+        // First lease of a new window: reset the row left from an earlier one, or create it
+        int fresh = Math.min(want, limit.limit());
+        remaining = updateReturningRemaining(RESET_WINDOW, windowStart, limit.limit() - fresh, key, windowStart);
+        if (remaining == null) {
+            remaining = updateReturningRemaining(INSERT_WINDOW, key, windowStart, limit.limit() - fresh);
+        }
+        if (remaining != null) {
+            return new Grant(fresh, remaining);
+        }
+        // Fewer than want left in the running window: hand them out one at a time
+        if (want > 1) {
+            remaining = updateReturningRemaining(TAKE, 1, key, windowStart, 1);
+            if (remaining != null) {
+                return new Grant(1, remaining);
+            }
+        }
+        return new Grant(0, 0);
+    }
+
+    // The row's remaining tokens after the statement, or null if it changed no row
+    private Integer updateReturningRemaining(String sql, Object... args) {
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, REMAINING);
+            new ArgumentPreparedStatementSetter(args).setValues(statement);
+            return statement;
+        }, keys);
+        Number remaining = keys.getKey();
+        return remaining != null ? remaining.intValue() : null;
+    }
+
+    private record Grant(int tokens, int remaining) {
+    }
+
+    private static long rejected(RateLimit limit, long window, long now) {
+        return -Math.max(1, (window + 1) * limit.windowMs() - now);
+    }
+
+    /**
+     * Tokens this replica holds for one key. The window number (high bits) and the tokens
+     * left (low {@value TOKEN_BITS} bits) share one AtomicLong, so serving from the lease is a
+     * single CAS; only renewing it takes the lock.
+     */
+    private static final class Lease {
+
+        private final RateLimit limit;
+        private final AtomicLong state = new AtomicLong();
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile long exhaustedWindow = -1;
+        private volatile int sharedRemaining;
+
+        Lease(RateLimit limit) {
+            this.limit = limit;
+        }
+
+        // Tokens left after taking one, or -1 if the lease is empty or from an earlier window
+        long take(long window) {
+            while (true) {
+                long current = state.get();
+                long tokens = current & TOKEN_MASK;
+                if (current >>> TOKEN_BITS != window || tokens == 0) {
+                    return -1;
+                }
+                if (state.compareAndSet(current, current - 1)) {
+                    return tokens - 1;
+                }
+            }
+        }
+
+        void reset(long window, long tokens) {
+            state.set(window << TOKEN_BITS | tokens);
+        }
+
+        boolean isIdle(long now) {
+            return now / limit.windowMs() - (state.get() >>> TOKEN_BITS) >= 2;
+        }
+    }
+}
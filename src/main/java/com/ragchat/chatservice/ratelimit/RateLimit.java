@@ -0,0 +1,15 @@
+package com.ragchat.chatservice.ratelimit;
+
+/**
+ * Requests allowed per window for one API key.
+ *
+ * @param limit    requests per window
+ * @param windowMs window length in milliseconds
+ * @param header   {@code limit} pre-rendered for the X-RateLimit-Limit header
+ */
+public record RateLimit(int limit, long windowMs, String header) {
+
+    public RateLimit(int limit, long windowMs) {
+        this(limit, windowMs, Integer.toString(limit));
+    }
+}
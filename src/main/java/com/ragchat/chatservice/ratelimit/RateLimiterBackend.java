@@ -0,0 +1,21 @@
+package com.ragchat.chatservice.ratelimit;
+
+/**
+ * Storage for the per-key request counters used by RateLimitFilter.
+ * Selected with {@code rate-limit.backend}: {@code memory} (default, per replica) or
+ * {@code postgres} (shared by all replicas).
+ */
+public interface RateLimiterBackend {
+
+    /**
+     * Takes one request from the current window of {@code key}.
+     * Called on every request, so implementations must not block on I/O in the common case.
+     *
+     * @param key   bucket key (the API key)
+     * @param limit limit and window for the key
+     * @param now   current time in epoch milliseconds
+     * @return the requests left in the window, or minus the milliseconds until the window
+     * resets when the limit is exhausted (never 0 in that case)
+     */
+    long tryAcquire(String key, RateLimit limit, long now);
+}
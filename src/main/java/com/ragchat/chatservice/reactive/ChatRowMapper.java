@@ -0,0 +1,16 @@
+package com.ragchat.chatservice.reactive;
+
+import com.ragchat.chatservice.dto.ChatSessionDTO;
+import com.ragchat.chatservice.dto.MessageDTO;
+import org.mapstruct.Mapper;
+
+/**
+ * Row/DTO conversions for the reactive runtime, the R2DBC counterpart of ChatMapper.
+ */
+@Mapper(componentModel = "spring")
+public interface ChatRowMapper {
+
+    ChatSessionDTO toDto(SessionRow row);
+
+    MessageDTO toDto(MessageRow row);
+}
@@ -0,0 +1,41 @@
+package com.ragchat.chatservice.reactive;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * R2DBC mapping of the {@code chat_message} table (see {@link com.ragchat.chatservice.model.ChatMessage}).
+ */
+@Data
+@NoArgsConstructor
+@Table("chat_message")
+public class MessageRow implements Persistable<UUID> {
+
+    @Id
+    private UUID id;
+
+    private UUID sessionId;
+
+    private String sender;
+
+    private String message;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    @Transient
+    private boolean newRow;
+
+    @Override
+    public boolean isNew() {
+        return newRow;
+    }
+}
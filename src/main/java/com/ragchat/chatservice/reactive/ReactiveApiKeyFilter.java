@@ -0,0 +1,110 @@
+package com.ragchat.chatservice.reactive;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ragchat.chatservice.config.RateLimitFilter;
+import com.ragchat.chatservice.dto.ApiResponseDTO;
+import com.ragchat.chatservice.ratelimit.ApiKeyRateLimits;
+import com.ragchat.chatservice.ratelimit.RateLimit;
+import com.ragchat.chatservice.ratelimit.RateLimiterBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * RateLimitFilter and ApiKeyFilter for the reactive runtime: the same per-key limits,
+ * headers and 429/401 bodies. The limiter backend must not block, so only the in-memory
+ * backend is supported here.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveApiKeyFilter implements WebFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveApiKeyFilter.class);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Set<String> keys;
+    private final ApiKeyRateLimits limits;
+    private final RateLimiterBackend backend;
+    private final MeterRegistry meterRegistry;
+
+    public ReactiveApiKeyFilter(Environment env, RateLimiterBackend backend, MeterRegistry meterRegistry) {
+        this.keys = Set.copyOf(Binder.get(env).bind("api.keys", Bindable.listOf(String.class)).orElse(List.of()));
+        this.limits = new ApiKeyRateLimits(env);
+        this.backend = backend;
+        this.meterRegistry = meterRegistry;
+        if (keys.isEmpty()) {
+            log.warn("No API keys configured — API key validation will be skipped (development mode).");
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().value();
+
+        // Skip actuator and health endpoints
+        if (path.startsWith("/actuator") || path.startsWith("/health")) {
+            return chain.filter(exchange);
+        }
+
+        String apiKey = exchange.getRequest().getHeaders().getFirst("X-API-KEY");
+        ServerHttpResponse response = exchange.getResponse();
+
+        if (apiKey != null && !apiKey.isEmpty()) {
+            ApiKeyRateLimits.Assignment assignment = limits.forKey(apiKey);
+            RateLimit limit = assignment.limit();
+            long result = backend.tryAcquire(assignment.bucket(), limit, System.currentTimeMillis());
+
+            response.getHeaders().set(RateLimitFilter.LIMIT_HEADER, limit.header());
+            if (result < 0) {
+                long retryAfterSeconds = (-result + 999) / 1000;
+            meterRegistry.counter(RateLimitFilter.REJECTED_METRIC, "key", assignment.label()).increment();
+                response.getHeaders().set(RateLimitFilter.REMAINING_HEADER, "0");
+                response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+                return sendError(response, HttpStatus.TOO_MANY_REQUESTS,
+                        "Rate limit exceeded for API key '" + apiKey +
+                                "'. Try again in " + retryAfterSeconds + " seconds.");
+            }
+            response.getHeaders().set(RateLimitFilter.REMAINING_HEADER, Long.toString(result));
+        }
+
+        if (!keys.isEmpty() && (apiKey == null || !keys.contains(apiKey))) {
+            log.warn("Unauthorized access to {} from IP {}", path, exchange.getRequest().getRemoteAddress());
+            return sendError(response, HttpStatus.UNAUTHORIZED, "Unauthorized — Invalid or missing API key");
+        }
+
+        return chain.filter(exchange);
+    }
+
+    private Mono<Void> sendError(ServerHttpResponse response, HttpStatus status, String message) {
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        try {
+            DataBuffer body = response.bufferFactory()
+                    .wrap(mapper.writeValueAsBytes(new ApiResponseDTO(status.value(), message, null)));
+            return response.writeWith(Mono.just(body));
+        } catch (JsonProcessingException e) {
+            return response.setComplete();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ragchat.chatservice.reactive;
+
+import com.ragchat.chatservice.config.GroqClientConfig;
+import com.ragchat.chatservice.exception.GlobalExceptionHandler;
+import com.ragchat.chatservice.ratelimit.InMemoryRateLimiterBackend;
+import com.ragchat.chatservice.service.AIResponseService;
+import com.ragchat.chatservice.service.GroqConcurrencyLimiter;
+import com.ragchat.chatservice.service.RequestCoalescer;
+import com.ragchat.chatservice.service.SemanticResponseCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Opt-in reactive runtime: WebFlux on Netty, R2DBC instead of JPA, and non-blocking Groq
+ * calls, so a handful of event-loop threads carry all in-flight chats. Activates the
+ * {@code reactive} profile (application-reactive.yml). Only classes in this package, plus
+ * the imports below, are part of this application; the servlet runtime ignores them.
+ * <pre>
+ * java -Dloader.main=com.ragchat.chatservice.reactive.ReactiveChatApplication \
+ *      -cp app.jar org.springframework.boot.loader.launch.PropertiesLauncher
+ * </pre>
+ */
+@SpringBootApplication(exclude = {
+        DataSourceAutoConfiguration.class,
+        DataSourceTransactionManagerAutoConfiguration.class,
+        JdbcTemplateAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class,
+        JpaRepositoriesAutoConfiguration.class
+})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Import({GroqClientConfig.class, AIResponseService.class, SemanticResponseCache.class, RequestCoalescer.class,
+        GroqConcurrencyLimiter.class, GlobalExceptionHandler.class, InMemoryRateLimiterBackend.class})
+public class ReactiveChatApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveChatApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .profiles("reactive")
+                .run(args);
+    }
+
+    // Tomcat is on the classpath for the servlet runtime and would otherwise be preferred
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory(ObjectProvider<NettyServerCustomizer> serverCustomizers) {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        factory.getServerCustomizers().addAll(serverCustomizers.orderedStream().toList());
+        return factory;
+    }
+}
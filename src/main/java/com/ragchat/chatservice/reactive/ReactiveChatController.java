@@ -0,0 +1,117 @@
+package com.ragchat.chatservice.reactive;
+
+import com.ragchat.chatservice.dto.ApiResponseDTO;
+import com.ragchat.chatservice.dto.ChatSessionDTO;
+import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.exception.ServiceOverloadedException;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * The session, message and chat endpoints of ChatController on WebFlux, with the same
+ * paths and response bodies. Cursor pagination, batched ingestion and the cache admin
+ * endpoint exist only in the servlet runtime.
+ */
+@RestController
+@RequestMapping("/api/chat")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChatController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveChatController.class);
+
+    private final ReactiveChatService chatService;
+
+    public ReactiveChatController(ReactiveChatService chatService) {
+        this.chatService = chatService;
+    }
+
+    // -------------------- SESSION MANAGEMENT --------------------
+
+    @PostMapping("/session")
+    public Mono<ResponseEntity<ApiResponseDTO>> createSession(@Valid @RequestBody ChatSessionDTO dto) {
+        log.info("Creating session for userId={}", dto.getUserId());
+        return chatService.createSession(dto).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/session/{sessionId}")
+    public Mono<ResponseEntity<ApiResponseDTO>> getSession(@PathVariable UUID sessionId) {
+        return chatService.getSessionById(sessionId)
+                .map(session -> ResponseEntity.ok(new ApiResponseDTO(200, "Session fetched successfully", session)));
+    }
+
+    @PutMapping("/session/{sessionId}")
+    public Mono<ResponseEntity<ApiResponseDTO>> updateSession(@PathVariable UUID sessionId,
+                                                              @RequestBody ChatSessionDTO dto) {
+        return chatService.updateSession(sessionId, dto).map(ResponseEntity::ok);
+    }
+
+    @DeleteMapping("/session/{sessionId}")
+    public Mono<ResponseEntity<ApiResponseDTO>> deleteSession(@PathVariable UUID sessionId) {
+        return chatService.deleteSession(sessionId).map(ResponseEntity::ok);
+    }
+
+    @PatchMapping("/session/{sessionId}/favorite")
+    public Mono<ResponseEntity<ApiResponseDTO>> toggleFavorite(@PathVariable UUID sessionId) {
+        return chatService.toggleFavorite(sessionId).map(ResponseEntity::ok);
+    }
+
+    // -------------------- MESSAGE MANAGEMENT --------------------
+
+    @PostMapping("/session/{sessionId}/message")
+    public Mono<ResponseEntity<ApiResponseDTO>> addMessage(@PathVariable UUID sessionId,
+                                                           @Valid @RequestBody MessageDTO dto) {
+        return chatService.addMessage(sessionId, dto).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/session/{sessionId}/messages")
+    public Mono<ResponseEntity<ApiResponseDTO>> getMessages(@PathVariable UUID sessionId,
+                                                            @RequestParam(defaultValue = "0") int page,
+                                                            @RequestParam(defaultValue = "10") int size) {
+        log.info("Fetching messages for sessionId={}, page={}, size={}", sessionId, page, size);
+        return chatService.getMessages(sessionId, page, size).map(ResponseEntity::ok);
+    }
+
+    // -------------------- GroqAI CHAT --------------------
+
+    @PostMapping("/sessions/{sessionId}/chat")
+    public Mono<ResponseEntity<ApiResponseDTO>> chatWithGroqAI(@PathVariable UUID sessionId,
+                                                               @Valid @RequestBody MessageDTO messageDTO) {
+        return chatService.chat(sessionId, messageDTO)
+                .map(aiMessage -> ResponseEntity.ok(
+                        new ApiResponseDTO(200, "Chat response generated successfully", aiMessage)));
+    }
+
+    @PostMapping(value = "/sessions/{sessionId}/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamChatWithGroqAI(@PathVariable UUID sessionId,
+                                                              @Valid @RequestBody MessageDTO messageDTO) {
+        StringBuilder aiReply = new StringBuilder();
+
+        return chatService.streamChat(sessionId, messageDTO)
+                .flatMapMany(deltas -> deltas
+                        .doOnNext(aiReply::append)
+                        .map(delta -> ServerSentEvent.<Object>builder(delta).event("delta").build())
+                        .concatWith(Mono.defer(() -> chatService.saveAssistantReply(sessionId, aiReply.toString()))
+                                .map(saved -> ServerSentEvent.<Object>builder(saved).event("done").build()))
+                        .onErrorResume(e -> {
+                            // Shed before the first event: left to the exception handler, which answers 503
+                            if (e instanceof ServiceOverloadedException) {
+                                return Mono.error(e);
+                            }
+                            log.error("Error streaming from Groq AI: {}", e.getMessage());
+                            return Mono.just(ServerSentEvent.<Object>builder(
+                                            new ApiResponseDTO(502, "Failed to get response from Groq AI", e.getMessage()))
+                                    .event("error")
+                                    .build());
+                        }));
+    }
+}
@@ -0,0 +1,15 @@
+package com.ragchat.chatservice.reactive;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+public interface ReactiveChatMessageRepository extends ReactiveCrudRepository<MessageRow, UUID> {
+
+    Flux<MessageRow> findBySessionId(UUID sessionId, Pageable pageable);
+
+    // Latest messages first; used to build the conversation context for a chat turn
+    Flux<MessageRow> findBySessionIdOrderByCreatedAtDesc(UUID sessionId, Pageable pageable);
+}
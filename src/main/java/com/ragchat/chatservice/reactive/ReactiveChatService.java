@@ -0,0 +1,204 @@
+package com.ragchat.chatservice.reactive;
+
+import com.ragchat.chatservice.dto.ApiResponseDTO;
+import com.ragchat.chatservice.dto.ChatSessionDTO;
+import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.exception.ResourceNotFoundException;
+import com.ragchat.chatservice.service.AIResponseService;
+import com.ragchat.chatservice.service.SemanticResponseCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of ChatService on R2DBC. Every method returns without waiting for
+ * the database or Groq, so a few event-loop threads serve all open requests.
+ * The conversation context is read from the database on each turn (last
+ * {@code chat.context.max-messages} messages); caches are not used in this runtime.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChatService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveChatService.class);
+
+    private final ReactiveChatSessionRepository sessionRepository;
+    private final ReactiveChatMessageRepository messageRepository;
+    private final ChatRowMapper mapper;
+    private final AIResponseService aiResponseService;
+    private final SemanticResponseCache responseCache;
+    private final int contextMessages;
+
+    public ReactiveChatService(ReactiveChatSessionRepository sessionRepository,
+                               ReactiveChatMessageRepository messageRepository,
+                               ChatRowMapper mapper,
+                               AIResponseService aiResponseService,
+                               SemanticResponseCache responseCache,
+                               @Value("${chat.context.max-messages:20}") int contextMessages) {
+        this.sessionRepository = sessionRepository;
+        this.messageRepository = messageRepository;
+        this.mapper = mapper;
+        this.aiResponseService = aiResponseService;
+        this.responseCache = responseCache;
+        this.contextMessages = contextMessages;
+    }
+
+    @Transactional
+    public Mono<ApiResponseDTO> createSession(ChatSessionDTO dto) {
+        log.info("Creating chat session for user {}", dto.getUserId());
+        LocalDateTime now = LocalDateTime.now();
+        SessionRow row = new SessionRow();
+        row.setId(UUID.randomUUID());
+        row.setUserId(dto.getUserId());
+        row.setName(dto.getName());
+        row.setFavorite(dto.isFavorite());
+        row.setCreatedAt(now);
+        row.setUpdatedAt(now);
+        row.setNewRow(true);
+        return sessionRepository.save(row)
+                .map(saved -> new ApiResponseDTO(200, "Session creation completed", mapper.toDto(saved)));
+    }
+
+    public Mono<ChatSessionDTO> getSessionById(UUID sessionId) {
+        return findSession(sessionId).map(mapper::toDto);
+    }
+
+    @Transactional
+    public Mono<ApiResponseDTO> updateSession(UUID sessionId, ChatSessionDTO dto) {
+        return findSession(sessionId).flatMap(session -> {
+            if (dto.getName() == null || dto.getName().trim().isEmpty()) {
+                log.warn("Session name missing for update on sessionId={}", sessionId);
+                return Mono.just(new ApiResponseDTO(400, "Session name is required for update", null));
+            }
+            if (dto.getUserId() != null && !dto.getUserId().equals(session.getUserId())) {
+                log.warn("Attempt to change owner of sessionId={} to userId={}", sessionId, dto.getUserId());
+                return Mono.just(new ApiResponseDTO(400, "User ID cannot be changed for an existing session", null));
+            }
+            session.setName(dto.getName());
+            session.setFavorite(dto.isFavorite());
+            session.setUpdatedAt(LocalDateTime.now());
+            return sessionRepository.save(session)
+                    .map(saved -> new ApiResponseDTO(200, "Session updated successfully", mapper.toDto(saved)));
+        });
+    }
+
+    /**
+     * Only marks the session deleted. Its messages are removed in batches by the purge sweep of
+     * the servlet runtime (SessionPurgeService), which picks up every session still marked.
+     */
+    public Mono<ApiResponseDTO> deleteSession(UUID sessionId) {
+        log.warn("Deleting session {}", sessionId);
+        return sessionRepository.markDeleted(sessionId, LocalDateTime.now())
+                .flatMap(updated -> updated == 0
+                        ? Mono.error(new ResourceNotFoundException("Session not found with id " + sessionId))
+                        : Mono.just(new ApiResponseDTO(200, "Session deleted successfully", null)));
+    }
+
+    @Transactional
+    public Mono<ApiResponseDTO> toggleFavorite(UUID sessionId) {
+        return findSession(sessionId).flatMap(session -> {
+            session.setFavorite(!session.isFavorite());
+            session.setUpdatedAt(LocalDateTime.now());
+            return sessionRepository.save(session);
+        }).map(saved -> {
+            log.info("Favorite toggled for session {} -> {}", sessionId, saved.isFavorite());
+            return new ApiResponseDTO(200, "Favorite toggled successfully", mapper.toDto(saved));
+        });
+    }
+
+    @Transactional
+    public Mono<ApiResponseDTO> addMessage(UUID sessionId, MessageDTO dto) {
+        return sessionRepository.existsById(sessionId)
+                .flatMap(exists -> exists
+                        ? saveMessage(sessionId, dto.getSender(), dto.getMessage())
+                        : Mono.error(new ResourceNotFoundException("Session not found with id " + sessionId)))
+                .map(saved -> new ApiResponseDTO(200, "Message added successfully", saved));
+    }
+
+    public Mono<ApiResponseDTO> getMessages(UUID sessionId, int page, int size) {
+        int pageIndex = page > 0 ? page - 1 : page;
+        return sessionRepository.existsById(sessionId)
+                .flatMap(exists -> exists
+                        ? messageRepository.findBySessionId(sessionId,
+                                        PageRequest.of(pageIndex, size, Sort.by("createdAt").ascending()))
+                                .map(mapper::toDto)
+                                .collectList()
+                        : Mono.error(new ResourceNotFoundException("Session not found with id " + sessionId)))
+                .map(messages -> new ApiResponseDTO(200, "Messages retrieved successfully", messages));
+    }
+
+    /**
+     * Stores the user message, asks Groq with the recent history and stores the reply.
+     * The two writes are separate transactions so no connection is held during the Groq call.
+     */
+    public Mono<MessageDTO> chat(UUID sessionId, MessageDTO userMessage) {
+        return findSession(sessionId)
+                .then(saveMessage(sessionId, "user", userMessage.getMessage()))
+                .then(buildContext(sessionId))
+                .flatMap(context -> responseCache.lookup(context)
+                        .map(Mono::just)
+                        .orElseGet(() -> aiResponseService.generateAIResponse(context)))
+                .flatMap(reply -> saveMessage(sessionId, "assistant", reply));
+    }
+
+    /**
+     * Streams the Groq reply as content deltas; the assembled reply is stored when the stream completes.
+     */
+    public Mono<Flux<String>> streamChat(UUID sessionId, MessageDTO userMessage) {
+        return findSession(sessionId)
+                .then(saveMessage(sessionId, "user", userMessage.getMessage()))
+                .then(buildContext(sessionId))
+                .map(aiResponseService::streamAIResponse);
+    }
+
+    public Mono<ApiResponseDTO> saveAssistantReply(UUID sessionId, String reply) {
+        if (reply.isBlank()) {
+            return Mono.just(new ApiResponseDTO(204, "Groq AI returned an empty response", null));
+        }
+        return saveMessage(sessionId, "assistant", reply)
+                .map(saved -> new ApiResponseDTO(200, "Message added successfully", saved));
+    }
+
+    private Mono<SessionRow> findSession(UUID sessionId) {
+        return sessionRepository.findById(sessionId)
+                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Chat session not found: " + sessionId)));
+    }
+
+    private Mono<MessageDTO> saveMessage(UUID sessionId, String sender, String text) {
+        LocalDateTime now = LocalDateTime.now();
+        MessageRow row = new MessageRow();
+        row.setId(UUID.randomUUID());
+        row.setSessionId(sessionId);
+        row.setSender(sender);
+        row.setMessage(text);
+        row.setCreatedAt(now);
+        row.setUpdatedAt(now);
+        row.setNewRow(true);
+        return messageRepository.save(row).map(mapper::toDto);
+    }
+
+    private Mono<List<Map<String, Object>>> buildContext(UUID sessionId) {
+        return messageRepository.findBySessionIdOrderByCreatedAtDesc(sessionId, PageRequest.of(0, contextMessages))
+                .map(row -> Map.<String, Object>of("role", row.getSender(), "content", row.getMessage()))
+                .collectList()
+                .map(newestFirst -> {
+                    List<Map<String, Object>> prompt = new ArrayList<>(newestFirst);
+                    Collections.reverse(prompt);
+                    return prompt;
+                });
+    }
+}
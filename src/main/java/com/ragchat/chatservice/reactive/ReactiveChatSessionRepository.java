@@ -0,0 +1,26 @@
+package com.ragchat.chatservice.reactive;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface ReactiveChatSessionRepository extends ReactiveCrudRepository<SessionRow, UUID> {
+
+    // Sessions soft-deleted by the servlet runtime are hidden until they are purged
+    @Override
+    @Query("SELECT * FROM chat_session WHERE id = :id AND deleted_at IS NULL")
+    Mono<SessionRow> findById(UUID id);
+
+    @Override
+    @Query("SELECT COUNT(*) > 0 FROM chat_session WHERE id = :id AND deleted_at IS NULL")
+    Mono<Boolean> existsById(UUID id);
+
+    // Soft delete, as in the servlet runtime; returns 0 if the session does not exist
+    @Modifying
+    @Query("UPDATE chat_session SET deleted_at = :at WHERE id = :id AND deleted_at IS NULL")
+    Mono<Integer> markDeleted(UUID id, LocalDateTime at);
+}
@@ -0,0 +1,42 @@
+package com.ragchat.chatservice.reactive;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * R2DBC mapping of the {@code chat_session} table (see {@link com.ragchat.chatservice.model.ChatSession}).
+ * Ids are generated by the application, so new rows are flagged explicitly to get an INSERT.
+ */
+@Data
+@NoArgsConstructor
+@Table("chat_session")
+public class SessionRow implements Persistable<UUID> {
+
+    @Id
+    private UUID id;
+
+    private String userId;
+
+    private String name;
+
+    private boolean favorite;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    @Transient
+    private boolean newRow;
+
+    @Override
+    public boolean isNew() {
+        return newRow;
+    }
+}
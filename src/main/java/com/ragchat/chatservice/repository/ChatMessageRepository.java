@@ -1,20 +1,109 @@
 package com.ragchat.chatservice.repository;
 
+import com.ragchat.chatservice.dto.MessageExportDTO;
 import com.ragchat.chatservice.model.ChatMessage;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, UUID> {
 
     List<ChatMessage> findBySessionIdOrderByCreatedAtAsc(UUID sessionId);
 
+    // Latest messages first; used to hydrate the conversation context window
+    List<ChatMessage> findBySessionIdOrderByCreatedAtDesc(UUID sessionId, Pageable pageable);
+
     Page<ChatMessage> findBySessionId(UUID sessionId, Pageable pageable);
 
-    void deleteBySessionId(UUID sessionId);
+    // One bulk statement; a derived delete would load and remove the messages one by one
+    @Modifying
+    @Query("DELETE FROM ChatMessage m WHERE m.session.id = :sessionId")
+    int deleteBySessionId(@Param("sessionId") UUID sessionId);
+
+    // Removes at most :limit messages of a session, so each purge transaction stays short
+    @Modifying
+    @Query(value = """
+            DELETE FROM chat_message
+            WHERE id IN (SELECT id FROM chat_message WHERE session_id = :sessionId LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteBatchBySessionId(@Param("sessionId") UUID sessionId, @Param("limit") int limit);
+
+    // Keyset pagination over idx_chat_message_session_created_id: each page is an index range scan
+    @Query(value = """
+            SELECT * FROM chat_message
+            WHERE session_id = :sessionId
+            ORDER BY created_at ASC, id ASC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ChatMessage> findFirstPage(@Param("sessionId") UUID sessionId, @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT * FROM chat_message
+            WHERE session_id = :sessionId
+              AND (created_at, id) > (:createdAt, :id)
+            ORDER BY created_at ASC, id ASC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ChatMessage> findPageAfter(@Param("sessionId") UUID sessionId,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") UUID id,
+                                    @Param("limit") int limit);
+
+    // Newest first; callers reverse the result to restore chronological order
+    @Query(value = """
+            SELECT * FROM chat_message
+            WHERE session_id = :sessionId
+              AND (created_at, id) < (:createdAt, :id)
+            ORDER BY created_at DESC, id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ChatMessage> findPageBefore(@Param("sessionId") UUID sessionId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") UUID id,
+                                     @Param("limit") int limit);
+
+    // Offset page of the stored messages, for sessions whose oldest messages are archived
+    @Query(value = """
+            SELECT * FROM chat_message
+            WHERE session_id = :sessionId
+            ORDER BY created_at ASC, id ASC
+            LIMIT :limit OFFSET :offset
+            """, nativeQuery = true)
+    List<ChatMessage> findPageAtOffset(@Param("sessionId") UUID sessionId,
+                                       @Param("offset") long offset,
+                                       @Param("limit") int limit);
+
+    // Bulk export: DTO projections (nothing enters the persistence context) read from a
+    // server-side cursor in chunks of the fetch size. Must be consumed inside a transaction.
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            SELECT new com.ragchat.chatservice.dto.MessageExportDTO(m.id, m.session.id, m.sender, m.message, m.createdAt)
+            FROM ChatMessage m
+            WHERE m.session.id = :sessionId
+            ORDER BY m.createdAt ASC, m.id ASC
+            """)
+    Stream<MessageExportDTO> streamBySessionId(@Param("sessionId") UUID sessionId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            SELECT new com.ragchat.chatservice.dto.MessageExportDTO(m.id, m.session.id, m.sender, m.message, m.createdAt)
+            FROM ChatMessage m
+            WHERE m.session.userId = :userId AND m.session.deletedAt IS NULL
+            ORDER BY m.session.id ASC, m.createdAt ASC, m.id ASC
+            """)
+    Stream<MessageExportDTO> streamByUserId(@Param("userId") String userId);
 }
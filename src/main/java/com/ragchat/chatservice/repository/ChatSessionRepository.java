@@ -1,15 +1,77 @@
 package com.ragchat.chatservice.repository;
 
+import com.ragchat.chatservice.dto.SessionSummaryDTO;
 import com.ragchat.chatservice.model.ChatSession;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface ChatSessionRepository extends JpaRepository<ChatSession, UUID> {
 
-    // Get all sessions for a specific user
-    List<ChatSession> findByUserId(String userId);
+    // DTO projection: no entity or messages collection is hydrated. The page is an index range scan
+    // of idx_chat_session_user_listing; the count and the latest message come from
+    // idx_chat_message_session_created_id for the sessions of the page only.
+    String SUMMARIES = """
+            SELECT new com.ragchat.chatservice.dto.SessionSummaryDTO(
+                s.id, s.name, s.favorite, s.createdAt, s.updatedAt,
+                (SELECT count(*) FROM ChatMessage c WHERE c.session = s),
+                last.sender, substring(last.message, 1, 200), last.createdAt)
+            FROM ChatSession s
+            LEFT JOIN ChatMessage last ON last.id = (
+                SELECT m.id FROM ChatMessage m WHERE m.session = s
+                ORDER BY m.createdAt DESC, m.id DESC
+                LIMIT 1)
+            WHERE s.userId = :userId
+            """;
+    String LISTING_ORDER = """
+            ORDER BY s.favorite DESC, s.updatedAt DESC, s.id DESC
+            """;
+
+    @Query(SUMMARIES + LISTING_ORDER)
+    List<SessionSummaryDTO> findSummaries(@Param("userId") String userId, Limit limit);
+
+    @Query(SUMMARIES + """
+              AND (s.favorite, s.updatedAt, s.id) < (:favorite, :updatedAt, :id)
+            """ + LISTING_ORDER)
+    List<SessionSummaryDTO> findSummariesAfter(@Param("userId") String userId,
+                                               @Param("favorite") boolean favorite,
+                                               @Param("updatedAt") LocalDateTime updatedAt,
+                                               @Param("id") UUID id,
+                                               Limit limit);
+
+    // Moves the session up the owner's listing when a message is added. Returns 0 if the session
+    // is missing or soft-deleted, so writers find out the session is gone; the row lock it takes
+    // also makes a concurrent delete wait for the writing transaction.
+    @Modifying
+    @Query("""
+            UPDATE ChatSession s SET s.updatedAt = CASE WHEN s.updatedAt < :at THEN :at ELSE s.updatedAt END
+            WHERE s.id = :id AND s.deletedAt IS NULL""")
+    int touch(@Param("id") UUID id, @Param("at") LocalDateTime at);
+
+    // Soft delete: hides the session from reads at once; returns 0 if it does not exist
+    @Modifying
+    @Query("UPDATE ChatSession s SET s.deletedAt = :at WHERE s.id = :id AND s.deletedAt IS NULL")
+    int markDeleted(@Param("id") UUID id, @Param("at") LocalDateTime at);
+
+    // Native, since the entity restriction hides soft-deleted sessions from JPQL
+    @Query(value = """
+            SELECT id FROM chat_session
+            WHERE deleted_at IS NOT NULL
+            ORDER BY deleted_at
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UUID> findDeletedIds(@Param("limit") int limit);
+
+    // Last step of a purge, once the session has no messages left
+    @Modifying
+    @Query(value = "DELETE FROM chat_session WHERE id = :id AND deleted_at IS NOT NULL", nativeQuery = true)
+    int purgeDeleted(@Param("id") UUID id);
 }
@@ -1,14 +1,29 @@
 package com.ragchat.chatservice.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ragchat.chatservice.config.GroqClientProperties;
+import com.ragchat.chatservice.dto.groq.GroqChatChunk;
+import com.ragchat.chatservice.dto.groq.GroqChatRequest;
+import com.ragchat.chatservice.dto.groq.GroqChatResponse;
+import com.ragchat.chatservice.dto.groq.GroqMessage;
+import com.ragchat.chatservice.exception.ServiceOverloadedException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
@@ -16,65 +31,174 @@ import java.util.Map;
 @Slf4j
 public class AIResponseService {
 
+    private static final String MODEL = "llama-3.1-8b-instant";
+    private static final double TEMPERATURE = 0.7;
+    private static final String STREAM_DONE = "[DONE]";
+    private static final String NO_RESPONSE = "No response received from Groq.";
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+
     private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final SemanticResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final GroqConcurrencyLimiter concurrencyLimiter;
+    private final Duration totalTimeout;
+    private final Counter promptTokens;
+    private final Counter completionTokens;
 
     @Value("${groq.api.key}")
     private String groqApiKey;
 
-    public AIResponseService(WebClient.Builder webClientBuilder) {
-        //Use Groq's OpenAI-compatible endpoint
-        this.webClient = webClientBuilder
-                .baseUrl("https://api.groq.com/openai/v1")
-                .build();
+    public AIResponseService(@Qualifier("groqWebClient") WebClient webClient, ObjectMapper objectMapper,
+                             SemanticResponseCache responseCache,
+                             RequestCoalescer requestCoalescer,
+                             GroqConcurrencyLimiter concurrencyLimiter,
+                             GroqClientProperties clientProperties,
+                             MeterRegistry meterRegistry) {
+        // Pooled client for Groq's OpenAI-compatible endpoint (GroqClientConfig)
+        this.webClient = webClient;
+        this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
+        this.requestCoalescer = requestCoalescer;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.totalTimeout = clientProperties.getTotalTimeout();
+        this.promptTokens = tokens(meterRegistry, "prompt");
+        this.completionTokens = tokens(meterRegistry, "completion");
     }
 
     /**
      * Sends a prompt to Groq (Llama 3.1) and returns the generated response text.
-     * Includes retry and circuit breaker mechanisms.
+     * Includes retry and circuit breaker mechanisms; Groq errors propagate to them, so
+     * repeated failures end in the fallback. Completions are stored in the
+     * {@link SemanticResponseCache}; callers look them up before calling this.
      */
     @Retry(name = "groqRetry", fallbackMethod = "fallbackResponse")
     @CircuitBreaker(name = "groqCB", fallbackMethod = "fallbackResponse")
     public String getAIResponse(Map<String, Object> requestBody) {
-        try {
-            Map<String, Object> request = Map.of(
-                    "model", "llama-3.1-8b-instant",
-                    "messages", requestBody.get("messages"),
-                    "temperature", 0.7
-            );
+        List<Map<String, Object>> messages = messages(requestBody);
+        GroqChatRequest request = new GroqChatRequest(MODEL, GroqMessage.fromContext(messages), TEMPERATURE, null);
+
+        log.info("Sending prompt to Groq API...");
+
+        // Identical concurrent prompts share one call, which waits for a slot under the concurrency limit
+        GroqChatResponse response = requestCoalescer.execute(request, () -> concurrencyLimiter.run(() ->
+                complete(request)
+                        .doOnError(e -> log.error("Error calling Groq API: {}", e.getMessage()))
+                        .block()));
+
+        return extractContent(messages, response);
+    }
+
+    /**
+     * Non-blocking variant of {@link #getAIResponse} for the reactive runtime: no thread waits
+     * while Groq generates. Errors propagate to retry and circuit breaker before the fallback.
+     */
+    @Retry(name = "groqRetry", fallbackMethod = "fallbackReactiveResponse")
+    @CircuitBreaker(name = "groqCB", fallbackMethod = "fallbackReactiveResponse")
+    public Mono<String> generateAIResponse(List<Map<String, Object>> messages) {
+        GroqChatRequest request = new GroqChatRequest(MODEL, GroqMessage.fromContext(messages), TEMPERATURE, null);
 
-            log.info("Sending prompt to Groq API...");
+        return requestCoalescer.executeAsync(request, () -> concurrencyLimiter.runAsync(() -> complete(request)))
+                .map(response -> extractContent(messages, response))
+                .defaultIfEmpty(NO_RESPONSE);
+    }
 
-            Map<String, Object> response = webClient.post()
+    /**
+     * The completion, decoded straight from the response buffers into records.
+     */
+    private Mono<GroqChatResponse> complete(GroqChatRequest request) {
+        return webClient.post()
+                .uri("/chat/completions")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + groqApiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(GroqChatResponse.class)
+                .timeout(totalTimeout)
+                .doOnNext(this::recordUsage);
+    }
+
+    /**
+     * Counts billed tokens from the response's {@code usage} block; coalesced callers share one count.
+     */
+    private void recordUsage(GroqChatResponse response) {
+        GroqChatResponse.Usage usage = response.usage();
+        if (usage == null) {
+            return;
+        }
+        promptTokens.increment(usage.promptTokens());
+        completionTokens.increment(usage.completionTokens());
+    }
+
+    private static Counter tokens(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("groq.tokens").baseUnit("tokens").tag("type", type).tag("model", MODEL)
+                .description("Tokens billed by Groq, from the completion usage block")
+                .register(meterRegistry);
+    }
+
+    private String extractContent(List<Map<String, Object>> messages, GroqChatResponse response) {
+        if (response == null || response.choices() == null) {
+            log.warn("No valid response received from Groq.");
+            return NO_RESPONSE;
+        }
+        if (response.choices().isEmpty()) {
+            return "No choices returned by Groq.";
+        }
+
+        GroqMessage message = response.choices().get(0).message();
+        if (message == null || message.content() == null) {
+            return "Empty AI message.";
+        }
+        String content = message.content().trim();
+        responseCache.store(messages, content);
+        return content;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> messages(Map<String, Object> requestBody) {
+        return (List<Map<String, Object>>) requestBody.get("messages");
+    }
+
+    /**
+     * Streams the Groq completion for the given messages as content deltas.
+     * Uses the OpenAI-compatible {@code stream: true} mode, so nothing blocks while
+     * waiting for tokens; the returned Flux completes when Groq sends {@code [DONE]}.
+     * Each stream holds a slot of the concurrency limit until it ends, and fails with
+     * {@link ServiceOverloadedException} when shed. The circuit breaker applies; retry does
+     * not, since a repeated stream would resend deltas the client already has.
+     */
+    @CircuitBreaker(name = "groqCB")
+    public Flux<String> streamAIResponse(List<Map<String, Object>> messages) {
+        GroqChatRequest request = new GroqChatRequest(MODEL, GroqMessage.fromContext(messages), TEMPERATURE, true);
+
+        return concurrencyLimiter.runFlux(() -> {
+            log.info("Streaming prompt to Groq API...");
+            return webClient.post()
                     .uri("/chat/completions")
                     .header(HttpHeaders.AUTHORIZATION, "Bearer " + groqApiKey)
-                    .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.TEXT_EVENT_STREAM)
                     .bodyValue(request)
                     .retrieve()
-                    .bodyToMono(Map.class)
-                    .onErrorResume(e -> {
-                        log.error("Error calling Groq API: {}", e.getMessage());
-                        return Mono.empty();
-                    })
-                    .block();
-
-            if (response == null || !response.containsKey("choices")) {
-                log.warn("No valid response received from Groq.");
-                return "No response received from Groq.";
-            }
-
-            List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
-            if (choices.isEmpty()) {
-                return "No choices returned by Groq.";
-            }
-
-            Map<String, Object> message = (Map<String, Object>) choices.get(0).get("message");
-            return message != null
-                    ? message.get("content").toString().trim()
-                    : "Empty AI message.";
+                    .bodyToFlux(SSE_TYPE)
+                    .mapNotNull(ServerSentEvent::data)
+                    .takeWhile(data -> !STREAM_DONE.equals(data.trim()))
+                    .mapNotNull(this::extractDelta);
+        });
+    }
 
+    /**
+     * Pulls {@code choices[0].delta.content} out of a streamed chunk; returns null for
+     * chunks without content (role headers, finish markers).
+     */
+    private String extractDelta(String chunk) {
+        try {
+            return objectMapper.readValue(chunk, GroqChatChunk.class).content();
         } catch (Exception e) {
-            log.error("Exception while fetching AI response: {}", e.getMessage());
-            return "Error communicating with Groq API.";
+            log.warn("Skipping unparseable Groq stream chunk: {}", e.getMessage());
+            return null;
         }
     }
 
@@ -85,4 +209,20 @@ public class AIResponseService {
         log.error("Groq service fallback triggered: {}", t.getMessage());
         return "Groq AI service is temporarily unavailable. Please try again later.";
     }
+
+    private Mono<String> fallbackReactiveResponse(List<Map<String, Object>> messages, Throwable t) {
+        return Mono.just(fallbackResponse(Map.of("messages", messages), t));
+    }
+
+    /**
+     * Requests shed by the concurrency limiter are not answered with the fallback text:
+     * they surface as 503 so clients back off and retry.
+     */
+    private String fallbackResponse(Map<String, Object> requestBody, ServiceOverloadedException e) {
+        throw e;
+    }
+
+    private Mono<String> fallbackReactiveResponse(List<Map<String, Object>> messages, ServiceOverloadedException e) {
+        return Mono.error(e);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+package com.ragchat.chatservice.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evicts exactly the cache entries a change affects, instead of clearing whole caches.
+ * Session entries are evicted by session id. Message pages are cached under
+ * a per-session generation ({@code chatMessages} key {@code sessionId-generation-page-size}),
+ * so a new message makes every cached page of that session unreachable with one counter
+ * bump; the orphaned pages age out through the cache's size and TTL bounds.
+ * Invalidation runs after the surrounding transaction commits, so a concurrent reader
+ * cannot re-cache the pre-commit state under the new key.
+ */
+@Component("chatCacheInvalidator")
+public class ChatCacheInvalidator {
+
+    public static final String SESSIONS = "chatSessions";
+    public static final String SESSION_BY_ID = "chatSessionById";
+    public static final String MESSAGES = "chatMessages";
+
+    private static final Logger log = LoggerFactory.getLogger(ChatCacheInvalidator.class);
+
+    private final CacheManager cacheManager;
+    private final Map<String, Counter> invalidations = new HashMap<>();
+
+    // A stamp evicted from this map is replaced by a never-used one, so stale pages stay unreachable
+    private final AtomicLong generationSequence = new AtomicLong();
+    private final ConcurrentMap<UUID, Long> generations = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .<UUID, Long>build()
+            .asMap();
+
+    public ChatCacheInvalidator(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        for (String cache : List.of(SESSIONS, SESSION_BY_ID, MESSAGES)) {
+            invalidations.put(cache, Counter.builder("chat.cache.invalidations").tag("cache", cache)
+                    .description("Targeted cache invalidations (evicted keys, or message generations bumped)")
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Current message-page generation of a session; part of the {@code chatMessages} key.
+     */
+    public long messagesGeneration(UUID sessionId) {
+        Long generation = generations.get(sessionId);
+        if (generation != null) {
+            return generation;
+        }
+        return generations.computeIfAbsent(sessionId, id -> generationSequence.incrementAndGet());
+    }
+
+    /**
+     * A message was added to the session: drop its cached pages.
+     */
+    public void messagesChanged(UUID sessionId) {
+        afterCommit(() -> bumpMessages(sessionId));
+    }
+
+    /**
+     * A session was renamed or (un)favorited.
+     */
+    public void sessionChanged(UUID sessionId) {
+        afterCommit(() -> evictSession(sessionId));
+    }
+
+    /**
+     * A session and its messages were deleted.
+     */
+    public void sessionDeleted(UUID sessionId) {
+        afterCommit(() -> {
+            evictSession(sessionId);
+            bumpMessages(sessionId);
+        });
+    }
+
+    private void evictSession(UUID sessionId) {
+        evict(SESSIONS, sessionId);
+        evict(SESSION_BY_ID, sessionId);
+    }
+
+    private void bumpMessages(UUID sessionId) {
+        generations.put(sessionId, generationSequence.incrementAndGet());
+        invalidations.get(MESSAGES).increment();
+        log.debug("Invalidated cached message pages of session {}", sessionId);
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && key != null) {
+            cache.evict(key);
+            invalidations.get(cacheName).increment();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -1,20 +1,27 @@
 package com.ragchat.chatservice.service;
 
 import com.ragchat.chatservice.dto.ApiResponseDTO;
+import com.ragchat.chatservice.dto.ChatExchangeDTO;
 import com.ragchat.chatservice.dto.ChatSessionDTO;
+import com.ragchat.chatservice.dto.MessageCursor;
 import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.dto.MessagePageDTO;
+import com.ragchat.chatservice.dto.SessionCursor;
+import com.ragchat.chatservice.dto.SessionPageDTO;
+import com.ragchat.chatservice.dto.SessionSummaryDTO;
 import com.ragchat.chatservice.exception.ResourceNotFoundException;
+import com.ragchat.chatservice.mapper.ChatMapper;
 import com.ragchat.chatservice.model.ChatMessage;
 import com.ragchat.chatservice.model.ChatSession;
 import com.ragchat.chatservice.repository.ChatMessageRepository;
 import com.ragchat.chatservice.repository.ChatSessionRepository;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
@@ -22,7 +29,12 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -31,6 +43,10 @@ public class ChatService {
 
     private static final Logger log = LoggerFactory.getLogger(ChatService.class);
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    // Foreign key violated because the referenced row is missing: PostgreSQL, H2
+    private static final Set<String> MISSING_PARENT_STATES = Set.of("23503", "23506");
+
     @Autowired
     private ChatSessionRepository chatSessionRepository;
 
@@ -38,11 +54,26 @@ public class ChatService {
     private ChatMessageRepository chatMessageRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private ChatMapper chatMapper;
 
     @Autowired
     private CacheManager cacheManager;
 
+    @Autowired
+    private ConversationContextService conversationContextService;
+
+    @Autowired
+    private ChatCacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private MessageRetrievalService messageRetrievalService;
+
+    @Autowired
+    private SessionPurgeService sessionPurgeService;
+
+    @Autowired
+    private MessageArchiveService messageArchiveService;
+
     /**
      * Create a new chat session
      */
@@ -50,9 +81,9 @@ public class ChatService {
     @CachePut(value = "chatSessions", key = "#result.data.id")
     public ApiResponseDTO createSession(ChatSessionDTO dto) {
         log.info("Creating chat session for user {}", dto.getUserId());
-        ChatSession session = modelMapper.map(dto, ChatSession.class);
+        ChatSession session = chatMapper.toEntity(dto);
         ChatSession saved = chatSessionRepository.saveAndFlush(session);
-        ChatSessionDTO response = modelMapper.map(saved, ChatSessionDTO.class);
+        ChatSessionDTO response = chatMapper.toDto(saved);
         log.debug("Session created with ID {}", saved.getId());
         return new ApiResponseDTO(200, "Session creation completed", response);
     }
@@ -65,27 +96,41 @@ public class ChatService {
         log.debug("Fetching session with ID {}", sessionId);
         ChatSession session = chatSessionRepository.findById(sessionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Chat session not found: " + sessionId));
-        return modelMapper.map(session, ChatSessionDTO.class);
+        return chatMapper.toDto(session);
     }
 
     /**
-     * Get all sessions for a specific user
+     * List a user's sessions with keyset (cursor) pagination: favorites first, then most recently
+     * active first. Each row carries the message count and a preview of the latest message.
+     * Not cached, since every new message changes the order, count and preview.
      */
-    @Cacheable(value = "chatSessionsByUser", key = "#userId")
-    public ApiResponseDTO getAllSessions(String userId) {
-        log.debug("Fetching sessions from DB for user {}", userId);
-        List<ChatSessionDTO> sessions = chatSessionRepository.findByUserId(userId)
-                .stream()
-                .map(s -> modelMapper.map(s, ChatSessionDTO.class))
-                .collect(Collectors.toList());
-        return new ApiResponseDTO(200, "Sessions fetched successfully", sessions);
+    @Transactional(readOnly = true)
+    public ApiResponseDTO getSessions(String userId, String after, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        List<SessionSummaryDTO> rows;
+        if (after != null) {
+            SessionCursor cursor = SessionCursor.decode(after);
+            rows = chatSessionRepository.findSummariesAfter(userId, cursor.favorite(), cursor.updatedAt(), cursor.id(),
+                    Limit.of(limit + 1));
+        } else {
+            rows = chatSessionRepository.findSummaries(userId, Limit.of(limit + 1));
+        }
+
+        // One extra row was fetched to detect whether another page exists
+        boolean hasMore = rows.size() > limit;
+        List<SessionSummaryDTO> page = hasMore ? rows.subList(0, limit) : rows;
+        SessionSummaryDTO last = hasMore ? page.get(page.size() - 1) : null;
+        String nextCursor = last == null ? null
+                : new SessionCursor(last.isFavorite(), last.getUpdatedAt(), last.getId()).encode();
+
+        log.debug("Fetched {} sessions for user {} (after={})", page.size(), userId, after);
+        return new ApiResponseDTO(200, "Sessions fetched successfully", new SessionPageDTO(page, nextCursor, hasMore));
     }
 
     /**
      * Update session name or favorite status
      */
     @Transactional
-    @CacheEvict(value = {"chatSessions", "chatSessionsByUser", "chatSessionById"}, allEntries = true)
     public ApiResponseDTO updateSession(UUID sessionId, ChatSessionDTO dto) {
         ChatSession session = chatSessionRepository.findById(sessionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Session not found with id " + sessionId));
@@ -95,11 +140,16 @@ public class ChatService {
             log.warn("Session name missing for update on sessionId={}", sessionId);
             return new ApiResponseDTO(400, "Session name is required for update", null);
         }
+        if (dto.getUserId() != null && !dto.getUserId().equals(session.getUserId())) {
+            log.warn("Attempt to change owner of sessionId={} to userId={}", sessionId, dto.getUserId());
+            return new ApiResponseDTO(400, "User ID cannot be changed for an existing session", null);
+        }
 
         session.setName(dto.getName());
         session.setFavorite(dto.isFavorite());
         ChatSession saved = chatSessionRepository.save(session);
-        ChatSessionDTO updated = modelMapper.map(saved, ChatSessionDTO.class);
+        ChatSessionDTO updated = chatMapper.toDto(saved);
+        cacheInvalidator.sessionChanged(sessionId);
 
         log.info("Updated session for sessionId={}, name='{}', favorite={}",
                 sessionId, dto.getName(), dto.isFavorite());
@@ -108,20 +158,22 @@ public class ChatService {
     }
 
     /**
-     * Delete a session and its messages
-     * (Now uses ORM cascade delete)
+     * Delete a session and its messages.
+     * The session is soft-deleted (hidden from all reads) in one UPDATE; its messages are then
+     * removed in bounded batches by {@link SessionPurgeService} after commit.
      */
     @Transactional
-    @CacheEvict(value = {"chatSessions", "chatSessionsByUser", "chatSessionById", "chatMessages"}, allEntries = true)
     public ApiResponseDTO deleteSession(UUID sessionId) {
         log.warn("Deleting session {}", sessionId);
-        ChatSession session = chatSessionRepository.findById(sessionId)
-                .orElseThrow(() -> new ResourceNotFoundException("Session not found with id " + sessionId));
+        if (chatSessionRepository.markDeleted(sessionId, LocalDateTime.now()) == 0) {
+            throw new ResourceNotFoundException("Session not found with id " + sessionId);
+        }
 
-        // ORM cascade handles it automatically
-        chatSessionRepository.delete(session);
+        conversationContextService.invalidate(sessionId);
+        cacheInvalidator.sessionDeleted(sessionId);
+        sessionPurgeService.purgeAfterCommit(sessionId);
 
-        log.info("Session {} and related messages deleted", sessionId);
+        log.info("Session {} deleted; its messages are purged in the background", sessionId);
         return new ApiResponseDTO(200, "Session deleted successfully", null);
     }
 
@@ -129,7 +181,6 @@ public class ChatService {
      * Add message to a chat session (ORM-linked)
      */
     @Transactional
-    @CacheEvict(value = "chatMessages", key = "#sessionId")
     public ApiResponseDTO addMessage(UUID sessionId, MessageDTO dto) {
         if (!chatSessionRepository.existsById(sessionId)) {
             throw new ResourceNotFoundException("Session not found with id " + sessionId);
@@ -138,19 +189,81 @@ public class ChatService {
         ChatSession session = chatSessionRepository.findById(sessionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Session not found with id " + sessionId));
 
-        ChatMessage message = modelMapper.map(dto, ChatMessage.class);
+        ChatMessage message = chatMapper.toEntity(dto);
         message.setSession(session); //ORM link added here
 
         ChatMessage saved = chatMessageRepository.saveAndFlush(message);
-        MessageDTO response = modelMapper.map(saved, MessageDTO.class);
+        touchLiveSession(sessionId, saved.getCreatedAt());
+        MessageDTO response = chatMapper.toDto(saved);
+        conversationContextService.append(sessionId, response);
+        messageRetrievalService.messageStored(sessionId, response);
+        cacheInvalidator.messagesChanged(sessionId);
 
         return new ApiResponseDTO(200, "Message added successfully", response);
     }
 
+    /**
+     * Store a user message and the assistant's reply to it together, in one transaction.
+     * The session is only referenced by proxy (the FK validates it on insert) and both rows
+     * go to the database in one batched insert. Moving the session up its owner's listing
+     * is a second statement, so the exchange takes two round trips; it also fails the
+     * exchange with a 404 if the session was soft-deleted while the reply was generated.
+     */
+    @Transactional
+    public ChatExchangeDTO recordExchange(UUID sessionId, MessageDTO userMessage, MessageDTO assistantMessage) {
+        ChatSession session = chatSessionRepository.getReferenceById(sessionId);
+
+        ChatMessage question = chatMapper.toEntity(userMessage);
+        question.setSession(session);
+        ChatMessage reply = chatMapper.toEntity(assistantMessage);
+        reply.setSession(session);
+
+        List<ChatMessage> saved;
+        try {
+            saved = chatMessageRepository.saveAll(List.of(question, reply));
+            chatMessageRepository.flush();
+            touchLiveSession(sessionId, saved.get(1).getCreatedAt());
+        } catch (DataIntegrityViolationException e) {
+            if (isMissingSession(e)) {
+                throw new ResourceNotFoundException("Session not found with id " + sessionId);
+            }
+            throw e;
+        }
+
+        MessageDTO storedQuestion = chatMapper.toDto(saved.get(0));
+        MessageDTO storedReply = chatMapper.toDto(saved.get(1));
+        conversationContextService.append(sessionId, storedQuestion);
+        conversationContextService.append(sessionId, storedReply);
+        messageRetrievalService.messageStored(sessionId, storedQuestion);
+        messageRetrievalService.messageStored(sessionId, storedReply);
+        cacheInvalidator.messagesChanged(sessionId);
+
+        return new ChatExchangeDTO(storedQuestion, storedReply);
+    }
+
+    // A soft-deleted session still satisfies the foreign key; only the touch notices it
+    private void touchLiveSession(UUID sessionId, LocalDateTime at) {
+        if (chatSessionRepository.touch(sessionId, at) == 0) {
+            throw new ResourceNotFoundException("Session not found with id " + sessionId);
+        }
+    }
+
+    // The session_id foreign key is the only one on chat_message, so a missing parent is a missing session
+    static boolean isMissingSession(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                return MISSING_PARENT_STATES.contains(sqlException.getSQLState());
+            }
+        }
+        return false;
+    }
+
     /**
      * Get messages for a session (with pagination)
+     * Pages are keyed by the session's message generation, see ChatCacheInvalidator.
      */
-    @Cacheable(value = "chatMessages", key = "#sessionId + '-' + #page + '-' + #size")
+    @Cacheable(value = "chatMessages",
+            key = "#sessionId + '-' + @chatCacheInvalidator.messagesGeneration(#sessionId) + '-' + #page + '-' + #size")
     public ApiResponseDTO getMessages(UUID sessionId, int page, int size) {
         if (!chatSessionRepository.existsById(sessionId)) {
             throw new ResourceNotFoundException("Session not found with id " + sessionId);
@@ -158,29 +271,98 @@ public class ChatService {
 
         if (page > 0) page = page - 1;
 
-        List<MessageDTO> messages = chatMessageRepository
-                .findBySessionId(sessionId, PageRequest.of(page, size, Sort.by("createdAt").ascending()))
-                .stream()
-                .map(msg -> modelMapper.map(msg, MessageDTO.class))
-                .collect(Collectors.toList());
+        long archived = messageArchiveService.count(sessionId);
+        List<MessageDTO> messages = archived > 0
+                ? readThroughArchive(sessionId, (long) page * size, size, archived)
+                : chatMessageRepository
+                        .findBySessionId(sessionId, PageRequest.of(page, size, Sort.by("createdAt").ascending()))
+                        .stream()
+                        .map(chatMapper::toDto)
+                        .collect(Collectors.toList());
 
-        log.debug("Fetched {} messages for session {}", messages.size(), sessionId);
+        log.debug("Fetched {} messages for session {} ({} archived)", messages.size(), sessionId, archived);
         return new ApiResponseDTO(200, "Messages retrieved successfully", messages);
     }
 
+    // Archived messages come before the stored ones, so a page may take from both
+    private List<MessageDTO> readThroughArchive(UUID sessionId, long offset, int size, long archived) {
+        List<MessageDTO> messages = new ArrayList<>(size);
+        if (offset < archived) {
+            messages.addAll(messageArchiveService.read(sessionId, offset, size));
+        }
+        int remaining = size - messages.size();
+        if (remaining > 0) {
+            chatMessageRepository.findPageAtOffset(sessionId, Math.max(0, offset - archived), remaining)
+                    .forEach(message -> messages.add(chatMapper.toDto(message)));
+        }
+        return messages;
+    }
+
+    /**
+     * Get messages for a session using keyset (cursor) pagination.
+     * At most one of {@code after}/{@code before} may be given; without either the oldest page is returned.
+     * Every page is an index range scan, so cost does not grow with scroll depth.
+     */
+    @Transactional(readOnly = true)
+    public ApiResponseDTO getMessagesByCursor(UUID sessionId, String after, String before, int size) {
+        if (after != null && before != null) {
+            throw new IllegalArgumentException("Only one of 'after' or 'before' may be specified");
+        }
+        if (!chatSessionRepository.existsById(sessionId)) {
+            throw new ResourceNotFoundException("Session not found with id " + sessionId);
+        }
+
+        int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        List<ChatMessage> rows;
+        if (before != null) {
+            MessageCursor cursor = MessageCursor.decode(before);
+            rows = chatMessageRepository.findPageBefore(sessionId, cursor.createdAt(), cursor.id(), limit + 1);
+        } else if (after != null) {
+            MessageCursor cursor = MessageCursor.decode(after);
+            rows = chatMessageRepository.findPageAfter(sessionId, cursor.createdAt(), cursor.id(), limit + 1);
+        } else {
+            rows = chatMessageRepository.findFirstPage(sessionId, limit + 1);
+        }
+
+        // One extra row was fetched to detect whether another page exists
+        boolean hasMore = rows.size() > limit;
+        List<ChatMessage> page = hasMore ? rows.subList(0, limit) : rows;
+        if (before != null) {
+            page = new ArrayList<>(page);
+            Collections.reverse(page);
+        }
+
+        List<MessageDTO> messages = page.stream()
+                .map(chatMapper::toDto)
+                .collect(Collectors.toList());
+
+        String first = page.isEmpty() ? null : cursorOf(page.get(0));
+        String last = page.isEmpty() ? null : cursorOf(page.get(page.size() - 1));
+        MessagePageDTO result = before != null
+                ? new MessagePageDTO(messages, last, hasMore ? first : null, hasMore)
+                : new MessagePageDTO(messages, hasMore ? last : null, after != null ? first : null, hasMore);
+
+        log.debug("Fetched {} messages for session {} (after={}, before={})", messages.size(), sessionId, after, before);
+        return new ApiResponseDTO(200, "Messages retrieved successfully", result);
+    }
+
+    private static String cursorOf(ChatMessage message) {
+        return new MessageCursor(message.getCreatedAt(), message.getId()).encode();
+    }
+
     /**
      * Toggle favorite status
      */
     @Transactional
-    @CacheEvict(value = {"chatSessions", "chatSessionsByUser", "chatSessionById"}, allEntries = true)
     public ApiResponseDTO toggleFavorite(UUID sessionId) {
         ChatSession session = chatSessionRepository.findById(sessionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Session not found with id " + sessionId));
 
         session.setFavorite(!session.isFavorite());
         chatSessionRepository.save(session);
+        cacheInvalidator.sessionChanged(sessionId);
 
-        ChatSessionDTO dto = modelMapper.map(session, ChatSessionDTO.class);
+        ChatSessionDTO dto = chatMapper.toDto(session);
         log.info("Favorite toggled for session {} -> {}", sessionId, session.isFavorite());
         return new ApiResponseDTO(200, "Favorite toggled successfully", dto);
     }
@@ -0,0 +1,239 @@
+package com.ragchat.chatservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.model.ChatMessage;
+import com.ragchat.chatservice.repository.ChatMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Builds the conversation history sent to Groq for a chat turn.
+ * Keeps an in-memory window of the most recent messages per session, hydrated once
+ * from the database and appended on every stored message, so a chat turn does not
+ * need to re-read the session history. Idle sessions are evicted, and the total
+ * size of all windows is bounded by a memory budget.
+ */
+@Service
+public class ConversationContextService {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationContextService.class);
+
+    // Rough per-entry bookkeeping cost (entry object, UUID, deque slot) in bytes
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.context.max-messages:20}")
+    private int maxMessages;
+
+    @Value("${chat.context.max-tokens:3000}")
+    private int maxTokens;
+
+    @Value("${chat.context.memory-budget:64MB}")
+    private DataSize memoryBudget;
+
+    @Value("${chat.context.idle-timeout:30m}")
+    private Duration idleTimeout;
+
+    private Cache<UUID, SessionWindow> windows;
+    private Counter hits;
+    private Counter misses;
+    private Timer hydrationTimer;
+
+    public ConversationContextService(ChatMessageRepository chatMessageRepository, MeterRegistry meterRegistry) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        windows = Caffeine.newBuilder()
+                .maximumWeight(memoryBudget.toBytes())
+                .weigher((UUID sessionId, SessionWindow window) -> window.weight())
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, windows, "chatContextWindows");
+        hits = Counter.builder("chat.context.lookups").tag("result", "hit")
+                .description("Context builds served from the in-memory window").register(meterRegistry);
+        misses = Counter.builder("chat.context.lookups").tag("result", "miss")
+                .description("Context builds that had to hydrate from the database").register(meterRegistry);
+        hydrationTimer = Timer.builder("chat.context.hydration")
+                .description("Time spent loading a session window from the database")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        log.info("Conversation context window: {} messages / {} tokens per session, budget={}, idle timeout={}",
+                maxMessages, maxTokens, memoryBudget, idleTimeout);
+    }
+
+    /**
+     * Returns the session history in chronological order as Groq chat messages
+     * ({@code role}/{@code content}), trimmed to the configured token budget.
+     */
+    public List<Map<String, Object>> buildContext(UUID sessionId) {
+        return window(sessionId).toPrompt();
+    }
+
+    /**
+     * Like {@link #buildContext(UUID)}, followed by a message that is not stored yet (the
+     * question of the current turn) within the same budget.
+     */
+    public List<Map<String, Object>> buildContext(UUID sessionId, MessageDTO pending) {
+        return window(sessionId).toPrompt(new ContextEntry(null, pending.getSender(), pending.getMessage()));
+    }
+
+    private SessionWindow window(UUID sessionId) {
+        SessionWindow window = windows.getIfPresent(sessionId);
+        if (window != null) {
+            hits.increment();
+            return window;
+        }
+        misses.increment();
+        return windows.get(sessionId, this::hydrate);
+    }
+
+    /**
+     * Appends a stored message to the session window, if the window is loaded.
+     * Inside a transaction the append is deferred until commit, so rolled-back
+     * messages never reach the prompt.
+     */
+    public void append(UUID sessionId, MessageDTO message) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    appendNow(sessionId, message);
+                }
+            });
+        } else {
+            appendNow(sessionId, message);
+        }
+    }
+
+    /**
+     * Drops the cached window for a session (e.g. when the session is deleted).
+     */
+    public void invalidate(UUID sessionId) {
+        windows.invalidate(sessionId);
+    }
+
+    private void appendNow(UUID sessionId, MessageDTO message) {
+        ContextEntry entry = new ContextEntry(message.getId(), message.getSender(), message.getMessage());
+        // computeIfPresent re-weighs the window after the append
+        windows.asMap().computeIfPresent(sessionId, (id, window) -> window.append(entry));
+    }
+
+    private SessionWindow hydrate(UUID sessionId) {
+        return hydrationTimer.record(() -> {
+            List<ChatMessage> latest = chatMessageRepository
+                    .findBySessionIdOrderByCreatedAtDesc(sessionId, PageRequest.of(0, maxMessages));
+
+            SessionWindow window = new SessionWindow(maxMessages, maxTokens);
+            for (int i = latest.size() - 1; i >= 0; i--) {
+                ChatMessage msg = latest.get(i);
+                window.append(new ContextEntry(msg.getId(), msg.getSender(), msg.getMessage()));
+            }
+            log.debug("Hydrated context window for session {} with {} messages", sessionId, latest.size());
+            return window;
+        });
+    }
+
+    private record ContextEntry(UUID id, String role, String content, int tokens) {
+
+        ContextEntry(UUID id, String role, String content) {
+            this(id, role, content, estimateTokens(content));
+        }
+
+        // ~4 characters per token for English text, plus per-message framing
+        private static int estimateTokens(String content) {
+            return content.length() / 4 + 4;
+        }
+    }
+
+    /**
+     * Ring of the latest messages of one session, bounded by count and token budget.
+     */
+    private static final class SessionWindow {
+
+        private final ArrayDeque<ContextEntry> entries = new ArrayDeque<>();
+        private final int maxMessages;
+        private final int maxTokens;
+        private int tokens;
+        private int chars;
+
+        SessionWindow(int maxMessages, int maxTokens) {
+            this.maxMessages = maxMessages;
+            this.maxTokens = maxTokens;
+        }
+
+        synchronized SessionWindow append(ContextEntry entry) {
+            if (entry.id() != null && entries.stream().anyMatch(e -> entry.id().equals(e.id()))) {
+                return this; // already loaded by hydration
+            }
+            entries.addLast(entry);
+            tokens += entry.tokens();
+            chars += entry.content().length();
+
+            // Always keep the newest message, even if it alone exceeds the budget
+            while (entries.size() > 1 && (entries.size() > maxMessages || tokens > maxTokens)) {
+                ContextEntry dropped = entries.removeFirst();
+                tokens -= dropped.tokens();
+                chars -= dropped.content().length();
+            }
+            return this;
+        }
+
+        synchronized List<Map<String, Object>> toPrompt() {
+            List<Map<String, Object>> prompt = new ArrayList<>(entries.size());
+            for (ContextEntry e : entries) {
+                prompt.add(Map.of("role", e.role(), "content", e.content()));
+            }
+            return prompt;
+        }
+
+        // The window plus one more message, dropping the oldest entries that no longer fit
+        synchronized List<Map<String, Object>> toPrompt(ContextEntry next) {
+            int count = entries.size() + 1;
+            int total = tokens + next.tokens();
+            List<Map<String, Object>> prompt = new ArrayList<>(count);
+            for (ContextEntry e : entries) {
+                if (count > maxMessages || total > maxTokens) {
+                    count--;
+                    total -= e.tokens();
+                    continue;
+                }
+                prompt.add(Map.of("role", e.role(), "content", e.content()));
+            }
+            prompt.add(Map.of("role", next.role(), "content", next.content()));
+            return prompt;
+        }
+
+        synchronized int weight() {
+            long bytes = 2L * chars + (long) ENTRY_OVERHEAD_BYTES * (entries.size() + 1);
+            return (int) Math.min(Integer.MAX_VALUE, bytes);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.ragchat.chatservice.service;
+
+import com.ragchat.chatservice.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead for Groq calls whose size adapts to Groq's latency (gradient algorithm).
+ * <p>
+ * The limit grows by about √limit per call while latency stays within {@code rtt-tolerance}
+ * of its long-term average, and shrinks in proportion once the recent average exceeds that.
+ * Timeouts, connection errors, 429 and 5xx responses cut it by {@code backoff-ratio}. Calls
+ * over the limit wait in a FIFO queue of at most {@code max-queue} callers for up to
+ * {@code queue-timeout}; beyond that they fail fast with {@link ServiceOverloadedException}
+ * (503) instead of holding a thread while Groq is slow.
+ */
+@Service
+public class GroqConcurrencyLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(GroqConcurrencyLimiter.class);
+
+    // EWMA weights: recent latency over ~10 calls, baseline over ~100
+    private static final double SHORT_RTT_WEIGHT = 2.0 / 11;
+    private static final double LONG_RTT_WEIGHT = 2.0 / 101;
+    // Limit moves a fifth of the way to each new estimate
+    private static final double SMOOTHING = 0.2;
+
+    private enum Outcome { SUCCESS, OVERLOAD, IGNORE }
+
+    private final MeterRegistry meterRegistry;
+    private final ArrayDeque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+
+    @Value("${chat.ai.concurrency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat.ai.concurrency.initial-limit:10}")
+    private int initialLimit;
+
+    @Value("${chat.ai.concurrency.min-limit:2}")
+    private int minLimit;
+
+    @Value("${chat.ai.concurrency.max-limit:100}")
+    private int maxLimit;
+
+    @Value("${chat.ai.concurrency.rtt-tolerance:1.5}")
+    private double rttTolerance;
+
+    @Value("${chat.ai.concurrency.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${chat.ai.concurrency.max-queue:50}")
+    private int maxQueue;
+
+    @Value("${chat.ai.concurrency.queue-timeout:2s}")
+    private Duration queueTimeout;
+
+    // Guarded by this
+    private int inFlight;
+    private double shortRtt;
+    private double longRtt;
+    private volatile double limit;
+
+    private Counter rejectedQueueFull;
+    private Counter rejectedTimeout;
+
+    public GroqConcurrencyLimiter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        limit = initialLimit;
+        Gauge.builder("groq.concurrency.limit", this, l -> l.limit)
+                .description("Current adaptive limit on concurrent Groq calls")
+                .register(meterRegistry);
+        Gauge.builder("groq.concurrency.inflight", this, GroqConcurrencyLimiter::getInFlight)
+                .description("Groq calls in progress")
+                .register(meterRegistry);
+        Gauge.builder("groq.concurrency.queue", this, GroqConcurrencyLimiter::getQueued)
+                .description("Requests waiting for a Groq call slot")
+                .register(meterRegistry);
+        rejectedQueueFull = rejected("queue_full");
+        rejectedTimeout = rejected("timeout");
+
+        if (enabled) {
+            log.info("Groq concurrency limit: initial {} (min {}, max {}), queue {} for {}",
+                    initialLimit, minLimit, maxLimit, maxQueue, queueTimeout);
+        }
+    }
+
+    /**
+     * Runs a blocking Groq call once a slot is free.
+     */
+    public <T> T run(Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        Permit permit = await(acquire());
+        try {
+            T result = call.get();
+            permit.release(Outcome.SUCCESS);
+            return result;
+        } catch (RuntimeException | Error e) {
+            permit.release(classify(e));
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #run}: subscribes to {@code call} once a slot is free.
+     */
+    public <T> Mono<T> runAsync(Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+        return Mono.defer(() -> {
+            CompletableFuture<Permit> slot = acquire();
+            return Mono.fromFuture(slot)
+                    .flatMap(permit -> Mono.defer(call)
+                            .doOnSuccess(result -> permit.release(Outcome.SUCCESS))
+                            .doOnError(e -> permit.release(classify(e)))
+                            .doOnCancel(() -> permit.release(Outcome.IGNORE)))
+                    // Cancelled while the slot was being granted: hand it back
+                    .doOnCancel(() -> slot.thenAccept(permit -> permit.release(Outcome.IGNORE)));
+        });
+    }
+
+    /**
+     * Streaming variant of {@link #runAsync}: the slot is held until the stream completes,
+     * fails or is cancelled, so open streams count against the limit like any other call.
+     */
+    public <T> Flux<T> runFlux(Supplier<Flux<T>> call) {
+        if (!enabled) {
+            return Flux.defer(call);
+        }
+        return Flux.defer(() -> {
+            CompletableFuture<Permit> slot = acquire();
+            return Mono.fromFuture(slot)
+                    .flatMapMany(permit -> Flux.defer(call)
+                            .doOnComplete(() -> permit.release(Outcome.SUCCESS))
+                            .doOnError(e -> permit.release(classify(e)))
+                            .doOnCancel(() -> permit.release(Outcome.IGNORE)))
+                    // Cancelled while the slot was being granted: hand it back
+                    .doOnCancel(() -> slot.thenAccept(permit -> permit.release(Outcome.IGNORE)));
+        });
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return waiters.size();
+    }
+
+    private CompletableFuture<Permit> acquire() {
+        CompletableFuture<Permit> waiter;
+        synchronized (this) {
+            if (waiters.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit(inFlight));
+            }
+            if (waiters.size() >= maxQueue) {
+                rejectedQueueFull.increment();
+                return CompletableFuture.failedFuture(
+                        new ServiceOverloadedException("Too many requests waiting for the AI service, please retry", 1));
+            }
+            waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+        }
+        CompletableFuture.delayedExecutor(queueTimeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (waiter.completeExceptionally(
+                    new ServiceOverloadedException("Timed out waiting for the AI service, please retry", 1))) {
+                rejectedTimeout.increment();
+            }
+        });
+        // Timed out or cancelled: leave the queue
+        waiter.whenComplete((permit, e) -> {
+            if (e != null) {
+                synchronized (this) {
+                    waiters.remove(waiter);
+                }
+            }
+        });
+        return waiter;
+    }
+
+    private static Permit await(CompletableFuture<Permit> slot) {
+        try {
+            return slot.get();
+        } catch (InterruptedException e) {
+            slot.cancel(false);
+            slot.thenAccept(permit -> permit.release(Outcome.IGNORE));
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("Interrupted waiting for the AI service", 1);
+        } catch (ExecutionException e) {
+            throw (ServiceOverloadedException) e.getCause();
+        }
+    }
+
+    /**
+     * Frees a slot, feeds the call's latency into the limit and hands free slots to waiters.
+     * Waiters are completed outside the lock, since completing them may start their calls.
+     */
+    private void release(Permit permit, Outcome outcome) {
+        List<CompletableFuture<Permit>> granted = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            if (outcome != Outcome.IGNORE) {
+                update(System.nanoTime() - permit.startNanos, permit.inFlightAtStart, outcome == Outcome.OVERLOAD);
+            }
+            while (!waiters.isEmpty() && inFlight < (int) limit) {
+                granted.add(waiters.poll());
+                inFlight++;
+            }
+        }
+        for (CompletableFuture<Permit> waiter : granted) {
+            Permit next = new Permit(getInFlight());
+            if (!waiter.complete(next)) {
+                // Timed out or cancelled just before the grant
+                next.release(Outcome.IGNORE);
+            }
+        }
+    }
+
+    private void update(long rttNanos, int inFlightAtStart, boolean overload) {
+        if (overload) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+            return;
+        }
+        shortRtt = shortRtt == 0 ? rttNanos : shortRtt + (rttNanos - shortRtt) * SHORT_RTT_WEIGHT;
+        longRtt = longRtt == 0 ? rttNanos : longRtt + (rttNanos - longRtt) * LONG_RTT_WEIGHT;
+        // After a slowdown ends, let the baseline come back down quickly
+        if (longRtt > shortRtt * 2) {
+            longRtt *= 0.95;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        // A limit that is not being used gives no evidence that more would be handled
+        if (inFlightAtStart < limit / 2) {
+            estimate = Math.min(estimate, limit);
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + estimate * SMOOTHING));
+    }
+
+    /**
+     * Timeouts, connection failures, 429 and 5xx mean Groq is struggling; other errors say nothing about load.
+     */
+    private static Outcome classify(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().value() == 429 || response.getStatusCode().is5xxServerError()
+                    ? Outcome.OVERLOAD : Outcome.IGNORE;
+        }
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException || t instanceof io.netty.handler.timeout.TimeoutException
+                    || t instanceof WebClientRequestException) {
+                return Outcome.OVERLOAD;
+            }
+        }
+        return Outcome.IGNORE;
+    }
+
+    private Counter rejected(String reason) {
+        return Counter.builder("groq.concurrency.rejected").tag("reason", reason)
+                .description("Requests shed before reaching Groq").register(meterRegistry);
+    }
+
+    private final class Permit {
+
+        private final long startNanos = System.nanoTime();
+        private final int inFlightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        void release(Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                GroqConcurrencyLimiter.this.release(this, outcome);
+            }
+        }
+    }
+}
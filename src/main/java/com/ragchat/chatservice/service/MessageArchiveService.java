@@ -0,0 +1,184 @@
+package com.ragchat.chatservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ragchat.chatservice.archive.MessageArchive;
+import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.dto.MessageExportDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * The archived (cold) part of the message history: detached {@code chat_message} partitions
+ * stored as {@link MessageArchive} files under {@code chat.partitioning.archive-dir}.
+ * Archived messages are older than every message still in the database, so a session's full
+ * history is its archived messages followed by its stored ones.
+ * <p>
+ * An archive is only read once its partition is gone from the database, so no message is
+ * served twice. With several replicas the directory must be shared storage; replicas that did
+ * not write an archive pick it up at their next maintenance run.
+ */
+@Service
+public class MessageArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageArchiveService.class);
+
+    private static final Comparator<MessageArchive> OLDEST_FIRST = Comparator.comparing(MessageArchive::to,
+            Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.partitioning.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chat.partitioning.archive-dir:data/message-archive}")
+    private String archiveDir;
+
+    private Path dir;
+    private volatile List<MessageArchive> archives = List.of();
+    private Counter reads;
+
+    public MessageArchiveService(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        dir = Path.of(archiveDir);
+        Files.createDirectories(dir);
+        Gauge.builder("chat.archive.files", this, service -> service.archives.size())
+                .description("Message archives served to readers").register(meterRegistry);
+        reads = Counter.builder("chat.archive.reads")
+                .description("Message pages read from archives").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        for (MessageArchive archive : archives) {
+            archive.close();
+        }
+    }
+
+    /**
+     * Opens the archives in the directory that are not yet served, except those whose
+     * partition is still attached (archived, but not yet removed from the database).
+     */
+    public synchronized void refresh(Set<String> attachedPartitions) {
+        if (!enabled) {
+            return;
+        }
+        Set<String> served = Set.copyOf(archives.stream().map(MessageArchive::name).toList());
+        List<MessageArchive> updated = new ArrayList<>(archives);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                String fileName = file.getFileName().toString();
+                if (!fileName.endsWith(MessageArchive.INDEX_SUFFIX)) {
+                    continue;
+                }
+                String name = fileName.substring(0, fileName.length() - MessageArchive.INDEX_SUFFIX.length());
+                if (served.contains(name) || attachedPartitions.contains(name)) {
+                    continue;
+                }
+                try {
+                    updated.add(MessageArchive.open(dir, name, objectMapper));
+                    log.info("Serving message archive {}", name);
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable message archive {}: {}", name, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Cannot list message archives in {}: {}", dir, e.getMessage());
+            return;
+        }
+        updated.sort(OLDEST_FIRST);
+        archives = List.copyOf(updated);
+    }
+
+    /**
+     * Starts an archive for a partition; commit it before the partition is dropped.
+     */
+    public MessageArchive.Writer writer(String name, LocalDateTime from, LocalDateTime to) throws IOException {
+        return MessageArchive.create(dir, name, from, to, objectMapper);
+    }
+
+    /**
+     * Serves a committed archive whose partition has been dropped.
+     */
+    public synchronized void publish(MessageArchive archive) {
+        List<MessageArchive> updated = new ArrayList<>(archives);
+        updated.removeIf(existing -> existing.name().equals(archive.name()));
+        updated.add(archive);
+        updated.sort(OLDEST_FIRST);
+        archives = List.copyOf(updated);
+    }
+
+    /**
+     * Archived messages of a session.
+     */
+    public long count(UUID sessionId) {
+        long count = 0;
+        for (MessageArchive archive : archives) {
+            count += archive.count(sessionId);
+        }
+        return count;
+    }
+
+    /**
+     * Up to {@code limit} archived messages of a session, oldest first, after skipping {@code offset}.
+     */
+    public List<MessageDTO> read(UUID sessionId, long offset, int limit) {
+        List<MessageDTO> page = new ArrayList<>(limit);
+        long skip = offset;
+        try {
+            for (MessageArchive archive : archives) {
+                int count = archive.count(sessionId);
+                if (skip >= count) {
+                    skip -= count;
+                    continue;
+                }
+                for (MessageExportDTO line : archive.read(sessionId, (int) skip, limit - page.size())) {
+                    page.add(toDto(line));
+                }
+                skip = 0;
+                if (page.size() == limit) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archived messages of session " + sessionId, e);
+        }
+        reads.increment();
+        return page;
+    }
+
+    private static MessageDTO toDto(MessageExportDTO line) {
+        MessageDTO dto = new MessageDTO();
+        dto.setId(line.getId());
+        dto.setSender(line.getSender());
+        dto.setMessage(line.getMessage());
+        return dto;
+    }
+}
@@ -0,0 +1,295 @@
+package com.ragchat.chatservice.service;
+
+import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.exception.ResourceNotFoundException;
+import com.ragchat.chatservice.exception.ServiceOverloadedException;
+import com.ragchat.chatservice.mapper.ChatMapper;
+import com.ragchat.chatservice.model.ChatMessage;
+import com.ragchat.chatservice.repository.ChatMessageRepository;
+import com.ragchat.chatservice.repository.ChatSessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Write-behind path for chat messages.
+ * Messages are accepted into a bounded queue and a single flusher thread writes them
+ * in JDBC batches, one transaction per batch. A batch is flushed when it reaches
+ * {@code batch-size} or {@code flush-interval} has passed since its first message.
+ * When the queue is full, callers are rejected after {@code offer-timeout} (503).
+ */
+@Service
+public class MessageIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageIngestionService.class);
+
+    private final ChatSessionRepository chatSessionRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatMapper chatMapper;
+    private final ConversationContextService conversationContextService;
+    private final ChatCacheInvalidator cacheInvalidator;
+    private final MessageRetrievalService messageRetrievalService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.ingestion.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chat.ingestion.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${chat.ingestion.batch-size:200}")
+    private int batchSize;
+
+    @Value("${chat.ingestion.flush-interval:20ms}")
+    private Duration flushInterval;
+
+    @Value("${chat.ingestion.offer-timeout:100ms}")
+    private Duration offerTimeout;
+
+    @Value("${chat.ingestion.ack-timeout:5s}")
+    private Duration ackTimeout;
+
+    private BlockingQueue<PendingMessage> queue;
+    private Thread flusher;
+    private volatile boolean running;
+
+    private Counter rejected;
+    private Timer flushTimer;
+    private DistributionSummary batchSizes;
+
+    public MessageIngestionService(ChatSessionRepository chatSessionRepository,
+                                   ChatMessageRepository chatMessageRepository,
+                                   ChatMapper chatMapper,
+                                   ConversationContextService conversationContextService,
+                                   ChatCacheInvalidator cacheInvalidator,
+                                   MessageRetrievalService messageRetrievalService,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.chatSessionRepository = chatSessionRepository;
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatMapper = chatMapper;
+        this.conversationContextService = conversationContextService;
+        this.cacheInvalidator = cacheInvalidator;
+        this.messageRetrievalService = messageRetrievalService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Batched message ingestion disabled; all writes are synchronous.");
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("chat.ingestion.queue.depth", queue, BlockingQueue::size)
+                .description("Messages waiting to be flushed").register(meterRegistry);
+        rejected = Counter.builder("chat.ingestion.rejected")
+                .description("Messages rejected because the ingestion queue was full").register(meterRegistry);
+        flushTimer = Timer.builder("chat.ingestion.flush")
+                .description("Time to write one batch").register(meterRegistry);
+        batchSizes = DistributionSummary.builder("chat.ingestion.batch.size")
+                .description("Messages per flushed batch").register(meterRegistry);
+
+        running = true;
+        flusher = new Thread(this::runFlusher, "message-ingestion-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Batched message ingestion enabled: capacity={}, batchSize={}, flushInterval={}",
+                queueCapacity, batchSize, flushInterval);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        if (!queue.isEmpty()) {
+            log.warn("{} queued messages were not flushed before shutdown", queue.size());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a message and returns immediately ({@code ASYNC} durability).
+     */
+    public void submit(UUID sessionId, MessageDTO dto) {
+        enqueue(sessionId, dto);
+    }
+
+    /**
+     * Queues a message and waits until the batch containing it has committed
+     * ({@code BATCHED} durability).
+     */
+    public MessageDTO submitAndWait(UUID sessionId, MessageDTO dto) {
+        CompletableFuture<MessageDTO> stored = enqueue(sessionId, dto);
+        try {
+            return stored.orTimeout(ackTimeout.toMillis(), TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new ServiceOverloadedException("Timed out waiting for message to be stored", 1);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<MessageDTO> enqueue(UUID sessionId, MessageDTO dto) {
+        if (!enabled) {
+            throw new IllegalStateException("Batched message ingestion is disabled");
+        }
+        PendingMessage pending = new PendingMessage(sessionId, dto, new CompletableFuture<>());
+        try {
+            if (!queue.offer(pending, offerTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new ServiceOverloadedException("Message ingestion queue is full, please retry", 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("Interrupted while queueing message", 1);
+        }
+        return pending.result();
+    }
+
+    private void runFlusher() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Linger until the batch is full or the flush interval has elapsed
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in message ingestion flusher: {}", e.getMessage(), e);
+                batch.forEach(p -> p.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        List<ChatMessage> saved;
+        try {
+            saved = flushTimer.record(() -> transactionTemplate.execute(status -> {
+                List<ChatMessage> entities = new ArrayList<>(batch.size());
+                for (PendingMessage pending : batch) {
+                    ChatMessage message = chatMapper.toEntity(pending.dto());
+                    // Proxy only; the FK constraint validates the session on insert
+                    message.setSession(chatSessionRepository.getReferenceById(pending.sessionId()));
+                    entities.add(message);
+                }
+                List<ChatMessage> result = chatMessageRepository.saveAll(entities);
+                chatMessageRepository.flush();
+                // One update per session, to its newest message of the batch. A session deleted
+                // meanwhile still passes the FK; it fails the batch, which is then retried per message.
+                Map<UUID, LocalDateTime> latest = new HashMap<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    latest.merge(batch.get(i).sessionId(), result.get(i).getCreatedAt(),
+                            (a, b) -> b.isAfter(a) ? b : a);
+                }
+                latest.forEach((sessionId, at) -> {
+                    if (chatSessionRepository.touch(sessionId, at) == 0) {
+                        throw new ResourceNotFoundException("Session not found with id " + sessionId);
+                    }
+                });
+                return result;
+            }));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                PendingMessage pending = batch.get(0);
+                log.warn("Failed to store queued message for session {}: {}", pending.sessionId(), e.getMessage());
+                pending.result().completeExceptionally(e instanceof DataIntegrityViolationException violation
+                        && ChatService.isMissingSession(violation)
+                        ? new ResourceNotFoundException("Session not found with id " + pending.sessionId())
+                        : e);
+                return;
+            }
+            // Isolate the offending message(s) so one bad row does not fail the whole batch
+            log.warn("Batch of {} messages failed ({}), retrying individually", batch.size(), e.getMessage());
+            for (PendingMessage pending : batch) {
+                flush(List.of(pending));
+            }
+            return;
+        }
+
+        batchSizes.record(batch.size());
+        Set<UUID> touchedSessions = new LinkedHashSet<>();
+        List<MessageDTO> stored = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PendingMessage pending = batch.get(i);
+            MessageDTO dto = chatMapper.toDto(saved.get(i));
+            conversationContextService.append(pending.sessionId(), dto);
+            messageRetrievalService.messageStored(pending.sessionId(), dto);
+            touchedSessions.add(pending.sessionId());
+            stored.add(dto);
+        }
+
+        // Invalidate before acknowledging, so a caller reading right after the ack sees its message
+        touchedSessions.forEach(cacheInvalidator::messagesChanged);
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(stored.get(i));
+        }
+        log.debug("Flushed {} messages across {} sessions", batch.size(), touchedSessions.size());
+    }
+
+    private record PendingMessage(UUID sessionId, MessageDTO dto, CompletableFuture<MessageDTO> result) {
+    }
+}
@@ -0,0 +1,339 @@
+package com.ragchat.chatservice.service;
+
+import com.ragchat.chatservice.archive.MessageArchive;
+import com.ragchat.chatservice.dto.MessageExportDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the monthly range partitions of {@code chat_message} (PostgreSQL, after schema
+ * migration V2). Every {@code maintenance-interval}, and at startup, one replica:
+ * <ul>
+ *   <li>creates the partitions of the current month and the next {@code premake-months}, and
+ *       of every month with rows in the default partition. Those rows, written while
+ *       maintenance was off or behind, are moved into the new partition: PostgreSQL refuses a
+ *       partition whose range still has rows in the default one;</li>
+ *   <li>archives partitions that ended more than {@code hot-months} ago: it closes the
+ *       partition to new rows, writes its messages to a {@link MessageArchive}, then detaches
+ *       and drops it in one short transaction, and hands the archive to
+ *       {@link MessageArchiveService} for reads.</li>
+ * </ul>
+ * Replicas serialize on an advisory lock; the others only pick up new archives.
+ */
+@Service
+@DependsOn("entityManagerFactory") // chat_message must exist before its partitions are read
+public class MessagePartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(MessagePartitionService.class);
+
+    private static final long LOCK_KEY = 0x5C4E_5041L;
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern RANGE = Pattern.compile("FOR VALUES FROM \\((.+)\\) TO \\((.+)\\)");
+
+    private static final String IS_PARTITIONED = """
+            SELECT coalesce((SELECT relkind = 'p' FROM pg_class WHERE oid = to_regclass('chat_message')), false)""";
+    private static final String PARTITIONS = """
+            SELECT c.relname, pg_get_expr(c.relpartbound, c.oid)
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'chat_message'::regclass""";
+    private static final String TRY_LOCK = "SELECT pg_try_advisory_lock(?)";
+    private static final String UNLOCK = "SELECT pg_advisory_unlock(?)";
+    private static final String CREATE_PARTITION =
+            "CREATE TABLE IF NOT EXISTS %s PARTITION OF chat_message FOR VALUES FROM ('%s') TO ('%s')";
+    private static final String FALLBACK_MONTHS = "SELECT DISTINCT date_trunc('month', created_at) FROM %s";
+    private static final String FALLBACK_HAS_ROWS = "SELECT EXISTS (SELECT 1 FROM %s WHERE created_at >= ? AND created_at < ?)";
+    // Run with the default partition detached, so the rows are routed to the new partition
+    private static final String MOVE_ROWS = """
+            WITH moved AS (
+                DELETE FROM %s WHERE created_at >= ? AND created_at < ?
+                RETURNING id, session_id, sender, message, created_at, updated_at)
+            INSERT INTO chat_message (id, session_id, sender, message, created_at, updated_at)
+            SELECT id, session_id, sender, message, created_at, updated_at FROM moved""";
+    private static final String ATTACH_FALLBACK = "ALTER TABLE chat_message ATTACH PARTITION %s DEFAULT";
+    // NOT VALID: existing rows are not checked and the planner ignores it, but new rows are rejected
+    private static final String CLOSED = """
+            SELECT count(*) > 0 FROM pg_constraint
+            WHERE conrelid = ?::regclass AND conname = 'chat_message_archiving'""";
+    private static final String CLOSE = "ALTER TABLE %s ADD CONSTRAINT chat_message_archiving CHECK (false) NOT VALID";
+    private static final String ARCHIVE_ROWS = """
+            SELECT id, session_id, sender, message, created_at FROM %s
+            ORDER BY session_id, created_at, id""";
+    private static final String DETACH = "ALTER TABLE chat_message DETACH PARTITION %s";
+    private static final String DROP = "DROP TABLE %s";
+
+    record Partition(String name, LocalDateTime from, LocalDateTime to, boolean fallback) {
+
+        // Bounds are null when unbounded (MINVALUE / MAXVALUE)
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            return !fallback && (from == null || from.isBefore(end)) && (to == null || to.isAfter(start));
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageArchiveService archiveService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.partitioning.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chat.partitioning.premake-months:3}")
+    private int premakeMonths;
+
+    @Value("${chat.partitioning.hot-months:12}")
+    private int hotMonths;
+
+    @Value("${chat.partitioning.maintenance-interval:1h}")
+    private Duration maintenanceInterval;
+
+    private ScheduledExecutorService scheduler;
+    private volatile int partitionCount;
+    private Counter archivedPartitions;
+    private Counter archivedMessages;
+    private Timer maintenanceTimer;
+
+    public MessagePartitionService(JdbcTemplate jdbcTemplate, MessageArchiveService archiveService,
+                                   MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archiveService = archiveService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Message partitioning disabled.");
+            return;
+        }
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            log.warn("Message partitioning needs PostgreSQL, not {}; disabled", database);
+            return;
+        }
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED, Boolean.class))) {
+            log.warn("chat_message is not partitioned; enable chat.schema.migrations to convert it. Partitioning disabled");
+            return;
+        }
+
+        Gauge.builder("chat.partition.count", this, service -> service.partitionCount)
+                .description("Partitions of chat_message in the database").register(meterRegistry);
+        archivedPartitions = Counter.builder("chat.partition.archived")
+                .description("Partitions moved to the archive").register(meterRegistry);
+        archivedMessages = Counter.builder("chat.partition.archived.messages")
+                .description("Messages moved to the archive").register(meterRegistry);
+        maintenanceTimer = Timer.builder("chat.partition.maintenance")
+                .description("Time of one maintenance run").register(meterRegistry);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "message-partition-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::maintain, 0, maintenanceInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Message partitioning enabled: premakeMonths={}, hotMonths={}, interval={}",
+                premakeMonths, hotMonths, maintenanceInterval);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private void maintain() {
+        try {
+            maintenanceTimer.record(() -> jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                // One connection for the whole run: the advisory lock belongs to it
+                SingleConnectionDataSource dataSource = new SingleConnectionDataSource(connection, true);
+                JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+                jdbc.setFetchSize(1000);
+                if (!Boolean.TRUE.equals(jdbc.queryForObject(TRY_LOCK, Boolean.class, LOCK_KEY))) {
+                    log.debug("Partition maintenance is running on another replica");
+                    return null;
+                }
+                try {
+                    maintain(jdbc, new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+                } finally {
+                    jdbc.queryForObject(UNLOCK, Boolean.class, LOCK_KEY);
+                }
+                return null;
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Partition maintenance failed, will retry: {}", e.getMessage(), e);
+        }
+        try {
+            List<Partition> partitions = partitions(jdbcTemplate);
+            partitionCount = partitions.size();
+            archiveService.refresh(partitions.stream().map(Partition::name).collect(Collectors.toSet()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh message archives: {}", e.getMessage());
+        }
+    }
+
+    void maintain(JdbcTemplate jdbc, TransactionTemplate transactionTemplate) {
+        List<Partition> partitions = partitions(jdbc);
+        Partition fallback = partitions.stream().filter(Partition::fallback).findFirst().orElse(null);
+        LocalDateTime month = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+
+        Set<LocalDateTime> months = new TreeSet<>();
+        for (int i = 0; i <= premakeMonths; i++) {
+            months.add(month.plusMonths(i));
+        }
+        if (fallback != null) {
+            months.addAll(jdbc.queryForList(FALLBACK_MONTHS.formatted(quote(fallback.name())), LocalDateTime.class));
+        }
+        for (LocalDateTime from : months) {
+            LocalDateTime to = from.plusMonths(1);
+            if (partitions.stream().noneMatch(p -> p.overlaps(from, to))) {
+                createPartition(jdbc, transactionTemplate, fallback, from, to);
+            }
+        }
+
+        LocalDateTime cutoff = month.minusMonths(hotMonths);
+        for (Partition partition : partitions) {
+            if (!partition.fallback() && partition.to() != null && !partition.to().isAfter(cutoff)) {
+                archive(jdbc, transactionTemplate, partition);
+            }
+        }
+    }
+
+    private void createPartition(JdbcTemplate jdbc, TransactionTemplate transactionTemplate, Partition fallback,
+                                 LocalDateTime from, LocalDateTime to) {
+        String name = "chat_message_p" + PARTITION_SUFFIX.format(from);
+        String create = CREATE_PARTITION.formatted(quote(name), from, to);
+        if (fallback == null || !Boolean.TRUE.equals(jdbc.queryForObject(
+                FALLBACK_HAS_ROWS.formatted(quote(fallback.name())), Boolean.class, from, to))) {
+            jdbc.execute(create);
+            log.info("Created partition {} for {} to {}", name, from, to);
+            return;
+        }
+        // One transaction: writers wait on the table lock and never see the default detached.
+        // Re-attaching scans the default partition, which maintenance keeps small.
+        String table = quote(fallback.name());
+        Integer moved = transactionTemplate.execute(status -> {
+            jdbc.execute(DETACH.formatted(table));
+            jdbc.execute(create);
+            int rows = jdbc.update(MOVE_ROWS.formatted(table), from, to);
+            jdbc.execute(ATTACH_FALLBACK.formatted(table));
+            return rows;
+        });
+        log.info("Created partition {} for {} to {}, moving {} messages out of {}", name, from, to, moved, fallback.name());
+    }
+
+    private void archive(JdbcTemplate jdbc, TransactionTemplate transactionTemplate, Partition partition) {
+        String table = quote(partition.name());
+        log.info("Archiving partition {} ({} to {})", partition.name(), partition.from(), partition.to());
+
+        // Closed first, so the archive cannot miss a row written while it is read
+        if (!Boolean.TRUE.equals(jdbc.queryForObject(CLOSED, Boolean.class, table))) {
+            jdbc.execute(CLOSE.formatted(table));
+        }
+
+        MessageArchive archive;
+        long messages;
+        try (MessageArchive.Writer writer = archiveService.writer(partition.name(), partition.from(), partition.to())) {
+            // Inside a transaction, so the PostgreSQL driver streams rows with the fetch size
+            transactionTemplate.executeWithoutResult(status -> jdbc.query(ARCHIVE_ROWS.formatted(table),
+                    (RowCallbackHandler) rs -> {
+                        try {
+                            writer.write(new MessageExportDTO(rs.getObject("id", UUID.class),
+                                    rs.getObject("session_id", UUID.class), rs.getString("sender"),
+                                    rs.getString("message"), rs.getTimestamp("created_at").toLocalDateTime()));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+            messages = writer.messages();
+            archive = writer.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write archive of " + partition.name(), e);
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbc.execute(DETACH.formatted(table));
+                jdbc.execute(DROP.formatted(table));
+            });
+        } catch (RuntimeException e) {
+            closeQuietly(archive);
+            throw e;
+        }
+        archiveService.publish(archive);
+        archivedPartitions.increment();
+        archivedMessages.increment(messages);
+        log.info("Archived partition {}: {} messages", partition.name(), messages);
+    }
+
+    private static List<Partition> partitions(JdbcTemplate jdbc) {
+        List<Partition> partitions = new ArrayList<>();
+        jdbc.query(PARTITIONS, (RowCallbackHandler) rs -> partitions.add(parse(rs.getString(1), rs.getString(2))));
+        return partitions;
+    }
+
+    // Bounds as printed by pg_get_expr, e.g. FOR VALUES FROM (MINVALUE) TO ('2026-11-01 00:00:00')
+    static Partition parse(String name, String bound) {
+        if ("DEFAULT".equals(bound)) {
+            return new Partition(name, null, null, true);
+        }
+        Matcher range = RANGE.matcher(bound);
+        if (!range.matches()) {
+            throw new IllegalStateException("Unexpected bound of partition " + name + ": " + bound);
+        }
+        return new Partition(name, boundValue(range.group(1)), boundValue(range.group(2)), false);
+    }
+
+    private static LocalDateTime boundValue(String value) {
+        if ("MINVALUE".equals(value) || "MAXVALUE".equals(value)) {
+            return null;
+        }
+        return LocalDateTime.parse(value.replace("'", "").replace(' ', 'T'));
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+
+    private static void closeQuietly(MessageArchive archive) {
+        try {
+            archive.close();
+        } catch (IOException e) {
+            log.debug("Failed to close archive {}: {}", archive.name(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,593 @@
+package com.ragchat.chatservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.dto.RetrievedMessageDTO;
+import com.ragchat.chatservice.embedding.Embedder;
+import com.ragchat.chatservice.embedding.HnswIndex;
+import com.ragchat.chatservice.embedding.QuantizedVectorStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Similarity retrieval over stored messages, for the retrieval endpoint and for adding
+ * related earlier messages to Groq prompts.
+ * <ul>
+ *   <li>Messages are embedded off the request path by a single worker thread: those stored
+ *       through this instance right after commit and, every {@code catch-up-interval}, those
+ *       created since the last catch-up, including ones stored by other replicas.</li>
+ *   <li>Vectors are kept int8-quantized outside the heap ({@link QuantizedVectorStore}),
+ *       memory-mapped from {@code store-path} when set. The store persists the catch-up
+ *       high-water mark, so a restart only reads messages created since; with an off-heap
+ *       store every message is embedded again at startup.</li>
+ *   <li>Each user has an {@link HnswIndex} over their messages, built from the store on the
+ *       first search or new message after a restart. Store records carry a hash of the user
+ *       id; a collision only costs candidates, since hits are re-read for the exact user.</li>
+ *   <li>Every {@code sweep-interval} the stored vectors are checked against the database:
+ *       those of purged, archived or soft-deleted messages are removed, and once they make up
+ *       {@code compact-ratio} of the store it is rewritten without them. Meanwhile, hits
+ *       missing from the database are dropped from the index when they are first found.</li>
+ * </ul>
+ * With the queue full, new messages are dropped and counted; the next catch-up indexes them.
+ */
+@Service
+@DependsOn("entityManagerFactory") // the startup catch-up reads chat_message
+public class MessageRetrievalService {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageRetrievalService.class);
+
+    private static final int MAX_QUERY_LENGTH = 2000;
+    private static final int PAGE_SIZE = 1000;
+    private static final int SWEEP_BATCH = 500;
+    private static final int PROMPT_SNIPPET_LENGTH = 500;
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    // Keyset pages in (created_at, id) order, served by idx_chat_message_created_id
+    private static final String PAGE = """
+            SELECT m.id, s.user_id, m.message, m.created_at
+            FROM chat_message m
+            JOIN chat_session s ON s.id = m.session_id
+            WHERE s.deleted_at IS NULL AND %s
+            ORDER BY m.created_at, m.id
+            LIMIT ?""";
+    private static final String USER_OF_SESSION = "SELECT user_id FROM chat_session WHERE id = ?";
+    private static final String HITS = """
+            SELECT m.id, m.session_id, m.sender, m.message, m.created_at
+            FROM chat_message m
+            JOIN chat_session s ON s.id = m.session_id
+            WHERE s.user_id = ? AND s.deleted_at IS NULL AND m.id IN (%s)""";
+    private static final String LIVE = """
+            SELECT m.id
+            FROM chat_message m
+            JOIN chat_session s ON s.id = m.session_id
+            WHERE s.deleted_at IS NULL AND m.id IN (%s)""";
+
+    private final Embedder embedder;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.retrieval.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chat.retrieval.augment-prompts:false}")
+    private boolean augmentPrompts;
+
+    @Value("${chat.retrieval.store-path:}")
+    private String storePath;
+
+    @Value("${chat.retrieval.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${chat.retrieval.hnsw.ef-construction:100}")
+    private int efConstruction;
+
+    @Value("${chat.retrieval.hnsw.ef-search:64}")
+    private int efSearch;
+
+    @Value("${chat.retrieval.min-similarity:0.2}")
+    private double minSimilarity;
+
+    @Value("${chat.retrieval.max-results:20}")
+    private int maxResults;
+
+    @Value("${chat.retrieval.prompt-results:3}")
+    private int promptResults;
+
+    @Value("${chat.retrieval.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${chat.retrieval.catch-up-interval:30s}")
+    private Duration catchUpInterval;
+
+    // Rows created this long before the last catch-up are read again, for late commits
+    @Value("${chat.retrieval.catch-up-overlap:1m}")
+    private Duration catchUpOverlap;
+
+    @Value("${chat.retrieval.sweep-interval:1h}")
+    private Duration sweepInterval;
+
+    @Value("${chat.retrieval.compact-ratio:0.25}")
+    private double compactRatio;
+
+    /**
+     * The store with what is derived from it, replaced as a whole on compaction. Only the
+     * worker thread changes it; searches read whichever catalog was current when they began.
+     * {@code pending} holds, per owner, the slots of users whose index is not built yet.
+     */
+    private record Catalog(QuantizedVectorStore store, Map<UUID, Integer> slots,
+                           Map<Long, List<Integer>> pending, Map<Long, HnswIndex> indexes) {
+    }
+
+    private volatile Catalog catalog;
+    private final Cache<UUID, String> sessionOwners = Caffeine.newBuilder().maximumSize(100_000).build();
+    private ThreadPoolExecutor worker;
+    private ScheduledExecutorService scheduler;
+    private final AtomicBoolean catchUpQueued = new AtomicBoolean();
+    private final AtomicBoolean sweepQueued = new AtomicBoolean();
+    private volatile LocalDateTime watermark = BEGINNING;
+
+    private Counter dropped;
+    private Timer searchTimer;
+
+    public MessageRetrievalService(Embedder embedder, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.embedder = embedder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            log.info("Message retrieval disabled.");
+            return;
+        }
+        QuantizedVectorStore store;
+        if (storePath.isBlank()) {
+            store = QuantizedVectorStore.offHeap(embedder.id(), embedder.dimensions());
+        } else {
+            Path path = Path.of(storePath);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.deleteIfExists(compactionFile(path)); // left by a compaction cut short
+            store = QuantizedVectorStore.open(path, embedder.id(), embedder.dimensions());
+        }
+        catalog = load(store);
+        if (store.checkpoint() != 0) {
+            watermark = LocalDateTime.ofInstant(Instant.ofEpochMilli(store.checkpoint()), ZoneOffset.UTC);
+        }
+
+        worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> daemon(runnable, "message-embedding"));
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "message-embedding-catch-up"));
+
+        Gauge.builder("chat.retrieval.vectors", this, service -> service.catalog.slots().size())
+                .description("Message vectors in the store, removed ones excluded").register(meterRegistry);
+        Gauge.builder("chat.retrieval.store.bytes", this, service -> service.catalog.store().reservedBytes())
+                .description("Off-heap or mapped bytes reserved for message vectors").register(meterRegistry);
+        Gauge.builder("chat.retrieval.queue.depth", worker, w -> w.getQueue().size())
+                .description("Embedding tasks waiting for the worker").register(meterRegistry);
+        dropped = Counter.builder("chat.retrieval.dropped")
+                .description("Embedding tasks dropped because the queue was full").register(meterRegistry);
+        searchTimer = Timer.builder("chat.retrieval.search")
+                .description("Embedding a query, searching the user's index and loading the hits").register(meterRegistry);
+
+        // The first run reads every message created since the persisted high-water mark
+        scheduler.scheduleWithFixedDelay(() -> queueOnce(catchUpQueued, this::catchUp),
+                0, catchUpInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> queueOnce(sweepQueued, this::sweep),
+                sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Message retrieval enabled: embedder={}, {} stored vectors, store={}, indexed up to {}",
+                embedder.id(), catalog.slots().size(), storePath.isBlank() ? "off-heap" : storePath,
+                watermark == BEGINNING ? "nothing" : watermark);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (catalog == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        worker.shutdownNow();
+        worker.awaitTermination(5, TimeUnit.SECONDS);
+        catalog.store().close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a stored message for embedding. Inside a transaction this is deferred until
+     * commit, so rolled-back messages are never indexed.
+     */
+    public void messageStored(UUID sessionId, MessageDTO message) {
+        if (!enabled) {
+            return;
+        }
+        Runnable task = () -> index(message.getId(), userOf(sessionId), message.getMessage());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(task);
+                }
+            });
+        } else {
+            submit(task);
+        }
+    }
+
+    /**
+     * Queues every message of a session for embedding, e.g. after a bulk import.
+     */
+    public void sessionChanged(UUID sessionId) {
+        if (enabled) {
+            submit(() -> indexPages("m.session_id = ?", List.of(sessionId), BEGINNING));
+        }
+    }
+
+    /**
+     * The user's messages most similar to {@code query}, best first; only those of one
+     * session when {@code sessionId} is given.
+     */
+    public List<RetrievedMessageDTO> retrieve(String userId, UUID sessionId, String query, int k) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Query cannot be empty");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Query cannot exceed " + MAX_QUERY_LENGTH + " characters");
+        }
+        if (!enabled) {
+            return List.of();
+        }
+        int limit = Math.max(1, Math.min(k, maxResults));
+        return searchTimer.record(() -> search(userId, sessionId, query, limit));
+    }
+
+    /**
+     * Adds the user's most related earlier messages to a prompt as a system message, when
+     * {@code augment-prompts} is on. Messages already in the prompt are skipped. Never fails
+     * the turn: on error the prompt is returned unchanged.
+     */
+    public List<Map<String, Object>> augment(String userId, List<Map<String, Object>> prompt, String question) {
+        if (!enabled || !augmentPrompts || promptResults <= 0) {
+            return prompt;
+        }
+        try {
+            Set<Object> present = prompt.stream().map(message -> message.get("content")).collect(Collectors.toSet());
+            List<RetrievedMessageDTO> related = retrieve(userId, null, question, promptResults + prompt.size()).stream()
+                    .filter(hit -> !present.contains(hit.getMessage()))
+                    .limit(promptResults)
+                    .toList();
+            if (related.isEmpty()) {
+                return prompt;
+            }
+            StringBuilder content = new StringBuilder(
+                    "Possibly relevant messages from this user's earlier conversations, most relevant first:");
+            for (RetrievedMessageDTO hit : related) {
+                String text = hit.getMessage();
+                content.append("\n- ").append(hit.getSender()).append(": ")
+                        .append(text.length() > PROMPT_SNIPPET_LENGTH ? text.substring(0, PROMPT_SNIPPET_LENGTH) + "…" : text);
+            }
+            List<Map<String, Object>> augmented = new ArrayList<>(prompt.size() + 1);
+            augmented.add(Map.of("role", "system", "content", content.toString()));
+            augmented.addAll(prompt);
+            return augmented;
+        } catch (RuntimeException e) {
+            log.warn("Retrieval for prompt failed, continuing without it: {}", e.getMessage());
+            return prompt;
+        }
+    }
+
+    private List<RetrievedMessageDTO> search(String userId, UUID sessionId, String query, int limit) {
+        Catalog current = catalog;
+        QuantizedVectorStore store = current.store();
+        long owner = ownerKey(userId);
+        // Pending first: a user's slots leave it only once their index is registered
+        if (!current.pending().containsKey(owner) && !current.indexes().containsKey(owner)) {
+            return List.of();
+        }
+        HnswIndex index = index(current, owner);
+        float[] vector = embedder.embedText(query);
+        // Over-fetch for hits outside the session or deleted since they were indexed
+        int candidates = sessionId == null ? limit * 2 : limit * 10;
+        Map<UUID, HnswIndex.Neighbor> neighbors = new LinkedHashMap<>();
+        for (HnswIndex.Neighbor neighbor : index.search(slot -> store.dot(slot, vector), candidates,
+                Math.max(efSearch, candidates))) {
+            if (neighbor.similarity() >= minSimilarity) {
+                neighbors.put(store.id(neighbor.key()), neighbor);
+            }
+        }
+        if (neighbors.isEmpty()) {
+            return List.of();
+        }
+
+        List<Object> args = new ArrayList<>(neighbors.size() + 1);
+        args.add(userId);
+        args.addAll(neighbors.keySet());
+        String placeholders = String.join(", ", Collections.nCopies(neighbors.size(), "?"));
+        Map<UUID, RetrievedMessageDTO> rows = new HashMap<>();
+        jdbcTemplate.query(HITS.formatted(placeholders), rs -> {
+            UUID id = rs.getObject("id", UUID.class);
+            rows.put(id, new RetrievedMessageDTO(id, rs.getObject("session_id", UUID.class), rs.getString("sender"),
+                    rs.getString("message"), (float) neighbors.get(id).similarity(),
+                    rs.getTimestamp("created_at").toLocalDateTime()));
+        }, args.toArray());
+
+        List<RetrievedMessageDTO> hits = new ArrayList<>(limit);
+        for (Map.Entry<UUID, HnswIndex.Neighbor> neighbor : neighbors.entrySet()) {
+            RetrievedMessageDTO hit = rows.get(neighbor.getKey());
+            if (hit == null) {
+                index.remove(neighbor.getValue().key());
+            } else if (hits.size() < limit && (sessionId == null || sessionId.equals(hit.getSessionId()))) {
+                hits.add(hit);
+            }
+        }
+        return hits;
+    }
+
+    // Runs on the worker thread only, so a message is never embedded twice
+    private void index(UUID messageId, String userId, String text) {
+        if (userId == null) {
+            return; // session deleted meanwhile
+        }
+        Catalog current = catalog;
+        long owner = ownerKey(userId);
+        Integer slot = current.slots().get(messageId);
+        if (slot == null) {
+            slot = current.store().append(messageId, owner, embedder.embedText(text));
+            current.slots().put(messageId, slot);
+        }
+        index(current, owner).add(slot);
+    }
+
+    // The owner's index, built from its stored slots on first use. Concurrent first uses may
+    // both build one; only the first registered is kept.
+    private HnswIndex index(Catalog current, long owner) {
+        HnswIndex index = current.indexes().get(owner);
+        if (index != null) {
+            return index;
+        }
+        QuantizedVectorStore store = current.store();
+        index = new HnswIndex((a, b) -> store.dot(a, b), hnswM, efConstruction, owner);
+        for (int slot : current.pending().getOrDefault(owner, List.of())) {
+            index.add(slot);
+        }
+        HnswIndex registered = current.indexes().putIfAbsent(owner, index);
+        current.pending().remove(owner);
+        return registered != null ? registered : index;
+    }
+
+    private static Catalog load(QuantizedVectorStore store) {
+        Map<UUID, Integer> slots = new ConcurrentHashMap<>();
+        Map<Long, List<Integer>> pending = new ConcurrentHashMap<>();
+        for (int slot = 0; slot < store.size(); slot++) {
+            long owner = store.owner(slot);
+            if (owner != QuantizedVectorStore.REMOVED) {
+                slots.put(store.id(slot), slot);
+                pending.computeIfAbsent(owner, key -> new ArrayList<>()).add(slot);
+            }
+        }
+        return new Catalog(store, slots, pending, new ConcurrentHashMap<>());
+    }
+
+    // Stable across restarts and never QuantizedVectorStore.REMOVED
+    static long ownerKey(String userId) {
+        UUID hash = UUID.nameUUIDFromBytes(userId.getBytes(StandardCharsets.UTF_8));
+        long key = hash.getMostSignificantBits() ^ hash.getLeastSignificantBits();
+        return key == QuantizedVectorStore.REMOVED ? 1 : key;
+    }
+
+    // At most one run of each task waits in the queue, however long the one before takes
+    private void queueOnce(AtomicBoolean queued, Runnable task) {
+        if (queued.compareAndSet(false, true) && !submit(() -> {
+            queued.set(false);
+            task.run();
+        })) {
+            queued.set(false);
+        }
+    }
+
+    private void catchUp() {
+        LocalDateTime since = watermark == BEGINNING ? BEGINNING : watermark.minus(catchUpOverlap);
+        long started = System.nanoTime();
+        QuantizedVectorStore store = catalog.store();
+        int before = store.size();
+        LocalDateTime newest = indexPages(null, List.of(), since);
+        if (newest != null && newest.isAfter(watermark)) {
+            watermark = newest;
+            store.checkpoint(newest.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        if (store.size() > before) {
+            log.info("Embedded {} messages in {} ms", store.size() - before, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    // Removes vectors of messages no longer readable: purged, archived or in a deleted session
+    void sweep() {
+        Catalog current = catalog;
+        QuantizedVectorStore store = current.store();
+        int size = store.size();
+        int before = store.removed();
+        List<Integer> batch = new ArrayList<>(SWEEP_BATCH);
+        for (int slot = 0; slot < size && !Thread.currentThread().isInterrupted(); slot++) {
+            if (store.owner(slot) != QuantizedVectorStore.REMOVED) {
+                batch.add(slot);
+            }
+            if (batch.size() == SWEEP_BATCH || (slot == size - 1 && !batch.isEmpty())) {
+                removeMissing(current, batch);
+                batch.clear();
+            }
+        }
+        if (store.removed() > before) {
+            log.info("Removed {} vectors of deleted or archived messages", store.removed() - before);
+        }
+        if (store.removed() > 0 && store.removed() >= compactRatio * store.size()) {
+            compact();
+        }
+    }
+
+    private void removeMissing(Catalog current, List<Integer> batch) {
+        QuantizedVectorStore store = current.store();
+        List<UUID> ids = batch.stream().map(store::id).toList();
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        Set<UUID> live = new HashSet<>(jdbcTemplate.queryForList(LIVE.formatted(placeholders), UUID.class, ids.toArray()));
+        for (int i = 0; i < batch.size(); i++) {
+            if (!live.contains(ids.get(i))) {
+                int slot = batch.get(i);
+                HnswIndex index = current.indexes().get(store.owner(slot));
+                if (index != null) {
+                    index.remove(slot);
+                }
+                store.remove(slot);
+                current.slots().remove(ids.get(i));
+            }
+        }
+    }
+
+    // Rewrites the store without removed records; the new file replaces the old one atomically
+    private void compact() {
+        QuantizedVectorStore store = catalog.store();
+        long started = System.nanoTime();
+        QuantizedVectorStore compacted;
+        try {
+            if (storePath.isBlank()) {
+                compacted = QuantizedVectorStore.offHeap(embedder.id(), embedder.dimensions());
+                store.copyLiveTo(compacted);
+            } else {
+                Path path = Path.of(storePath);
+                Path next = compactionFile(path);
+                Files.deleteIfExists(next);
+                compacted = QuantizedVectorStore.open(next, embedder.id(), embedder.dimensions());
+                try {
+                    store.copyLiveTo(compacted);
+                    Files.move(next, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException | RuntimeException e) {
+                    compacted.close();
+                    Files.deleteIfExists(next);
+                    throw e;
+                }
+            }
+            catalog = load(compacted);
+            store.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot compact the vector store", e);
+        }
+        log.info("Compacted vector store from {} to {} records in {} ms", store.size(), compacted.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static Path compactionFile(Path path) {
+        return path.resolveSibling(path.getFileName() + ".compacting");
+    }
+
+    // Indexes matching messages created at or after {@code since}; returns the newest created_at seen
+    private LocalDateTime indexPages(String filter, List<Object> filterArgs, LocalDateTime since) {
+        String prefix = filter == null ? "" : filter + " AND ";
+        LocalDateTime lastCreatedAt = null;
+        UUID lastId = null;
+        while (true) {
+            List<Object> args = new ArrayList<>(filterArgs);
+            String condition;
+            if (lastId == null) {
+                condition = prefix + "m.created_at >= ?";
+                args.add(Timestamp.valueOf(since));
+            } else {
+                condition = prefix + "(m.created_at, m.id) > (?, ?)";
+                args.add(Timestamp.valueOf(lastCreatedAt));
+                args.add(lastId);
+            }
+            args.add(PAGE_SIZE);
+
+            List<Object[]> page = jdbcTemplate.query(PAGE.formatted(condition), (rs, i) -> new Object[]{
+                    rs.getObject("id", UUID.class), rs.getString("user_id"), rs.getString("message"),
+                    rs.getTimestamp("created_at").toLocalDateTime()}, args.toArray());
+            for (Object[] row : page) {
+                index((UUID) row[0], (String) row[1], (String) row[2]);
+            }
+            if (page.size() < PAGE_SIZE || Thread.currentThread().isInterrupted()) {
+                return page.isEmpty() ? lastCreatedAt : (LocalDateTime) page.get(page.size() - 1)[3];
+            }
+            Object[] last = page.get(page.size() - 1);
+            lastId = (UUID) last[0];
+            lastCreatedAt = (LocalDateTime) last[3];
+        }
+    }
+
+    private String userOf(UUID sessionId) {
+        return sessionOwners.get(sessionId, id -> {
+            try {
+                return jdbcTemplate.queryForObject(USER_OF_SESSION, String.class, id);
+            } catch (EmptyResultDataAccessException e) {
+                return null;
+            }
+        });
+    }
+
+    private boolean submit(Runnable task) {
+        try {
+            worker.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("Embedding task failed: {}", e.getMessage());
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+            return false;
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,223 @@
+package com.ragchat.chatservice.service;
+
+import com.ragchat.chatservice.dto.ApiResponseDTO;
+import com.ragchat.chatservice.dto.MessageSearchHitDTO;
+import com.ragchat.chatservice.dto.MessageSearchPageDTO;
+import com.ragchat.chatservice.dto.SearchCursor;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Searches a user's chat history, optionally within one session.
+ * <ul>
+ *   <li>On PostgreSQL, {@code chat_message.message_tsv} is a generated {@code tsvector} column with a
+ *       GIN index, created by migration V3. Hits are ranked with {@code ts_rank_cd}, and snippets come
+ *       from {@code ts_headline}, which runs only for the rows of the returned page.</li>
+ *   <li>On other databases (H2 in tests and local runs), or while the column is missing, every query
+ *       word must appear as a substring. Hits are returned newest first, with rank 0.</li>
+ * </ul>
+ * Pages are keyset-paginated on (rank, createdAt, id), so no page re-reads the hits before it. The
+ * rank is computed, not indexed, though: every page still ranks all of the user's matches, and its
+ * cost grows with the number of matches rather than with the page depth.
+ */
+@Service
+@DependsOn("entityManagerFactory") // the schema is migrated before the search column is looked up
+public class MessageSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageSearchService.class);
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_QUERY_LENGTH = 200;
+    private static final int MAX_TERMS = 10;
+    private static final int SNIPPET_LENGTH = 160;
+    private static final int SNIPPET_LEAD = 40;
+    private static final Pattern LANGUAGE = Pattern.compile("[a-z_]+");
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final String HEADLINE_OPTIONS =
+            "StartSel=<mark>, StopSel=</mark>, MaxWords=35, MinWords=15, MaxFragments=2, FragmentDelimiter=\" … \"";
+
+    private static final String HAS_SEARCH_COLUMN = """
+            SELECT EXISTS (SELECT 1 FROM information_schema.columns
+                           WHERE table_schema = current_schema() AND table_name = 'chat_message'
+                             AND column_name = 'message_tsv')""";
+
+    // The inner query ranks and limits; the outer one builds snippets for the page only
+    private static final String FULL_TEXT_SEARCH = """
+            SELECT hit.id, hit.session_id, hit.sender, hit.created_at, hit.rank,
+                   ts_headline('%1$s'::regconfig, hit.message, hit.query, ?) AS snippet
+            FROM (
+                SELECT ranked.*
+                FROM (
+                    SELECT m.id, m.session_id, m.sender, m.message, m.created_at, q.query,
+                           ts_rank_cd(m.message_tsv, q.query) AS rank
+                    FROM chat_message m
+                    JOIN chat_session s ON s.id = m.session_id
+                    CROSS JOIN websearch_to_tsquery('%1$s'::regconfig, ?) AS q(query)
+                    WHERE m.message_tsv @@ q.query
+                      AND s.user_id = ? AND s.deleted_at IS NULL%2$s
+                ) ranked%3$s
+                ORDER BY ranked.rank DESC, ranked.created_at DESC, ranked.id DESC
+                LIMIT ?
+            ) hit
+            ORDER BY hit.rank DESC, hit.created_at DESC, hit.id DESC""";
+    private static final String SUBSTRING_SEARCH = """
+            SELECT m.id, m.session_id, m.sender, m.created_at, m.message
+            FROM chat_message m
+            JOIN chat_session s ON s.id = m.session_id
+            WHERE s.user_id = ? AND s.deleted_at IS NULL%s
+            ORDER BY m.created_at DESC, m.id DESC
+            LIMIT ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${chat.search.language:english}")
+    private String language;
+
+    private boolean fullText;
+
+    public MessageSearchService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!LANGUAGE.matcher(language).matches()) {
+            throw new IllegalStateException("Invalid chat.search.language: " + language);
+        }
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            log.info("Message search uses substring matching on {}; full-text search needs PostgreSQL", database);
+            return;
+        }
+        fullText = Boolean.TRUE.equals(jdbcTemplate.queryForObject(HAS_SEARCH_COLUMN, Boolean.class));
+        if (!fullText) {
+            log.warn("chat_message.message_tsv is missing (migration V3 not applied); message search uses substring matching");
+            return;
+        }
+        log.info("Message search uses PostgreSQL full-text search ({})", language);
+    }
+
+    /**
+     * Returns one page of a user's messages matching {@code query}. With PostgreSQL the query
+     * accepts web search syntax: {@code "quoted phrases"}, {@code or} and {@code -excluded} words.
+     */
+    public ApiResponseDTO search(String userId, UUID sessionId, String query, String after, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query cannot be empty");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search query cannot exceed " + MAX_QUERY_LENGTH + " characters");
+        }
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        SearchCursor cursor = after != null ? SearchCursor.decode(after) : null;
+
+        // One extra row is fetched to detect whether another page exists
+        List<MessageSearchHitDTO> rows = fullText
+                ? fullTextSearch(userId, sessionId, query, cursor, limit + 1)
+                : substringSearch(userId, sessionId, query, cursor, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<MessageSearchHitDTO> hits = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? cursorOf(hits.get(hits.size() - 1)) : null;
+
+        log.debug("Search for user {} (session={}) returned {} hits", userId, sessionId, hits.size());
+        return new ApiResponseDTO(200, "Search completed successfully", new MessageSearchPageDTO(hits, nextCursor, hasMore));
+    }
+
+    private List<MessageSearchHitDTO> fullTextSearch(String userId, UUID sessionId, String query,
+                                                     SearchCursor cursor, int limit) {
+        List<Object> args = new ArrayList<>(List.of(HEADLINE_OPTIONS, query, userId));
+        String sessionFilter = "";
+        if (sessionId != null) {
+            sessionFilter = "\n          AND m.session_id = ?";
+            args.add(sessionId);
+        }
+        String keyset = "";
+        if (cursor != null) {
+            keyset = "\n    WHERE (ranked.rank, ranked.created_at, ranked.id) < (?, ?, ?)";
+            args.add(cursor.rank());
+            args.add(Timestamp.valueOf(cursor.createdAt()));
+            args.add(cursor.id());
+        }
+        args.add(limit);
+
+        String sql = FULL_TEXT_SEARCH.formatted(language, sessionFilter, keyset);
+        return jdbcTemplate.query(sql, (rs, i) -> hit(rs, rs.getString("snippet"), rs.getFloat("rank")), args.toArray());
+    }
+
+    private List<MessageSearchHitDTO> substringSearch(String userId, UUID sessionId, String query,
+                                                      SearchCursor cursor, int limit) {
+        List<String> terms = terms(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        List<Object> args = new ArrayList<>(List.of(userId));
+        StringBuilder filter = new StringBuilder();
+        if (sessionId != null) {
+            filter.append("\n  AND m.session_id = ?");
+            args.add(sessionId);
+        }
+        for (String term : terms) {
+            filter.append("\n  AND LOWER(m.message) LIKE ? ESCAPE '\\'");
+            args.add("%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
+        }
+        if (cursor != null) {
+            filter.append("\n  AND (m.created_at, m.id) < (?, ?)");
+            args.add(Timestamp.valueOf(cursor.createdAt()));
+            args.add(cursor.id());
+        }
+        args.add(limit);
+
+        String sql = SUBSTRING_SEARCH.formatted(filter);
+        return jdbcTemplate.query(sql, (rs, i) -> hit(rs, highlight(rs.getString("message"), terms), 0f), args.toArray());
+    }
+
+    private static MessageSearchHitDTO hit(ResultSet rs, String snippet, float rank) throws SQLException {
+        return new MessageSearchHitDTO(rs.getObject("id", UUID.class), rs.getObject("session_id", UUID.class),
+                rs.getString("sender"), snippet, rank, rs.getTimestamp("created_at").toLocalDateTime());
+    }
+
+    private static String cursorOf(MessageSearchHitDTO hit) {
+        return new SearchCursor(hit.getRank(), hit.getCreatedAt(), hit.getId()).encode();
+    }
+
+    static List<String> terms(String query) {
+        List<String> terms = new ArrayList<>();
+        Matcher words = WORD.matcher(query.toLowerCase(Locale.ROOT));
+        while (words.find() && terms.size() < MAX_TERMS) {
+            if (!terms.contains(words.group())) {
+                terms.add(words.group());
+            }
+        }
+        return terms;
+    }
+
+    // Substring fallback for ts_headline: an excerpt around the first match, with every match marked
+    static String highlight(String message, List<String> terms) {
+        String lower = message.toLowerCase(Locale.ROOT);
+        int first = terms.stream().mapToInt(lower::indexOf).filter(i -> i >= 0).min().orElse(0);
+        int start = Math.max(0, Math.min(first - SNIPPET_LEAD, message.length() - SNIPPET_LENGTH));
+        int end = Math.min(message.length(), start + SNIPPET_LENGTH);
+
+        Pattern matches = Pattern.compile(terms.stream().map(Pattern::quote).collect(Collectors.joining("|")),
+                Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        String excerpt = matches.matcher(message.substring(start, end)).replaceAll("<mark>$0</mark>");
+        return (start > 0 ? "… " : "") + excerpt + (end < message.length() ? " …" : "");
+    }
+}
@@ -0,0 +1,262 @@
+package com.ragchat.chatservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ragchat.chatservice.dto.MessageExportDTO;
+import com.ragchat.chatservice.exception.ResourceNotFoundException;
+import com.ragchat.chatservice.repository.ChatMessageRepository;
+import com.ragchat.chatservice.repository.ChatSessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Bulk import and export of messages as NDJSON (one {@link MessageExportDTO} per line).
+ * <ul>
+ *   <li>Import reads and validates the request body line by line into a temporary file, then
+ *       inserts it in JDBC batches of {@code batch-size} rows, all in one transaction: a bad
+ *       line rejects the whole file, before any row is written.</li>
+ *   <li>Export reads from a server-side cursor and writes each row as it arrives,
+ *       so memory use does not depend on the size of the history.</li>
+ * </ul>
+ */
+@Service
+public class MessageTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageTransferService.class);
+
+    private static final Set<String> SENDERS = Set.of("user", "assistant");
+    private static final int MAX_MESSAGE_LENGTH = 2000;
+    private static final String INSERT_SQL = """
+            INSERT INTO chat_message (id, session_id, sender, message, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final ChatSessionRepository chatSessionRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ConversationContextService conversationContextService;
+    private final ChatCacheInvalidator cacheInvalidator;
+    private final MessageRetrievalService messageRetrievalService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader lineReader;
+    private final ObjectWriter lineWriter;
+    private final Counter imported;
+    private final Counter exported;
+
+    @Value("${chat.transfer.batch-size:1000}")
+    private int batchSize;
+
+    public MessageTransferService(ChatSessionRepository chatSessionRepository,
+                                  ChatMessageRepository chatMessageRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  ConversationContextService conversationContextService,
+                                  ChatCacheInvalidator cacheInvalidator,
+                                  MessageRetrievalService messageRetrievalService,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.chatSessionRepository = chatSessionRepository;
+        this.chatMessageRepository = chatMessageRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.conversationContextService = conversationContextService;
+        this.cacheInvalidator = cacheInvalidator;
+        this.messageRetrievalService = messageRetrievalService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.lineReader = objectMapper.readerFor(MessageExportDTO.class);
+        // Let the response buffer decide when to send, instead of flushing every line
+        this.lineWriter = objectMapper.writerFor(MessageExportDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.imported = Counter.builder("chat.transfer.messages").tag("direction", "import")
+                .description("Messages moved by bulk import and export").register(meterRegistry);
+        this.exported = Counter.builder("chat.transfer.messages").tag("direction", "export")
+                .description("Messages moved by bulk import and export").register(meterRegistry);
+    }
+
+    /**
+     * Inserts every message of an NDJSON stream into a session and returns how many were
+     * stored. Messages without {@code createdAt} are stamped with the import time, one
+     * microsecond apart, so they keep the order of the file.
+     * <p>
+     * The upload is read and validated into a temporary file first, without a connection;
+     * only then is it inserted, in one transaction. A slow or large upload never holds a
+     * pooled connection, and an invalid line rejects the file before anything is written.
+     */
+    public long importMessages(UUID sessionId, InputStream ndjson) {
+        if (!chatSessionRepository.existsById(sessionId)) {
+            throw new ResourceNotFoundException("Session not found with id " + sessionId);
+        }
+
+        Path spool = null;
+        long count;
+        try {
+            spool = Files.createTempFile("chat-import-", ".ndjson");
+            LocalDateTime newest = spool(ndjson, spool);
+            Path validated = spool;
+            count = newest == null ? 0 : transactionTemplate.execute(status -> insert(sessionId, validated, newest));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteQuietly(spool);
+        }
+
+        // Imported history can be older than the cached window, so rebuild it from the database
+        conversationContextService.invalidate(sessionId);
+        cacheInvalidator.messagesChanged(sessionId);
+        messageRetrievalService.sessionChanged(sessionId);
+        imported.increment(count);
+        log.info("Imported {} messages into session {}", count, sessionId);
+        return count;
+    }
+
+    // Validates every line and writes it, with its final createdAt, to the spool; returns the newest createdAt
+    private LocalDateTime spool(InputStream ndjson, Path spool) throws IOException {
+        LocalDateTime importTime = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        long rows = 0;
+        LocalDateTime newest = null;
+        try (MappingIterator<MessageExportDTO> lines = lineReader.readValues(ndjson);
+             SequenceWriter out = lineWriter.writeValues(new BufferedOutputStream(Files.newOutputStream(spool)))) {
+            while (lines.hasNextValue()) {
+                int lineNumber = lines.getCurrentLocation().getLineNr();
+                MessageExportDTO line = lines.nextValue();
+                validate(line, lineNumber);
+
+                if (line.getCreatedAt() == null) {
+                    line.setCreatedAt(importTime.plus(rows, ChronoUnit.MICROS));
+                }
+                newest = newest == null || line.getCreatedAt().isAfter(newest) ? line.getCreatedAt() : newest;
+                out.write(line);
+                rows++;
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Line " + e.getLocation().getLineNr() + ": malformed JSON");
+        }
+        return newest;
+    }
+
+    // Inserts the spooled lines in JDBC batches of batch-size rows
+    private long insert(UUID sessionId, Path spool, LocalDateTime newest) {
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        long rows = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(spool));
+             MappingIterator<MessageExportDTO> lines = lineReader.readValues(in)) {
+            while (lines.hasNextValue()) {
+                MessageExportDTO line = lines.nextValue();
+                Timestamp timestamp = Timestamp.valueOf(line.getCreatedAt());
+                batch.add(new Object[]{UUID.randomUUID(), sessionId, line.getSender(), line.getMessage(),
+                        timestamp, timestamp});
+                rows++;
+                if (batch.size() == batchSize) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        }
+        // The session may have been soft-deleted since the import was validated
+        if (chatSessionRepository.touch(sessionId, newest) == 0) {
+            throw new ResourceNotFoundException("Session not found with id " + sessionId);
+        }
+        return rows;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import spool {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes all messages of a session to {@code out}, oldest first. Callers check that the
+     * session exists before the response is committed.
+     */
+    public void exportSession(UUID sessionId, OutputStream out) {
+        export(() -> chatMessageRepository.streamBySessionId(sessionId), out);
+    }
+
+    /**
+     * Writes all messages of all sessions of a user to {@code out}, grouped by session.
+     */
+    public void exportUser(String userId, OutputStream out) {
+        export(() -> chatMessageRepository.streamByUserId(userId), out);
+    }
+
+    private void export(Supplier<Stream<MessageExportDTO>> query, OutputStream out) {
+        long count = readOnlyTransactionTemplate.execute(status -> {
+            long rows = 0;
+            try (Stream<MessageExportDTO> messages = query.get();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                // The servlet container owns the response stream; lines are separated by newlines only
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                for (MessageExportDTO message : (Iterable<MessageExportDTO>) messages::iterator) {
+                    lineWriter.writeValue(generator, message);
+                    generator.writeRaw('\n');
+                    rows++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return rows;
+        });
+        exported.increment(count);
+        log.debug("Exported {} messages", count);
+    }
+
+    private static void validate(MessageExportDTO line, int lineNumber) {
+        if (line.getSender() == null || !SENDERS.contains(line.getSender())) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": sender must be either 'user' or 'assistant'");
+        }
+        if (line.getMessage() == null || line.getMessage().isBlank()) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": message content cannot be empty");
+        }
+        if (line.getMessage().length() > MAX_MESSAGE_LENGTH) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": message cannot exceed "
+                    + MAX_MESSAGE_LENGTH + " characters");
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.ragchat.chatservice.service;
+
+import com.ragchat.chatservice.dto.groq.GroqChatRequest;
+import com.ragchat.chatservice.dto.groq.GroqMessage;
+import com.ragchat.chatservice.embedding.HashedNgramEmbedder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight de-duplication of Groq calls: while a request is in flight, identical
+ * requests (same model, parameters and normalized messages) wait for its result instead
+ * of calling Groq again. The first caller (the leader) makes the call; its response or
+ * exception is handed to every caller that joined in the meantime. Nothing is kept once
+ * the call completes — repeated prompts over time are the response cache's job.
+ * <p>
+ * The in-flight table holds at most {@code max-in-flight} keys; beyond that, requests
+ * call Groq directly.
+ */
+@Service
+public class RequestCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${chat.ai.coalescing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat.ai.coalescing.max-in-flight:1000}")
+    private int maxInFlight;
+
+    private Counter leaders;
+    private Counter coalesced;
+    private Counter bypassed;
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        leaders = requests("leader", "Groq calls made on behalf of one or more identical requests");
+        coalesced = requests("coalesced", "Requests that shared an identical in-flight Groq call");
+        bypassed = requests("bypassed", "Requests that called Groq directly because the in-flight table was full");
+        Gauge.builder("groq.requests.inflight", inFlight, Map::size)
+                .description("Distinct Groq requests currently in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a blocking call, or waits for the identical call already in flight.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(GroqChatRequest request, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        String key = key(request);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = join(key, flight);
+        if (existing == flight) {
+            leaders.increment();
+            try {
+                T result = call.get();
+                flight.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        }
+        if (existing == null) {
+            return call.get();
+        }
+        return (T) await(existing);
+    }
+
+    /**
+     * Non-blocking variant of {@link #execute}: subscribers of an identical in-flight call
+     * receive its signal instead of subscribing to {@code call}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> executeAsync(GroqChatRequest request, Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+        return Mono.defer(() -> {
+            String key = key(request);
+            CompletableFuture<Object> flight = new CompletableFuture<>();
+            CompletableFuture<Object> existing = join(key, flight);
+            if (existing == flight) {
+                leaders.increment();
+                return Mono.defer(call)
+                        .doOnSuccess(flight::complete)
+                        .doOnError(flight::completeExceptionally)
+                        // A cancelled leader must not leave joiners waiting forever
+                        .doOnCancel(() -> flight.cancel(false))
+                        .doFinally(signal -> inFlight.remove(key, flight));
+            }
+            if (existing == null) {
+                return call.get();
+            }
+            return Mono.fromFuture(existing, true).map(result -> (T) result);
+        });
+    }
+
+    /**
+     * Registers {@code flight} under {@code key} and returns it if the caller leads; returns
+     * the in-flight future to wait for, or null if the table is full.
+     */
+    private CompletableFuture<Object> join(String key, CompletableFuture<Object> flight) {
+        CompletableFuture<Object> existing = inFlight.get(key);
+        if (existing == null) {
+            if (inFlight.size() >= maxInFlight) {
+                bypassed.increment();
+                return null;
+            }
+            existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                return flight;
+            }
+        }
+        coalesced.increment();
+        log.debug("Coalesced Groq request onto in-flight call {}", key);
+        return existing;
+    }
+
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for coalesced Groq call", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * SHA-256 over the model, the parameters and the messages, with each message's content normalized.
+     */
+    static String key(GroqChatRequest request) {
+        MessageDigest digest = sha256();
+        update(digest, request.model());
+        update(digest, Double.toString(request.temperature()));
+        update(digest, String.valueOf(request.stream()));
+        for (GroqMessage message : request.messages()) {
+            update(digest, message.role());
+            update(digest, HashedNgramEmbedder.normalize(message.content()));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private Counter requests(String role, String description) {
+        return Counter.builder("groq.requests.coalescing").tag("role", role)
+                .description(description).register(meterRegistry);
+    }
+
+    private static void update(MessageDigest digest, String part) {
+        digest.update(part.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.ragchat.chatservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ragchat.chatservice.embedding.HashedNgramEmbedder;
+import com.ragchat.chatservice.embedding.LshIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Caches Groq replies by prompt, so repeated questions skip the API call.
+ * <p>
+ * A prompt is the conversation sent to Groq; its last message must be from the user.
+ * Lookups first try an exact match on a hash of the normalized prompt (case, punctuation and
+ * whitespace folded). Failing that, prompts with an identical history (every message but the
+ * last, which for a first question is empty) are searched for a question whose hashed n-gram
+ * embedding is at least {@code similarity-threshold} cosine-similar, via an in-memory LSH index.
+ * Only the latest question is ever matched approximately; earlier turns must be equal.
+ * <p>
+ * Replies are stored by AIResponseService when Groq returns a completion, never for errors
+ * or fallbacks. Entries expire after {@code ttl}.
+ */
+@Service
+public class SemanticResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticResponseCache.class);
+
+    private static final int DIMENSIONS = 1024;
+    // 12 tables of 8 hyperplanes find a neighbour at cosine 0.9 with ~98% probability
+    private static final int LSH_TABLES = 12;
+    private static final int LSH_BITS = 8;
+
+    private final MeterRegistry meterRegistry;
+    private final HashedNgramEmbedder embedder = new HashedNgramEmbedder(DIMENSIONS);
+
+    @Value("${chat.response-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chat.response-cache.similarity-threshold:0.9}")
+    private double similarityThreshold;
+
+    @Value("${chat.response-cache.ttl:1h}")
+    private Duration ttl;
+
+    @Value("${chat.response-cache.max-entries:10000}")
+    private long maxEntries;
+
+    private Cache<String, Entry> entries;
+    private LshIndex index;
+    private Counter exactHits;
+    private Counter semanticHits;
+    private Counter misses;
+    private DistributionSummary similarity;
+
+    public SemanticResponseCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        index = new LshIndex(DIMENSIONS, LSH_TABLES, LSH_BITS, 42);
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                // Runs atomically with size and expiry evictions, keeping the index in step
+                .<String, Entry>evictionListener((key, entry, cause) ->
+                        index.remove(key, entry.context(), entry.signatures()))
+                .build();
+
+        exactHits = lookups("exact", "Prompts answered from an identical cached prompt");
+        semanticHits = lookups("semantic", "Prompts answered from a similar cached prompt");
+        misses = lookups("miss", "Prompts that had to be sent to Groq");
+        similarity = DistributionSummary.builder("chat.response.cache.similarity")
+                .description("Cosine similarity of semantic cache hits")
+                .register(meterRegistry);
+        Gauge.builder("chat.response.cache.entries", entries, Cache::estimatedSize)
+                .description("Cached Groq replies")
+                .register(meterRegistry);
+        Gauge.builder("chat.response.cache.hit.ratio", this, SemanticResponseCache::hitRatio)
+                .description("Share of lookups answered from the cache")
+                .register(meterRegistry);
+
+        if (enabled) {
+            log.info("Response cache: up to {} replies for {}, similarity threshold {}",
+                    maxEntries, ttl, similarityThreshold);
+        }
+    }
+
+    /**
+     * Returns a cached reply for this prompt, or empty if Groq must be asked.
+     */
+    public Optional<String> lookup(List<Map<String, Object>> messages) {
+        Prompt prompt = prompt(messages);
+        if (prompt == null) {
+            return Optional.empty();
+        }
+
+        Entry exact = entries.getIfPresent(prompt.key());
+        if (exact != null) {
+            exactHits.increment();
+            return Optional.of(exact.response());
+        }
+
+        Entry best = null;
+        float bestSimilarity = (float) similarityThreshold;
+        for (String candidate : index.candidates(prompt.context(), prompt.signatures())) {
+            Entry entry = entries.getIfPresent(candidate);
+            if (entry == null) {
+                continue;
+            }
+            float score = HashedNgramEmbedder.cosine(prompt.vector(), entry.vector());
+            if (score >= bestSimilarity) {
+                best = entry;
+                bestSimilarity = score;
+            }
+        }
+        if (best == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        semanticHits.increment();
+        similarity.record(bestSimilarity);
+        return Optional.of(best.response());
+    }
+
+    /**
+     * Caches Groq's reply to this prompt.
+     */
+    public void store(List<Map<String, Object>> messages, String response) {
+        Prompt prompt = prompt(messages);
+        if (prompt == null || response == null || response.isBlank()) {
+            return;
+        }
+        entries.put(prompt.key(), new Entry(response, prompt.context(), prompt.vector(), prompt.signatures()));
+        index.add(prompt.key(), prompt.context(), prompt.signatures());
+    }
+
+    private double hitRatio() {
+        double hits = exactHits.count() + semanticHits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private Counter lookups(String result, String description) {
+        return Counter.builder("chat.response.cache.lookups").tag("result", result)
+                .description(description).register(meterRegistry);
+    }
+
+    /**
+     * Normalizes and hashes a prompt; null if caching is off or the prompt is not a user question.
+     */
+    private Prompt prompt(List<Map<String, Object>> messages) {
+        if (!enabled || messages == null || messages.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> last = messages.get(messages.size() - 1);
+        if (!"user".equals(last.get("role")) || last.get("content") == null) {
+            return null;
+        }
+
+        MessageDigest digest = sha256();
+        for (Map<String, Object> message : messages.subList(0, messages.size() - 1)) {
+            update(digest, message.get("role") + "\u0000" +
+                    HashedNgramEmbedder.normalize(String.valueOf(message.get("content"))));
+        }
+        byte[] history = digest.digest();
+        String question = HashedNgramEmbedder.normalize(last.get("content").toString());
+
+        digest.update(history);
+        update(digest, question);
+        String key = HexFormat.of().formatHex(digest.digest());
+
+        float[] vector = embedder.embed(question);
+        return new Prompt(key, ByteBuffer.wrap(history).getLong(), vector, index.signatures(vector));
+    }
+
+    private static void update(MessageDigest digest, String part) {
+        digest.update(part.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 1);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Prompt(String key, long context, float[] vector, int[] signatures) {}
+
+    private record Entry(String response, long context, float[] vector, int[] signatures) {}
+}
@@ -0,0 +1,179 @@
+package com.ragchat.chatservice.service;
+
+import com.ragchat.chatservice.repository.ChatMessageRepository;
+import com.ragchat.chatservice.repository.ChatSessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes soft-deleted sessions. Deleting a session only sets its {@code deleted_at}, which
+ * hides it from reads; a single worker thread then deletes its messages in bulk statements of
+ * at most {@code batch-size} rows, one short transaction each, pausing {@code batch-pause}
+ * between them, and finally the session row itself.
+ * <p>
+ * Every {@code sweep-interval}, and once at startup, sessions still marked deleted are queued
+ * again, so a purge interrupted by a restart or a failure is finished later.
+ */
+@Service
+public class SessionPurgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionPurgeService.class);
+
+    private static final int SWEEP_LIMIT = 1000;
+
+    private final ChatSessionRepository chatSessionRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.purge.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${chat.purge.batch-pause:50ms}")
+    private Duration batchPause;
+
+    @Value("${chat.purge.sweep-interval:5m}")
+    private Duration sweepInterval;
+
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService worker;
+
+    private Counter purgedMessages;
+    private Counter purgedSessions;
+    private Counter failures;
+    private Timer batchTimer;
+
+    public SessionPurgeService(ChatSessionRepository chatSessionRepository,
+                               ChatMessageRepository chatMessageRepository,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.chatSessionRepository = chatSessionRepository;
+        this.chatMessageRepository = chatMessageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("chat.purge.pending", pending, Set::size)
+                .description("Deleted sessions waiting to be purged").register(meterRegistry);
+        purgedMessages = Counter.builder("chat.purge.messages")
+                .description("Messages removed from deleted sessions").register(meterRegistry);
+        purgedSessions = Counter.builder("chat.purge.sessions")
+                .description("Deleted sessions fully purged").register(meterRegistry);
+        failures = Counter.builder("chat.purge.failures")
+                .description("Purges abandoned after an error; retried by the next sweep").register(meterRegistry);
+        batchTimer = Timer.builder("chat.purge.batch")
+                .description("Time to delete one batch of messages").register(meterRegistry);
+
+        worker.scheduleWithFixedDelay(this::sweep, 0, sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Session purge enabled: batchSize={}, batchPause={}, sweepInterval={}",
+                batchSize, batchPause, sweepInterval);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (worker == null) {
+            return;
+        }
+        worker.shutdownNow();
+        worker.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues the purge of a soft-deleted session. Inside a transaction this is deferred until
+     * commit, so a rolled-back delete purges nothing.
+     */
+    public void purgeAfterCommit(UUID sessionId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule(sessionId);
+                }
+            });
+        } else {
+            schedule(sessionId);
+        }
+    }
+
+    private void schedule(UUID sessionId) {
+        if (!pending.add(sessionId)) {
+            return;
+        }
+        try {
+            worker.execute(() -> purge(sessionId));
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the next sweep after restart picks the session up
+            pending.remove(sessionId);
+        }
+    }
+
+    private void sweep() {
+        try {
+            chatSessionRepository.findDeletedIds(SWEEP_LIMIT).forEach(this::schedule);
+        } catch (RuntimeException e) {
+            log.warn("Failed to look up deleted sessions: {}", e.getMessage());
+        }
+    }
+
+    private void purge(UUID sessionId) {
+        long total = 0;
+        try {
+            int deleted;
+            do {
+                deleted = batchTimer.record(() -> transactionTemplate.execute(
+                        status -> chatMessageRepository.deleteBatchBySessionId(sessionId, batchSize)));
+                purgedMessages.increment(deleted);
+                total += deleted;
+                if (deleted == batchSize && !batchPause.isZero()) {
+                    Thread.sleep(batchPause.toMillis());
+                }
+            } while (deleted == batchSize);
+
+            // Together, so messages written after the last batch cannot block the session delete
+            int remaining = transactionTemplate.execute(status -> {
+                int removed = chatMessageRepository.deleteBySessionId(sessionId);
+                chatSessionRepository.purgeDeleted(sessionId);
+                return removed;
+            });
+            purgedMessages.increment(remaining);
+            purgedSessions.increment();
+            log.info("Purged deleted session {} ({} messages)", sessionId, total + remaining);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Purge of session {} stopped after {} messages, will retry: {}", sessionId, total, e.getMessage());
+        } finally {
+            pending.remove(sessionId);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.ragchat.chatservice.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One span per repository call, as a child of the current span; calls outside a trace
+ * are not traced. Spans are named after the repository interface, e.g.
+ * {@code ChatSessionRepository.findById}.
+ */
+@Aspect
+@Component
+public class RepositoryTracingAspect {
+
+    private final Tracer tracer;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public RepositoryTracingAspect(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object traceRepositoryCall(ProceedingJoinPoint call) throws Throwable {
+        if (tracer.currentSpan() == null) {
+            return call.proceed();
+        }
+        String repository = repositoryNames.computeIfAbsent(call.getTarget().getClass(), type -> {
+            Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(call.getTarget());
+            return interfaces.length > 0 ? interfaces[0].getSimpleName() : type.getSimpleName();
+        });
+        String method = call.getSignature().getName();
+
+        Span span = tracer.nextSpan()
+                .name(repository + "." + method)
+                .tag("repository", repository)
+                .tag("method", method)
+                .start();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            return call.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
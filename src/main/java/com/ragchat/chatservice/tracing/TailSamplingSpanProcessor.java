@@ -0,0 +1,146 @@
+package com.ragchat.chatservice.tracing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ragchat.chatservice.config.ChatTracingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Holds the ended spans of each trace until its local root span ends, then passes the whole
+ * trace to {@code delegate} if it is worth keeping: the root took at least
+ * {@code slow-threshold}, any span failed, or it won the {@code sample-rate} draw.
+ * <p>
+ * A span failed if its status is ERROR or its {@code outcome} attribute says so, which covers
+ * both exceptions and 5xx responses of the HTTP server span. Spans of traces whose root never
+ * ends locally are dropped after {@code pending-timeout}.
+ */
+public class TailSamplingSpanProcessor implements SpanProcessor {
+
+    private static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("outcome");
+    // chat.turn spans use "error", HTTP server spans "SERVER_ERROR"
+    private static final Set<String> FAILED_OUTCOMES = Set.of("error", "SERVER_ERROR");
+
+    private final SpanProcessor delegate;
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+    private final int maxSpansPerTrace;
+    private final Cache<String, List<ReadableSpan>> pending;
+
+    private final Counter keptSlow;
+    private final Counter keptError;
+    private final Counter keptSampled;
+    private final Counter dropped;
+
+    public TailSamplingSpanProcessor(SpanProcessor delegate, ChatTracingProperties properties, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.slowThresholdNanos = properties.getSlowThreshold().toNanos();
+        this.sampleRate = properties.getSampleRate();
+        this.maxSpansPerTrace = properties.getMaxSpansPerTrace();
+        this.pending = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxPendingTraces())
+                .expireAfterWrite(properties.getPendingTimeout())
+                .build();
+
+        this.keptSlow = decisions(meterRegistry, "slow");
+        this.keptError = decisions(meterRegistry, "error");
+        this.keptSampled = decisions(meterRegistry, "sampled");
+        this.dropped = decisions(meterRegistry, "dropped");
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+        delegate.onStart(parentContext, span);
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return delegate.isStartRequired();
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        SpanContext spanContext = span.getSpanContext();
+        if (!spanContext.isSampled()) {
+            return;
+        }
+        String traceId = spanContext.getTraceId();
+        SpanContext parent = span.getParentSpanContext();
+        if (parent.isValid() && !parent.isRemote()) {
+            pending.asMap().compute(traceId, (id, spans) -> {
+                List<ReadableSpan> trace = spans != null ? spans : new ArrayList<>();
+                if (trace.size() < maxSpansPerTrace) {
+                    trace.add(span);
+                }
+                return trace;
+            });
+            return;
+        }
+
+        // Local root: the trace is complete on this service
+        List<ReadableSpan> trace = pending.asMap().remove(traceId);
+        Counter decision = decide(span, trace);
+        decision.increment();
+        if (decision == dropped) {
+            return;
+        }
+        if (trace != null) {
+            trace.forEach(delegate::onEnd);
+        }
+        delegate.onEnd(span);
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        pending.invalidateAll();
+        return delegate.shutdown();
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return delegate.forceFlush();
+    }
+
+    private Counter decide(ReadableSpan root, List<ReadableSpan> trace) {
+        if (failed(root) || (trace != null && trace.stream().anyMatch(TailSamplingSpanProcessor::failed))) {
+            return keptError;
+        }
+        if (root.getLatencyNanos() >= slowThresholdNanos) {
+            return keptSlow;
+        }
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            return keptSampled;
+        }
+        return dropped;
+    }
+
+    private static boolean failed(ReadableSpan span) {
+        String outcome = span.getAttribute(OUTCOME);
+        return (outcome != null && FAILED_OUTCOMES.contains(outcome))
+                || span.toSpanData().getStatus().getStatusCode() == StatusCode.ERROR;
+    }
+
+    private static Counter decisions(MeterRegistry meterRegistry, String decision) {
+        return Counter.builder("tracing.tail.sampling").tag("decision", decision)
+                .description("Traces kept or dropped by the tail sampler")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,30 @@
+-- The schema Hibernate's ddl-auto created until now. Everything is IF NOT EXISTS, so an
+-- existing database adopts it unchanged and a new one gets the same tables.
+CREATE TABLE IF NOT EXISTS chat_session (
+    id         UUID         NOT NULL PRIMARY KEY,
+    user_id    VARCHAR(255) NOT NULL,
+    name       VARCHAR(255),
+    favorite   BOOLEAN      NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    deleted_at TIMESTAMP(6)
+);
+
+ALTER TABLE chat_session ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP(6);
+
+-- Superseded by idx_chat_session_user_listing; ddl-auto never drops indexes
+DROP INDEX IF EXISTS idx_chat_session_user_id;
+CREATE INDEX IF NOT EXISTS idx_chat_session_user_listing ON chat_session (user_id, favorite, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_chat_session_deleted_at ON chat_session (deleted_at);
+
+CREATE TABLE IF NOT EXISTS chat_message (
+    id         UUID         NOT NULL PRIMARY KEY,
+    sender     VARCHAR(255) NOT NULL,
+    message    TEXT         NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    session_id UUID         NOT NULL REFERENCES chat_session (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_chat_message_session_created_id ON chat_message (session_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_chat_message_created_id ON chat_message (created_at, id);
@@ -0,0 +1,55 @@
+-- Range-partitions chat_message by month of created_at. No rows are copied: the existing
+-- table becomes the partition chat_message_legacy, covering everything before the start of
+-- next month. MessagePartitionService adds the monthly partitions after it and archives
+-- partitions once they are older than chat.partitioning.hot-months.
+DO $$
+DECLARE
+    legacy_bound TIMESTAMP := date_trunc('month', LOCALTIMESTAMP) + INTERVAL '1 month';
+    pkey         TEXT;
+    tsv          TEXT;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = 'chat_message'::regclass) = 'p' THEN
+        RETURN;
+    END IF;
+
+    -- Free the names of the table, its key and its indexes for the partitioned table
+    ALTER TABLE chat_message RENAME TO chat_message_legacy;
+    SELECT conname INTO pkey FROM pg_constraint
+    WHERE conrelid = 'chat_message_legacy'::regclass AND contype = 'p';
+    EXECUTE format('ALTER TABLE chat_message_legacy RENAME CONSTRAINT %I TO chat_message_legacy_pkey', pkey);
+    ALTER INDEX IF EXISTS idx_chat_message_session_created_id RENAME TO chat_message_legacy_session_created_id;
+    ALTER INDEX IF EXISTS idx_chat_message_created_id RENAME TO chat_message_legacy_created_id;
+    ALTER INDEX IF EXISTS idx_chat_message_tsv RENAME TO chat_message_legacy_tsv;
+
+    -- The primary key of a partitioned table must include the partition key
+    CREATE TABLE chat_message (
+        id         UUID         NOT NULL,
+        sender     VARCHAR(255) NOT NULL,
+        message    TEXT         NOT NULL,
+        created_at TIMESTAMP(6) NOT NULL,
+        updated_at TIMESTAMP(6) NOT NULL,
+        session_id UUID         NOT NULL REFERENCES chat_session (id),
+        PRIMARY KEY (id, created_at)
+    ) PARTITION BY RANGE (created_at);
+
+    -- The full-text column of MessageSearchService, if it was added, with the same expression
+    SELECT pg_get_expr(d.adbin, d.adrelid) INTO tsv
+    FROM pg_attribute a
+    JOIN pg_attrdef d ON d.adrelid = a.attrelid AND d.adnum = a.attnum
+    WHERE a.attrelid = 'chat_message_legacy'::regclass AND a.attname = 'message_tsv' AND NOT a.attisdropped;
+    IF tsv IS NOT NULL THEN
+        EXECUTE format('ALTER TABLE chat_message ADD COLUMN message_tsv tsvector GENERATED ALWAYS AS (%s) STORED', tsv);
+        CREATE INDEX idx_chat_message_tsv ON chat_message USING GIN (message_tsv);
+    END IF;
+
+    CREATE INDEX idx_chat_message_session_created_id ON chat_message (session_id, created_at, id);
+    CREATE INDEX idx_chat_message_created_id ON chat_message (created_at, id);
+
+    -- Scans the legacy rows once to check the bound and builds their (id, created_at) key;
+    -- the existing indexes and foreign key are reused as partitions of the new ones
+    EXECUTE format('ALTER TABLE chat_message ATTACH PARTITION chat_message_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+                   legacy_bound);
+
+    -- Takes rows no monthly partition covers, e.g. while maintenance is behind
+    CREATE TABLE chat_message_default PARTITION OF chat_message DEFAULT;
+END $$;
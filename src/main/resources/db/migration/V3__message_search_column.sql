@@ -0,0 +1,17 @@
+-- Full-text search column and GIN index of MessageSearchService. Adding a stored generated
+-- column rewrites chat_message under an exclusive lock, once; on a large table apply this
+-- version in a maintenance window. ${search_language} is chat.search.language at the time
+-- the column is created.
+DO $$
+BEGIN
+    -- An index left INVALID by an interrupted CREATE INDEX CONCURRENTLY would satisfy IF NOT EXISTS below
+    IF EXISTS (SELECT 1 FROM pg_index WHERE indexrelid = to_regclass('idx_chat_message_tsv') AND NOT indisvalid) THEN
+        DROP INDEX idx_chat_message_tsv;
+    END IF;
+END $$;
+
+ALTER TABLE chat_message ADD COLUMN IF NOT EXISTS message_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('${search_language}'::regconfig, message)) STORED;
+
+-- Inside the migration transaction: a failure rolls back and leaves no index behind
+CREATE INDEX IF NOT EXISTS idx_chat_message_tsv ON chat_message USING GIN (message_tsv);
@@ -0,0 +1,7 @@
+-- Token buckets of PostgresRateLimiterBackend (rate-limit.backend=postgres), one row per key.
+-- IF NOT EXISTS: earlier versions of the backend created the table at startup.
+CREATE TABLE IF NOT EXISTS rate_limit_bucket (
+    bucket_key   VARCHAR(255) PRIMARY KEY,
+    window_start BIGINT       NOT NULL,
+    remaining    INTEGER      NOT NULL
+);
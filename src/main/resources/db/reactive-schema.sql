@@ -0,0 +1,30 @@
+-- Tables of the reactive runtime. The schema is owned by the versioned migrations in
+-- db/migration, which the servlet runtime applies; on a migrated database every statement
+-- here is a no-op. A fresh database gets the tables in their migrated shape, except that
+-- chat_message is not partitioned: V2 does that once a servlet replica migrates it.
+-- Keep in sync with the migrations.
+CREATE TABLE IF NOT EXISTS chat_session (
+    id         UUID         NOT NULL PRIMARY KEY,
+    user_id    VARCHAR(255) NOT NULL,
+    name       VARCHAR(255),
+    favorite   BOOLEAN      NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    deleted_at TIMESTAMP(6)
+);
+
+CREATE INDEX IF NOT EXISTS idx_chat_session_user_listing ON chat_session (user_id, favorite, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_chat_session_deleted_at ON chat_session (deleted_at);
+
+CREATE TABLE IF NOT EXISTS chat_message (
+    id         UUID         NOT NULL,
+    sender     VARCHAR(255) NOT NULL,
+    message    TEXT         NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    session_id UUID         NOT NULL REFERENCES chat_session (id),
+    PRIMARY KEY (id, created_at)
+);
+
+CREATE INDEX IF NOT EXISTS idx_chat_message_session_created_id ON chat_message (session_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_chat_message_created_id ON chat_message (created_at, id);
@@ -0,0 +1,100 @@
+package com.ragchat.chatservice.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ragchat.chatservice.dto.MessageExportDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MessageArchiveTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusMonths(1);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReadsEachSessionWithSkipAndLimit() throws IOException {
+        List<UUID> sessions = new ArrayList<>(List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()));
+        sessions.sort(MessageArchive.SESSION_ORDER);
+        UUID missing = UUID.randomUUID();
+
+        MessageArchive archive;
+        try (MessageArchive.Writer writer = MessageArchive.create(dir, "chat_message_p202501", FROM, TO, objectMapper)) {
+            for (int s = 0; s < sessions.size(); s++) {
+                for (int i = 0; i < 10 * (s + 1); i++) {
+                    writer.write(message(sessions.get(s), "message " + i, i));
+                }
+            }
+            assertEquals(60, writer.messages());
+            archive = writer.commit();
+        }
+
+        try (archive) {
+            assertEquals(3, archive.sessions());
+            assertEquals(FROM, archive.from());
+            assertEquals(TO, archive.to());
+            assertEquals(20, archive.count(sessions.get(1)));
+            assertEquals(0, archive.count(missing));
+
+            List<MessageExportDTO> page = archive.read(sessions.get(2), 5, 3);
+            assertEquals(List.of("message 5", "message 6", "message 7"),
+                    page.stream().map(MessageExportDTO::getMessage).toList());
+            assertEquals(FROM.plusMinutes(5), page.get(0).getCreatedAt());
+            assertEquals(2, archive.read(sessions.get(0), 8, 5).size());
+            assertTrue(archive.read(missing, 0, 5).isEmpty());
+        }
+
+        // Reopened from disk, with no temporary files left behind
+        try (MessageArchive reopened = MessageArchive.open(dir, "chat_message_p202501", objectMapper);
+             Stream<Path> files = Files.list(dir)) {
+            assertEquals(30, reopened.count(sessions.get(2)));
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void testUnboundedRangeAndEmptyArchive() throws IOException {
+        try (MessageArchive.Writer writer = MessageArchive.create(dir, "chat_message_legacy", null, TO, objectMapper);
+             MessageArchive archive = writer.commit()) {
+            assertNull(archive.from());
+            assertEquals(TO, archive.to());
+            assertEquals(0, archive.sessions());
+        }
+    }
+
+    @Test
+    void testRejectsSessionsOutOfOrderAndDiscardsUncommitted() throws IOException {
+        UUID low = new UUID(0x1000L, 0);
+        UUID high = new UUID(0xF000_0000_0000_0000L, 0); // negative as a long, but sorts after low
+
+        try (MessageArchive.Writer writer = MessageArchive.create(dir, "broken", FROM, TO, objectMapper)) {
+            writer.write(message(high, "later", 0));
+            assertThrows(IllegalArgumentException.class, () -> writer.write(message(low, "earlier", 1)));
+        }
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static MessageExportDTO message(UUID sessionId, String text, int minute) {
+        return new MessageExportDTO(UUID.randomUUID(), sessionId, "user", text, FROM.plusMinutes(minute));
+    }
+}
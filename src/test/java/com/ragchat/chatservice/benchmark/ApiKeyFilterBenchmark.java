@@ -0,0 +1,52 @@
+package com.ragchat.chatservice.benchmark;
+
+import com.ragchat.chatservice.config.ApiKeyFilter;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ApiKeyFilter key lookup for a valid key as the number of configured keys grows.
+ * The valid key is the last one configured (worst case for a linear scan).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ApiKeyFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"3", "100", "1000"})
+    public int configuredKeys;
+
+    private ApiKeyFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() {
+        List<String> keys = new ArrayList<>(configuredKeys);
+        for (int i = 0; i < configuredKeys; i++) {
+            keys.add("secret-key-" + i);
+        }
+        filter = new ApiKeyFilter();
+        filter.setKeys(keys);
+
+        request = new MockHttpServletRequest("GET", "/api/chat/session/abc");
+        request.addHeader("X-API-KEY", keys.get(keys.size() - 1));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public void validKey() throws Exception {
+        filter.doFilter(request, response, NO_OP_CHAIN);
+    }
+}
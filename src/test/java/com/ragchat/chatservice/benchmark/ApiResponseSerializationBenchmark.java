@@ -0,0 +1,72 @@
+package com.ragchat.chatservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ragchat.chatservice.dto.ApiResponseDTO;
+import com.ragchat.chatservice.dto.ChatSessionDTO;
+import com.ragchat.chatservice.dto.MessageDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of ApiResponseDTO pages as returned by the message and session endpoints,
+ * using an ObjectMapper configured like Spring Boot's (JavaTimeModule, ISO dates).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiResponseSerializationBenchmark {
+
+    @Param({"10", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ApiResponseDTO messagePage;
+    private ApiResponseDTO sessionPage;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        List<MessageDTO> messages = new ArrayList<>(pageSize);
+        List<ChatSessionDTO> sessions = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            MessageDTO message = new MessageDTO();
+            message.setId(UUID.randomUUID());
+            message.setSender(i % 2 == 0 ? "user" : "assistant");
+            message.setMessage("RTGS (Real-Time Gross Settlement) enables instant fund transfers between banks. #" + i);
+            messages.add(message);
+
+            ChatSessionDTO session = new ChatSessionDTO();
+            session.setId(UUID.randomUUID());
+            session.setUserId("123451");
+            session.setName("Support Chat " + i);
+            session.setCreatedAt(LocalDateTime.now());
+            session.setUpdatedAt(LocalDateTime.now());
+            sessions.add(session);
+        }
+        messagePage = new ApiResponseDTO(200, "Messages retrieved successfully", messages);
+        sessionPage = new ApiResponseDTO(200, "Sessions fetched successfully", sessions);
+    }
+
+    @Benchmark
+    public byte[] messagePage() throws Exception {
+        return objectMapper.writeValueAsBytes(messagePage);
+    }
+
+    @Benchmark
+    public byte[] sessionPage() throws Exception {
+        return objectMapper.writeValueAsBytes(sessionPage);
+    }
+}
@@ -0,0 +1,150 @@
+package com.ragchat.chatservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ragchat.chatservice.config.CacheConfig;
+import com.ragchat.chatservice.config.ChatCacheProperties;
+import com.ragchat.chatservice.dto.ApiResponseDTO;
+import com.ragchat.chatservice.dto.ChatSessionDTO;
+import com.ragchat.chatservice.mapper.ChatMapper;
+import com.ragchat.chatservice.model.ChatMessage;
+import com.ragchat.chatservice.model.ChatSession;
+import com.ragchat.chatservice.repository.ChatMessageRepository;
+import com.ragchat.chatservice.repository.ChatSessionRepository;
+import com.ragchat.chatservice.service.ChatCacheInvalidator;
+import com.ragchat.chatservice.service.ChatService;
+import com.ragchat.chatservice.service.ConversationContextService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cache-hit paths of ChatService through the Spring caching proxy, with the application's
+ * cache configuration (CacheConfig). The repositories are mocks and every call after setup is a hit,
+ * so the score is proxy + key evaluation + Caffeine lookup overhead.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatServiceCacheBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+    private ChatService chatService;
+    private UUID sessionId;
+
+    @Setup
+    public void setup() {
+        context = new AnnotationConfigApplicationContext(CachingConfig.class);
+        chatService = context.getBean(ChatService.class);
+        sessionId = context.getBean(CachingConfig.class).sessionId;
+
+        // Populate the caches
+        chatService.getSessionById(sessionId);
+        chatService.getMessages(sessionId, 0, 10);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ChatSessionDTO getSessionByIdHit() {
+        return chatService.getSessionById(sessionId);
+    }
+
+    @Benchmark
+    public ApiResponseDTO getMessagesHit() {
+        return chatService.getMessages(sessionId, 0, 10);
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfig {
+
+        final UUID sessionId = UUID.randomUUID();
+
+        // Boot's converters, so @Value fields such as DataSize/Duration bind as in the application
+        @Bean
+        static ConversionService conversionService() {
+            return ApplicationConversionService.getSharedInstance();
+        }
+
+        // The application's caches with their default chat.cache.* sizing
+        @Bean
+        CacheManager cacheManager(ChatSessionRepository chatSessionRepository, ChatMapper chatMapper,
+                                  MeterRegistry meterRegistry) {
+            return new CacheConfig().cacheManager(new ChatCacheProperties(), chatSessionRepository, chatMapper,
+                    new ObjectMapper().findAndRegisterModules(), meterRegistry);
+        }
+
+        @Bean
+        ChatSessionRepository chatSessionRepository() {
+            ChatSession session = new ChatSession();
+            session.setId(sessionId);
+            session.setUserId("123451");
+            session.setName("Support Chat");
+
+            ChatSessionRepository repository = Mockito.mock(ChatSessionRepository.class);
+            when(repository.findById(sessionId)).thenReturn(Optional.of(session));
+            when(repository.existsById(sessionId)).thenReturn(true);
+            return repository;
+        }
+
+        @Bean
+        ChatMessageRepository chatMessageRepository() {
+            ChatMessageRepository repository = Mockito.mock(ChatMessageRepository.class);
+            Page<ChatMessage> empty = new PageImpl<>(List.of());
+            when(repository.findBySessionId(eq(sessionId), any(Pageable.class))).thenReturn(empty);
+            return repository;
+        }
+
+        @Bean
+        ChatMapper chatMapper() {
+            return Mappers.getMapper(ChatMapper.class);
+        }
+
+        @Bean
+        ConversationContextService conversationContextService() {
+            return Mockito.mock(ConversationContextService.class);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ChatCacheInvalidator chatCacheInvalidator(CacheManager cacheManager, MeterRegistry meterRegistry) {
+            return new ChatCacheInvalidator(cacheManager, meterRegistry);
+        }
+
+        @Bean
+        ChatService chatService() {
+            return new ChatService();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.ragchat.chatservice.benchmark;
+
+import com.ragchat.chatservice.dto.ChatSessionDTO;
+import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.mapper.ChatMapper;
+import com.ragchat.chatservice.model.ChatMessage;
+import com.ragchat.chatservice.model.ChatSession;
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping: reflective ModelMapper (previous implementation) vs. the generated ChatMapper.
+ * Run with the gc profiler (enabled by the benchmarks profile) to compare allocation per call.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private ModelMapper modelMapper;
+    private ChatMapper chatMapper;
+
+    private ChatSession session;
+    private ChatMessage message;
+    private List<ChatMessage> page;
+
+    @Setup
+    public void setup() {
+        modelMapper = new ModelMapper();
+        chatMapper = Mappers.getMapper(ChatMapper.class);
+
+        session = new ChatSession();
+        session.setId(UUID.randomUUID());
+        session.setUserId("123451");
+        session.setName("Support Chat");
+        session.setCreatedAt(LocalDateTime.now());
+        session.setUpdatedAt(LocalDateTime.now());
+
+        message = newMessage(0);
+        page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(newMessage(i));
+        }
+    }
+
+    @Benchmark
+    public ChatSessionDTO sessionModelMapper() {
+        return modelMapper.map(session, ChatSessionDTO.class);
+    }
+
+    @Benchmark
+    public ChatSessionDTO sessionGenerated() {
+        return chatMapper.toDto(session);
+    }
+
+    @Benchmark
+    public MessageDTO messageModelMapper() {
+        return modelMapper.map(message, MessageDTO.class);
+    }
+
+    @Benchmark
+    public MessageDTO messageGenerated() {
+        return chatMapper.toDto(message);
+    }
+
+    @Benchmark
+    public List<MessageDTO> messagePageModelMapper() {
+        return page.stream().map(m -> modelMapper.map(m, MessageDTO.class)).toList();
+    }
+
+    @Benchmark
+    public List<MessageDTO> messagePageGenerated() {
+        return page.stream().map(chatMapper::toDto).toList();
+    }
+
+    private ChatMessage newMessage(int i) {
+        ChatMessage m = new ChatMessage();
+        m.setId(UUID.randomUUID());
+        m.setSender(i % 2 == 0 ? "user" : "assistant");
+        m.setMessage("Message number " + i + " about account balances and RTGS transfers.");
+        m.setCreatedAt(LocalDateTime.now());
+        m.setUpdatedAt(LocalDateTime.now());
+        m.setSession(session);
+        return m;
+    }
+}
@@ -0,0 +1,75 @@
+package com.ragchat.chatservice.benchmark;
+
+import com.ragchat.chatservice.config.RateLimitFilter;
+import com.ragchat.chatservice.ratelimit.InMemoryRateLimiterBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * RateLimitFilter on the allowed path under contention: 64 threads either share one hot
+ * API key or each use their own. Limits are set high enough that nothing is rejected,
+ * so the score is pure limiter overhead per request. {@code legacy} is the previous
+ * synchronized implementation, {@code lockFree} the current one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class RateLimitFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"legacy", "lockFree"})
+    public String implementation;
+
+    @Param({"hot", "perThread"})
+    public String keyDistribution;
+
+    private OncePerRequestFilter filter;
+    private final AtomicInteger threadIds = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+        // All benchmark keys are configured, as in production
+        String keys = "secret123," + IntStream.rangeClosed(1, 64).mapToObj(i -> "key-" + i).collect(Collectors.joining(","));
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("api.keys", keys)
+                .withProperty("RATE_LIMIT_DEFAULT", String.valueOf(Integer.MAX_VALUE))
+                .withProperty("RATE_WINDOW_DEFAULT", "60000");
+        filter = "legacy".equals(implementation) ? new LegacyRateLimitFilter(env) : new RateLimitFilter(env, new InMemoryRateLimiterBackend(100_000), new SimpleMeterRegistry());
+    }
+
+    @State(Scope.Thread)
+    public static class Exchange {
+        MockHttpServletRequest request;
+        MockHttpServletResponse response;
+
+        @Setup
+        public void setup(RateLimitFilterBenchmark benchmark) {
+            String key = "hot".equals(benchmark.keyDistribution)
+                    ? "secret123"
+                    : "key-" + benchmark.threadIds.incrementAndGet();
+            request = new MockHttpServletRequest("GET", "/api/chat/session/abc");
+            request.addHeader("x-api-key", key);
+            response = new MockHttpServletResponse();
+        }
+    }
+
+    @Benchmark
+    public void doFilter(Exchange exchange) throws Exception {
+        filter.doFilter(exchange.request, exchange.response, NO_OP_CHAIN);
+    }
+}
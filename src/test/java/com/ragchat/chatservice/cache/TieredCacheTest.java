@@ -0,0 +1,85 @@
+package com.ragchat.chatservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TieredCacheTest {
+
+    private static final TieredCache.Codec STRINGS = new TieredCache.Codec() {
+        @Override
+        public byte[] encode(Object value) {
+            return value.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Object decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    @TempDir
+    Path directory;
+
+    private DiskCacheTier disk;
+    private TieredCache cache;
+
+    @BeforeEach
+    void setup() {
+        disk = new DiskCacheTier(directory, 1024 * 1024, Duration.ofHours(1));
+        cache = new TieredCache("test", Caffeine.newBuilder().recordStats().build(), disk, STRINGS,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        disk.shutdown();
+    }
+
+    @Test
+    void testL1MissIsServedFromDiskAndPromoted() throws Exception {
+        cache.put("page-1", "hello");
+        awaitDisk("page-1");
+        cache.getNativeCache().invalidateAll();
+
+        assertEquals("hello", cache.get("page-1", String.class));
+        assertEquals(1, cache.diskHitCount());
+        assertEquals("hello", cache.getNativeCache().getIfPresent("page-1"));
+    }
+
+    @Test
+    void testEvictRemovesBothTiers() throws Exception {
+        cache.put("page-1", "hello");
+        awaitDisk("page-1");
+
+        cache.evict("page-1");
+
+        assertNull(cache.get("page-1"));
+        assertNull(disk.read("page-1"));
+    }
+
+    @Test
+    void testValueLoaderRunsOnlyWhenBothTiersMiss() throws Exception {
+        assertEquals("loaded", cache.get("page-1", () -> "loaded"));
+        awaitDisk("page-1");
+        cache.getNativeCache().invalidateAll();
+
+        assertEquals("loaded", cache.get("page-1", () -> fail("should be served from disk")));
+    }
+
+    private void awaitDisk(String key) throws InterruptedException {
+        for (int i = 0; i < 200 && disk.read(key) == null; i++) {
+            Thread.sleep(10);
+        }
+        assertNotNull(disk.read(key), "entry was not written to disk");
+    }
+}
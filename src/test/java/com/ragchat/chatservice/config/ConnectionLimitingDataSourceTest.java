@@ -0,0 +1,68 @@
+package com.ragchat.chatservice.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ConnectionLimitingDataSourceTest {
+
+    @Mock
+    private DataSource target;
+
+    @BeforeEach
+    void setup() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(target.getConnection()).thenAnswer(inv -> mock(Connection.class));
+    }
+
+    @Test
+    void testCloseReturnsThePermitOnce() throws SQLException {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 2, Duration.ofMillis(10), 10);
+
+        Connection first = dataSource.getConnection();
+        dataSource.getConnection();
+        assertEquals(2, dataSource.getActiveConnections());
+
+        first.close();
+        first.close();
+        assertEquals(1, dataSource.getActiveConnections());
+    }
+
+    @Test
+    void testTimesOutWhenAllConnectionsAreInUse() throws SQLException {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, Duration.ofMillis(20), 10);
+        dataSource.getConnection();
+
+        assertThrows(ConnectionLimitingDataSource.ConnectionLimitExceededException.class, dataSource::getConnection);
+        assertEquals(0, dataSource.getWaiting());
+        verify(target, times(1)).getConnection();
+    }
+
+    @Test
+    void testRejectsImmediatelyWhenTheQueueIsFull() throws SQLException {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, Duration.ofSeconds(30), 0);
+        dataSource.getConnection();
+
+        long start = System.nanoTime();
+        assertThrows(ConnectionLimitingDataSource.ConnectionLimitExceededException.class, dataSource::getConnection);
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(1).toNanos());
+    }
+
+    @Test
+    void testPermitIsReturnedWhenThePoolFails() throws SQLException {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, Duration.ofMillis(10), 10);
+        when(target.getConnection()).thenThrow(new SQLException("pool down"));
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(0, dataSource.getActiveConnections());
+    }
+}
@@ -0,0 +1,132 @@
+package com.ragchat.chatservice.config;
+
+import com.ragchat.chatservice.ratelimit.ApiKeyRateLimits;
+import com.ragchat.chatservice.ratelimit.InMemoryRateLimiterBackend;
+import com.ragchat.chatservice.ratelimit.RateLimit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitFilterTest {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private RateLimitFilter filter;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("api.keys", "secret123,secret456")
+                .withProperty("RATE_LIMIT_DEFAULT", "2")
+                .withProperty("RATE_WINDOW_DEFAULT", "60000")
+                .withProperty("RATE_LIMIT_SECRET123", "3")
+                .withProperty("RATE_LIMIT_SECRET456", "1000");
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RateLimitFilter(env, new InMemoryRateLimiterBackend(100_000), meterRegistry);
+    }
+
+    @Test
+    void testAllowsUpToLimitThenRejectsWithRetryAfter() throws Exception {
+        for (int remaining = 2; remaining >= 0; remaining--) {
+            MockHttpServletResponse response = call("secret123");
+            assertEquals(200, response.getStatus());
+            assertEquals("3", response.getHeader(RateLimitFilter.LIMIT_HEADER));
+            assertEquals(String.valueOf(remaining), response.getHeader(RateLimitFilter.REMAINING_HEADER));
+        }
+
+        MockHttpServletResponse rejected = call("secret123");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("0", rejected.getHeader(RateLimitFilter.REMAINING_HEADER));
+        assertEquals("60", rejected.getHeader(RateLimitFilter.RETRY_AFTER_HEADER));
+        assertTrue(rejected.getContentAsString().contains("Try again in 60 seconds"));
+        assertEquals(1, meterRegistry.get(RateLimitFilter.REJECTED_METRIC)
+                .tag("key", ApiKeyRateLimits.fingerprint("secret123")).counter().count());
+    }
+
+    @Test
+    void testUnknownKeysShareOneBucket() throws Exception {
+        call("random-1");
+        call("random-2");
+
+        assertEquals(429, call("random-3").getStatus());
+        assertEquals(200, call("secret123").getStatus());
+    }
+
+    @Test
+    void testDevModeGivesEveryKeyItsOwnLimit() throws Exception {
+        filter = new RateLimitFilter(new MockEnvironment()
+                .withProperty("RATE_LIMIT_DEFAULT", "1")
+                .withProperty("RATE_LIMIT_ALICE", "2"), new InMemoryRateLimiterBackend(100_000), meterRegistry);
+
+        assertEquals(200, call("alice").getStatus());
+        assertEquals(200, call("alice").getStatus());
+        assertEquals(429, call("alice").getStatus());
+        assertEquals(200, call("bob").getStatus());
+        assertEquals(429, call("bob").getStatus());
+    }
+
+    @Test
+    void testLimitIsExactUnderContention() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Callable<Integer>> calls = new ArrayList<>();
+            for (int i = 0; i < 1600; i++) {
+                calls.add(() -> call("secret456").getStatus());
+            }
+            int allowed = 0;
+            for (Future<Integer> status : pool.invokeAll(calls)) {
+                if (status.get() == 200) {
+                    allowed++;
+                }
+            }
+            assertEquals(1000, allowed);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testWindowResetsAfterExpiry() {
+        InMemoryRateLimiterBackend backend = new InMemoryRateLimiterBackend(100_000);
+        RateLimit limit = new RateLimit(1, 1000);
+
+        assertEquals(0, backend.tryAcquire("key", limit, 0));
+        assertEquals(-990, backend.tryAcquire("key", limit, 10));
+        assertEquals(0, backend.tryAcquire("key", limit, 1000));
+    }
+
+    @Test
+    void testBackendSharesOneCounterOnceFull() {
+        InMemoryRateLimiterBackend backend = new InMemoryRateLimiterBackend(1);
+        RateLimit limit = new RateLimit(2, 60000);
+        backend.tryAcquire("key-1", limit, 0);
+
+        assertEquals(1, backend.tryAcquire("key-2", limit, 0));
+        assertEquals(0, backend.tryAcquire("key-3", limit, 0));
+        assertTrue(backend.tryAcquire("key-4", limit, 0) < 0);
+        assertEquals(0, backend.tryAcquire("key-1", limit, 0));
+    }
+
+    private MockHttpServletResponse call(String apiKey) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/chat/sessions");
+        request.addHeader("x-api-key", apiKey);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        return response;
+    }
+}
@@ -0,0 +1,76 @@
+package com.ragchat.chatservice.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaMigratorTest {
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void testAppliesPendingScriptsInOrderOnce() {
+        SchemaMigrator migrator = migrator();
+
+        assertEquals(List.of(1, 2), migrator.migrate());
+        assertEquals(List.of(), migrator.migrate());
+
+        assertEquals("system", jdbcTemplate.queryForObject("SELECT author FROM note WHERE id = 1", String.class));
+        assertEquals(List.of("create note", "add note author"),
+                jdbcTemplate.queryForList("SELECT description FROM schema_version ORDER BY version", String.class));
+    }
+
+    @Test
+    void testChangedScriptStopsMigration() {
+        migrator().migrate();
+        jdbcTemplate.update("UPDATE schema_version SET checksum = checksum + 1 WHERE version = 1");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> migrator().migrate());
+        assertTrue(e.getMessage().contains("V1"), e.getMessage());
+    }
+
+    @Test
+    void testFailedScriptIsRolledBackAndNotRecorded() {
+        jdbcTemplate.execute("CREATE TABLE note (id INTEGER PRIMARY KEY)");
+
+        assertThrows(IllegalStateException.class, () -> migrator().migrate());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM schema_version", Integer.class));
+    }
+
+    @Test
+    void testUndefinedPlaceholderStopsMigration() {
+        SchemaMigrator migrator = new SchemaMigrator(dataSource, "db/test-migration");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, migrator::migrate);
+        assertTrue(e.getMessage().contains("${default_author}"), e.getMessage());
+        assertEquals(List.of(1), jdbcTemplate.queryForList("SELECT version FROM schema_version", Integer.class));
+    }
+
+    @Test
+    void testProductionScriptsAreOrdered() {
+        List<SchemaMigrator.Migration> migrations = new SchemaMigrator(dataSource, "db/migration").load();
+
+        assertEquals(List.of(1, 2, 3, 4), migrations.stream().map(SchemaMigrator.Migration::version).toList());
+        assertEquals("partition chat message", migrations.get(1).description());
+    }
+
+    private SchemaMigrator migrator() {
+        return new SchemaMigrator(dataSource, "db/test-migration", Map.of("default_author", "system"));
+    }
+}
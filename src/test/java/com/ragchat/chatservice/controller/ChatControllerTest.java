@@ -3,7 +3,14 @@ package com.ragchat.chatservice.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ragchat.chatservice.dto.ApiResponseDTO;
 import com.ragchat.chatservice.dto.ChatSessionDTO;
+import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.exception.ResourceNotFoundException;
+import com.ragchat.chatservice.exception.ServiceOverloadedException;
+import com.ragchat.chatservice.metrics.ChatTurnMetrics;
+import com.ragchat.chatservice.service.AIResponseService;
 import com.ragchat.chatservice.service.ChatService;
+import com.ragchat.chatservice.service.ConversationContextService;
+import com.ragchat.chatservice.service.MessageRetrievalService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -12,11 +19,21 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Flux;
 
 import java.util.UUID;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -28,6 +45,18 @@ public class ChatControllerTest {
     @Mock
     private ChatService chatService;
 
+    @Mock
+    private AIResponseService aiResponseService;
+
+    @Mock
+    private ConversationContextService conversationContextService;
+
+    @Mock
+    private MessageRetrievalService messageRetrievalService;
+
+    @Mock
+    private ChatTurnMetrics chatTurnMetrics;
+
     @InjectMocks
     private ChatController chatController;
 
@@ -37,6 +66,7 @@ public class ChatControllerTest {
     void setup() {
         MockitoAnnotations.openMocks(this);
         mockMvc = MockMvcBuilders.standaloneSetup(chatController).build();
+        when(messageRetrievalService.augment(any(), anyList(), any())).thenAnswer(inv -> inv.getArgument(1));
         objectMapper = new ObjectMapper();
     }
 
@@ -83,4 +113,82 @@ public class ChatControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message").value("Session deleted successfully"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFindSimilarMessagesWhenRetrievalDisabled() throws Exception {
+        when(messageRetrievalService.isEnabled()).thenReturn(false);
+
+        mockMvc.perform(get("/api/chat/user/{userId}/messages/similar", "123451").param("q", "card pin"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.message").value("Message retrieval is disabled"));
+    }
+
+    @Test
+    void testChatWithMissingSessionRecordsFailedTurn() {
+        UUID sessionId = UUID.randomUUID();
+        ChatTurnMetrics.Turn turn = mock(ChatTurnMetrics.Turn.class);
+        ResourceNotFoundException notFound = new ResourceNotFoundException("Session not found with id " + sessionId);
+        when(chatTurnMetrics.start("session")).thenReturn(turn);
+        when(chatService.getSessionById(sessionId)).thenThrow(notFound);
+
+        MessageDTO dto = new MessageDTO();
+        dto.setMessage("Explain RTGS in banking");
+
+        assertThrows(ResourceNotFoundException.class, () -> chatController.chatWithGroqAI(sessionId, dto));
+        verify(turn).failure(notFound);
+        verify(turn, never()).success();
+        verify(turn).close();
+    }
+
+    @Test
+    void testStreamChatWithGroqAI() throws Exception {
+        UUID sessionId = UUID.randomUUID();
+        when(chatService.getSessionById(sessionId)).thenReturn(new ChatSessionDTO());
+        when(aiResponseService.streamAIResponse(anyList())).thenReturn(Flux.just("RTGS ", "settles ", "instantly"));
+        when(chatService.addMessage(eq(sessionId), any(MessageDTO.class)))
+                .thenReturn(new ApiResponseDTO(200, "Message added successfully", null));
+
+        MessageDTO dto = new MessageDTO();
+        dto.setSender("user");
+        dto.setMessage("Explain RTGS in banking");
+
+        MvcResult result = mockMvc.perform(post("/api/chat/sessions/{sessionId}/chat/stream", sessionId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("event:delta")))
+                .andExpect(content().string(containsString("data:settles ")))
+                .andExpect(content().string(containsString("event:done")));
+
+        verify(chatService).addMessage(eq(sessionId), argThat(m ->
+                "assistant".equals(m.getSender()) && "RTGS settles instantly".equals(m.getMessage())));
+    }
+
+    @Test
+    void testStreamShedByLimiterReportsServiceUnavailable() throws Exception {
+        UUID sessionId = UUID.randomUUID();
+        when(chatService.getSessionById(sessionId)).thenReturn(new ChatSessionDTO());
+        when(aiResponseService.streamAIResponse(anyList()))
+                .thenReturn(Flux.error(new ServiceOverloadedException("Too many concurrent Groq calls", 1)));
+
+        MessageDTO dto = new MessageDTO();
+        dto.setSender("user");
+        dto.setMessage("Explain RTGS in banking");
+
+        MvcResult result = mockMvc.perform(post("/api/chat/sessions/{sessionId}/chat/stream", sessionId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(content().string(containsString("event:error")))
+                .andExpect(content().string(containsString("\"code\":503")));
+
+        verify(chatService, never()).addMessage(eq(sessionId), argThat(m -> "assistant".equals(m.getSender())));
+    }
+}
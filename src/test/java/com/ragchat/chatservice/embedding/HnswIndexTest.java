@@ -0,0 +1,108 @@
+package com.ragchat.chatservice.embedding;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HnswIndexTest {
+
+    private static final int DIMENSIONS = 32;
+
+    private float[][] vectors;
+    private HnswIndex index;
+
+    @BeforeEach
+    void setup() {
+        Random random = new Random(42);
+        vectors = new float[3000][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = unit(random);
+        }
+        index = new HnswIndex((a, b) -> dot(vectors[a], vectors[b]), 16, 100, 7);
+        for (int i = 0; i < vectors.length; i++) {
+            index.add(i);
+        }
+    }
+
+    @Test
+    void testRecallAgainstExactSearch() {
+        Random random = new Random(1);
+        int found = 0;
+        int queries = 100;
+        for (int q = 0; q < queries; q++) {
+            float[] query = unit(random);
+            Set<Integer> exact = IntStream.range(0, vectors.length).boxed()
+                    .sorted(Comparator.comparingDouble(i -> -dot(vectors[i], query)))
+                    .limit(10)
+                    .collect(Collectors.toSet());
+            List<HnswIndex.Neighbor> approximate = index.search(i -> dot(vectors[i], query), 10, 64);
+
+            assertEquals(10, approximate.size());
+            for (int i = 1; i < approximate.size(); i++) {
+                assertTrue(approximate.get(i - 1).similarity() >= approximate.get(i).similarity());
+            }
+            found += (int) approximate.stream().filter(n -> exact.contains(n.key())).count();
+        }
+        double recall = found / (queries * 10.0);
+        assertTrue(recall >= 0.9, "recall@10 = " + recall);
+    }
+
+    @Test
+    void testRemovedKeysAreNotReturned() {
+        float[] query = vectors[5];
+        assertEquals(5, index.search(i -> dot(vectors[i], query), 1, 64).get(0).key());
+
+        index.remove(5);
+        index.add(5); // already known: stays removed
+
+        List<HnswIndex.Neighbor> hits = index.search(i -> dot(vectors[i], query), 20, 64);
+        assertEquals(20, hits.size());
+        assertTrue(hits.stream().noneMatch(n -> n.key() == 5));
+        assertEquals(vectors.length - 1, index.size());
+    }
+
+    @Test
+    void testEmptyIndex() {
+        HnswIndex empty = new HnswIndex((a, b) -> 0, 16, 100, 7);
+
+        assertTrue(empty.search(i -> 0, 5, 64).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new HnswIndex((a, b) -> 0, 1, 100, 7));
+    }
+
+    @Test
+    void testKeysAreUnique() {
+        Set<Integer> keys = new HashSet<>();
+        index.search(i -> dot(vectors[i], vectors[0]), 200, 200).forEach(n -> assertTrue(keys.add(n.key())));
+        assertEquals(200, keys.size());
+    }
+
+    private static float[] unit(Random random) {
+        float[] v = new float[DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            v[i] = (float) random.nextGaussian();
+            norm += v[i] * v[i];
+        }
+        for (int i = 0; i < DIMENSIONS; i++) {
+            v[i] /= (float) Math.sqrt(norm);
+        }
+        return v;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,120 @@
+package com.ragchat.chatservice.embedding;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuantizedVectorStoreTest {
+
+    private final HashedNgramEmbedder embedder = new HashedNgramEmbedder(512);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testDotProductsMatchFloatVectors() {
+        QuantizedVectorStore store = QuantizedVectorStore.offHeap(embedder.id(), 512);
+        float[] a = embedder.embedText("How do I reset the PIN of my debit card?");
+        float[] b = embedder.embedText("I forgot my card PIN, how can I reset it?");
+        int slotA = store.append(UUID.randomUUID(), 1, a);
+        int slotB = store.append(UUID.randomUUID(), 1, b);
+
+        float exact = HashedNgramEmbedder.cosine(a, b);
+        assertEquals(exact, store.dot(slotA, b), 0.02);
+        assertEquals(exact, store.dot(slotA, slotB), 0.02);
+        assertEquals(1.0, store.dot(slotA, slotA), 0.02);
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void testReopenKeepsVectors() throws IOException {
+        Path file = dir.resolve("vectors.bin");
+        UUID id = UUID.randomUUID();
+        float[] vector = embedder.embedText("standing order to my savings account");
+        try (QuantizedVectorStore store = QuantizedVectorStore.open(file, embedder.id(), 512)) {
+            store.append(UUID.randomUUID(), 1, embedder.embedText("something else"));
+            store.append(id, 7, vector);
+            store.checkpoint(42);
+        }
+
+        try (QuantizedVectorStore store = QuantizedVectorStore.open(file, embedder.id(), 512)) {
+            assertEquals(2, store.size());
+            assertEquals(id, store.id(1));
+            assertEquals(7, store.owner(1));
+            assertEquals(42, store.checkpoint());
+            assertEquals(1.0, store.dot(1, vector), 0.02);
+        }
+    }
+
+    @Test
+    void testOtherEmbedderDiscardsFile() throws IOException {
+        Path file = dir.resolve("vectors.bin");
+        try (QuantizedVectorStore store = QuantizedVectorStore.open(file, embedder.id(), 512)) {
+            store.append(UUID.randomUUID(), 1, embedder.embedText("hello"));
+        }
+
+        try (QuantizedVectorStore store = QuantizedVectorStore.open(file, "onnx-minilm", 512)) {
+            assertEquals(0, store.size());
+            assertEquals(0, store.checkpoint());
+        }
+    }
+
+    @Test
+    void testGarbageFileIsReset() throws IOException {
+        Path file = dir.resolve("vectors.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, -1, -1, -1, -1});
+
+        try (QuantizedVectorStore store = QuantizedVectorStore.open(file, embedder.id(), 512)) {
+            assertEquals(0, store.size());
+            store.append(UUID.randomUUID(), 1, embedder.embedText("hello"));
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void testRejectsWrongDimensions() {
+        QuantizedVectorStore store = QuantizedVectorStore.offHeap(embedder.id(), 512);
+
+        assertThrows(IllegalArgumentException.class, () -> store.append(UUID.randomUUID(), 1, new float[3]));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.append(UUID.randomUUID(), QuantizedVectorStore.REMOVED, new float[512]));
+    }
+
+    @Test
+    void testRemovedRecordsSurviveReopenAndAreLeftOutOfCopies() throws IOException {
+        Path file = dir.resolve("vectors.bin");
+        UUID kept = UUID.randomUUID();
+        float[] vector = embedder.embedText("standing order to my savings account");
+        try (QuantizedVectorStore store = QuantizedVectorStore.open(file, embedder.id(), 512)) {
+            store.append(UUID.randomUUID(), 1, embedder.embedText("something else"));
+            store.append(kept, 2, vector);
+            store.append(UUID.randomUUID(), 1, embedder.embedText("and another"));
+            store.remove(0);
+            store.remove(2);
+            store.remove(2);
+            store.checkpoint(42);
+        }
+
+        try (QuantizedVectorStore store = QuantizedVectorStore.open(file, embedder.id(), 512);
+             QuantizedVectorStore compacted = QuantizedVectorStore.open(dir.resolve("compacted.bin"), embedder.id(), 512)) {
+            assertEquals(3, store.size());
+            assertEquals(2, store.removed());
+            assertEquals(QuantizedVectorStore.REMOVED, store.owner(0));
+
+            store.copyLiveTo(compacted);
+
+            assertEquals(1, compacted.size());
+            assertEquals(0, compacted.removed());
+            assertEquals(kept, compacted.id(0));
+            assertEquals(2, compacted.owner(0));
+            assertEquals(42, compacted.checkpoint());
+            assertEquals(1.0, compacted.dot(0, vector), 0.02);
+        }
+    }
+}
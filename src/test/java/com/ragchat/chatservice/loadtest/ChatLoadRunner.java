@@ -0,0 +1,122 @@
+package com.ragchat.chatservice.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load test of {@code POST /api/chat/sessions/{id}/chat}: each virtual user owns a
+ * session and sends its next message as soon as the previous reply arrives. Reports completed
+ * chats per second, latency percentiles and the status code mix; compare runs with and without
+ * virtual threads at the same concurrency.
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.concurrency=500 -Dloadtest.duration=60
+ * </pre>
+ * Point the service at {@link StubGroqServer} and give the API key a rate limit above the
+ * offered load (RATE_LIMIT_&lt;KEY&gt;), otherwise the test measures the rate limiter.
+ */
+public class ChatLoadRunner {
+
+    private static final Pattern SESSION_ID = Pattern.compile("\"id\"\\s*:\\s*\"([0-9a-f-]{36})\"");
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        String apiKey = args.length > 1 ? args[1] : "secret123";
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        Duration duration = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 60);
+
+        ExecutorService users = Executors.newFixedThreadPool(concurrency);
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newCachedThreadPool())
+                .build();
+
+        List<Long> latenciesMicros = Collections.synchronizedList(new ArrayList<>());
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        LongAdder errors = new LongAdder();
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        System.out.printf("%d users against %s for %s%n", concurrency, baseUrl, duration);
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        for (int u = 0; u < concurrency; u++) {
+            int user = u;
+            users.execute(() -> {
+                try {
+                    String sessionId = createSession(client, baseUrl, apiKey, user);
+                    for (int turn = 0; System.nanoTime() < deadline; turn++) {
+                        long sent = System.nanoTime();
+                        HttpResponse<String> response = client.send(
+                                post(baseUrl + "/api/chat/sessions/" + sessionId + "/chat", apiKey,
+                                        "{\"sender\":\"user\",\"message\":\"Load test message " + turn + "\"}"),
+                                HttpResponse.BodyHandlers.ofString());
+                        latenciesMicros.add((System.nanoTime() - sent) / 1_000);
+                        statuses.computeIfAbsent(response.statusCode(), s -> new LongAdder()).increment();
+                    }
+                } catch (Exception e) {
+                    errors.increment();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        users.shutdown();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<Long> sorted = new ArrayList<>(latenciesMicros);
+        Collections.sort(sorted);
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+        long ok = statusCounts.getOrDefault(200, 0L);
+
+        System.out.printf("requests: %d in %.1f s, status %s, client errors %d%n",
+                sorted.size(), seconds, statusCounts, errors.sum());
+        System.out.printf("throughput: %.1f chats/s (200 only)%n", ok / seconds);
+        System.out.printf("latency ms: p50 %.0f  p95 %.0f  p99 %.0f  max %.0f%n",
+                percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99), percentile(sorted, 100));
+    }
+
+    private static String createSession(HttpClient client, String baseUrl, String apiKey, int user) throws Exception {
+        HttpResponse<String> response = client.send(
+                post(baseUrl + "/api/chat/session", apiKey,
+                        "{\"userId\":\"" + (100000 + user) + "\",\"name\":\"Load test " + user + "\"}"),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = SESSION_ID.matcher(response.body());
+        if (response.statusCode() >= 300 || !matcher.find()) {
+            throw new IllegalStateException("Session creation failed: " + response.statusCode() + " " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private static HttpRequest post(String url, String apiKey, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .header("X-API-KEY", apiKey)
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static double percentile(List<Long> sortedMicros, int p) {
+        if (sortedMicros.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100.0 * sortedMicros.size()) - 1;
+        return sortedMicros.get(Math.max(0, index)) / 1000.0;
+    }
+}
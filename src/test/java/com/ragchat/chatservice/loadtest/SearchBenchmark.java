@@ -0,0 +1,161 @@
+package com.ragchat.chatservice.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency benchmark of {@code GET /api/chat/user/{userId}/messages/search} on a large history.
+ * Seeds PostgreSQL with {@code messages} synthetic messages spread over {@code users} users
+ * (skipped when 0), then runs {@code queries} searches from a few concurrent clients. It
+ * reports latency percentiles and exits with status 1 if p95 misses the target.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.ragchat.chatservice.loadtest.SearchBenchmark \
+ *     -Dexec.args="jdbc:postgresql://localhost:5432/chatdb postgres password 5000000 1000 http://localhost:8080 secret123 2000 100"
+ * </pre>
+ * Start the service once before seeding so that it creates the tables and the search column.
+ * Words are drawn from a skewed vocabulary, so queries mix very common and rare terms.
+ */
+public class SearchBenchmark {
+
+    private static final String[] VOCABULARY = {
+            "account", "balance", "transfer", "payment", "card", "bank", "loan", "interest", "rate", "fee",
+            "deposit", "withdrawal", "statement", "branch", "online", "mobile", "app", "login", "password", "limit",
+            "savings", "checking", "credit", "debit", "overdraft", "mortgage", "insurance", "investment", "fund", "tax",
+            "salary", "cheque", "standing", "order", "beneficiary", "swift", "iban", "currency", "exchange", "forex",
+            "rtgs", "neft", "imps", "upi", "settlement", "clearing", "reversal", "chargeback", "dispute", "refund",
+            "kyc", "aadhaar", "passport", "address", "nominee", "locker", "dormant", "closure", "reactivation", "pin",
+            "otp", "fraud", "phishing", "blocked", "unblock", "replacement", "courier", "emi", "foreclosure", "tenure",
+            "collateral", "guarantor", "sanction", "disbursement", "repayment", "penalty", "waiver", "rebate", "cashback", "reward",
+            "points", "voucher", "lounge", "contactless", "tokenization", "biometric", "escrow", "remittance", "nostro", "vostro",
+            "amortization", "annuity", "debenture", "sukuk", "arbitrage", "custodian", "fiduciary", "hypothecation", "lien", "subrogation"
+    };
+    private static final String[] QUERIES = {
+            "account balance", "transfer", "\"standing order\"", "card -credit", "loan or mortgage",
+            "rtgs settlement", "refund dispute", "otp fraud", "escrow", "hypothecation lien"
+    };
+    private static final int SEED_CHUNK = 100_000;
+
+    private static final String SEED_SESSIONS = """
+            INSERT INTO chat_session (id, user_id, name, favorite, created_at, updated_at)
+            SELECT gen_random_uuid(), (900000 + g % ?)::text, 'Search benchmark ' || g, false, now(), now()
+            FROM generate_series(1, ?) AS g""";
+    // The subquery references g, so it is evaluated, and its random words drawn, per row
+    private static final String SEED_MESSAGES = """
+            WITH v AS (SELECT ?::text[] AS words),
+                 s AS (SELECT array_agg(id) AS ids FROM chat_session WHERE name LIKE 'Search benchmark %')
+            INSERT INTO chat_message (id, session_id, sender, message, created_at, updated_at)
+            SELECT gen_random_uuid(), s.ids[1 + g % array_length(s.ids, 1)],
+                   CASE WHEN g % 2 = 0 THEN 'user' ELSE 'assistant' END,
+                   (SELECT string_agg(v.words[1 + floor(power(random(), 3) * array_length(v.words, 1))::int], ' ')
+                    FROM generate_series(1, 8 + g % 17)),
+                   now() - g * interval '1 second', now() - g * interval '1 second'
+            FROM generate_series(?, ?) AS g, v, s""";
+
+    public static void main(String[] args) throws Exception {
+        String jdbcUrl = args.length > 0 ? args[0] : "jdbc:postgresql://localhost:5432/chatdb";
+        String dbUser = args.length > 1 ? args[1] : "postgres";
+        String dbPassword = args.length > 2 ? args[2] : "password";
+        long messages = args.length > 3 ? Long.parseLong(args[3]) : 5_000_000;
+        int users = args.length > 4 ? Integer.parseInt(args[4]) : 1000;
+        String baseUrl = args.length > 5 ? args[5] : "http://localhost:8080";
+        String apiKey = args.length > 6 ? args[6] : "secret123";
+        int queries = args.length > 7 ? Integer.parseInt(args[7]) : 2000;
+        double targetP95Ms = args.length > 8 ? Double.parseDouble(args[8]) : 100;
+
+        if (messages > 0) {
+            seed(jdbcUrl, dbUser, dbPassword, messages, users);
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        List<Long> latenciesMicros = Collections.synchronizedList(new ArrayList<>());
+        LongAdder failures = new LongAdder();
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < queries; i++) {
+            clients.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                String userId = String.valueOf(900000 + random.nextInt(users));
+                String query = QUERIES[random.nextInt(QUERIES.length)];
+                HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/chat/user/" + userId
+                                + "/messages/search?size=20&q=" + URLEncoder.encode(query, StandardCharsets.UTF_8)))
+                        .timeout(Duration.ofSeconds(30))
+                        .header("X-API-KEY", apiKey)
+                        .GET()
+                        .build();
+                try {
+                    long sent = System.nanoTime();
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    latenciesMicros.add((System.nanoTime() - sent) / 1_000);
+                    if (response.statusCode() != 200) {
+                        failures.increment();
+                    }
+                } catch (Exception e) {
+                    failures.increment();
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(1, TimeUnit.HOURS);
+
+        List<Long> sorted = new ArrayList<>(latenciesMicros);
+        Collections.sort(sorted);
+        double p95 = percentile(sorted, 95);
+        System.out.printf("searches: %d, failed %d%n", sorted.size(), failures.sum());
+        System.out.printf("latency ms: p50 %.1f  p95 %.1f  p99 %.1f  max %.1f%n",
+                percentile(sorted, 50), p95, percentile(sorted, 99), percentile(sorted, 100));
+        boolean passed = p95 <= targetP95Ms && failures.sum() == 0;
+        System.out.printf("target p95 <= %.0f ms: %s%n", targetP95Ms, passed ? "PASS" : "FAIL");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static void seed(String jdbcUrl, String user, String password, long messages, int users) throws Exception {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, user, password)) {
+            long sessions = Math.max(users, messages / 100);
+            System.out.printf("Seeding %d sessions for %d users...%n", sessions, users);
+            try (PreparedStatement insert = connection.prepareStatement(SEED_SESSIONS)) {
+                insert.setInt(1, users);
+                insert.setLong(2, sessions);
+                insert.executeUpdate();
+            }
+            try (PreparedStatement insert = connection.prepareStatement(SEED_MESSAGES)) {
+                insert.setArray(1, connection.createArrayOf("text", VOCABULARY));
+                for (long from = 1; from <= messages; from += SEED_CHUNK) {
+                    long to = Math.min(messages, from + SEED_CHUNK - 1);
+                    insert.setLong(2, from);
+                    insert.setLong(3, to);
+                    insert.executeUpdate();
+                    System.out.printf("  %d / %d messages%n", to, messages);
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE chat_session");
+                statement.execute("ANALYZE chat_message");
+            }
+        }
+    }
+
+    private static double percentile(List<Long> sortedMicros, int p) {
+        if (sortedMicros.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100.0 * sortedMicros.size()) - 1;
+        return sortedMicros.get(Math.max(0, index)) / 1000.0;
+    }
+}
@@ -0,0 +1,50 @@
+package com.ragchat.chatservice.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * Stand-in for Groq's {@code /chat/completions} that answers after a fixed delay, so a load
+ * test measures how many slow LLM calls the service can hold open rather than Groq's quota.
+ * <pre>
+ * java -cp target/test-classes com.ragchat.chatservice.loadtest.StubGroqServer [port=9090] [delayMs=2000]
+ * GROQ_API_BASE_URL=http://localhost:9090/openai/v1
+ * </pre>
+ */
+public class StubGroqServer {
+
+    private static final byte[] REPLY = ("{\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\","
+            + "\"content\":\"This is a stub reply.\"},\"finish_reason\":\"stop\"}],"
+            + "\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":6,\"total_tokens\":18}}").getBytes(StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9090;
+        long delayMs = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 4096);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/openai/v1/chat/completions", exchange -> reply(exchange, delayMs));
+        server.start();
+        System.out.printf("Stub Groq listening on http://localhost:%d/openai/v1 (%d ms per completion)%n", port, delayMs);
+    }
+
+    private static void reply(HttpExchange exchange, long delayMs) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            Thread.sleep(delayMs);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, REPLY.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(REPLY);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.ragchat.chatservice.metrics;
+
+import com.ragchat.chatservice.model.ChatSession;
+import com.ragchat.chatservice.mapper.ChatMapper;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class ChatTurnMetricsTest {
+
+    @Mock
+    private ChatMapper chatMapper;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChatTurnMetrics chatTurnMetrics;
+    private ChatMapper timedMapper;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        chatTurnMetrics = new ChatTurnMetrics(meterRegistry, observationRegistry);
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(chatMapper);
+        proxyFactory.addAspect(new ChatTurnMetricsAspect());
+        timedMapper = proxyFactory.getProxy();
+        when(chatMapper.toDto(any(ChatSession.class))).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return null;
+        });
+    }
+
+    @Test
+    void testBreaksTurnDownByStageAndComponent() throws Exception {
+        try (ChatTurnMetrics.Turn turn = chatTurnMetrics.start("session")) {
+            timedMapper.toDto(new ChatSession());
+            turn.stage(ChatTurnMetrics.STAGE_LLM);
+            Thread.sleep(30);
+            turn.success();
+        }
+
+        assertEquals(1, meterRegistry.get("chat.turn").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("chat.turn.stage").tag("stage", "session").timer().count());
+        assertTrue(millis("mapping") >= 20);
+        assertTrue(millis("llm") >= 30);
+        assertEquals(0, millis("db"));
+    }
+
+    @Test
+    void testMappingOutsideTurnIsNotAttributed() {
+        timedMapper.toDto(new ChatSession());
+
+        try (ChatTurnMetrics.Turn turn = chatTurnMetrics.start("session")) {
+            // Closed without success()
+        }
+
+        assertEquals(1, meterRegistry.get("chat.turn").tag("outcome", "error").timer().count());
+        assertEquals(0, millis("mapping"));
+    }
+
+    private double millis(String component) {
+        return meterRegistry.get("chat.turn.component").tag("component", component).timer()
+                .totalTime(TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,102 @@
+package com.ragchat.chatservice.ratelimit;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two backend instances over one H2 database (PostgreSQL mode) stand in for two replicas.
+ */
+public class PostgresRateLimiterBackendTest {
+
+    private static final long WINDOW_MS = 60_000;
+    private static final long NOW = 1_700_000_000_000L - 1_700_000_000_000L % WINDOW_MS;
+
+    private JdbcTemplate jdbcTemplate;
+    private PostgresRateLimiterBackend replicaA;
+    private PostgresRateLimiterBackend replicaB;
+
+    @BeforeEach
+    void setup() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V4__rate_limit_bucket.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        replicaA = new PostgresRateLimiterBackend(jdbcTemplate, 5, 100_000);
+        replicaB = new PostgresRateLimiterBackend(jdbcTemplate, 5, 100_000);
+        replicaA.init();
+        replicaB.init();
+    }
+
+    @Test
+    void testLimitIsSharedAcrossReplicas() {
+        RateLimit limit = new RateLimit(100, WINDOW_MS);
+
+        int allowed = 0;
+        for (int i = 0; i < 150; i++) {
+            if (replicaA.tryAcquire("secret123", limit, NOW + i) >= 0) {
+                allowed++;
+            }
+            if (replicaB.tryAcquire("secret123", limit, NOW + i) >= 0) {
+                allowed++;
+            }
+        }
+
+        assertEquals(100, allowed);
+    }
+
+    @Test
+    void testLeasesAvoidRoundTripPerRequest() {
+        RateLimit limit = new RateLimit(100, WINDOW_MS);
+
+        long first = replicaA.tryAcquire("secret123", limit, NOW);
+        jdbcTemplate.update("UPDATE rate_limit_bucket SET remaining = 0");
+        long second = replicaA.tryAcquire("secret123", limit, NOW + 1);
+
+        // Served from the 5-token lease although the shared row is already empty
+        assertEquals(99, first);
+        assertTrue(second >= 0);
+    }
+
+    @Test
+    void testSmallLimitsStillLeaseSeveralTokens() {
+        RateLimit limit = new RateLimit(10, WINDOW_MS);
+
+        assertEquals(9, replicaA.tryAcquire("secret123", limit, NOW));
+        jdbcTemplate.update("UPDATE rate_limit_bucket SET remaining = 0");
+
+        // Half the limit was leased: four more requests are served without the shared row
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(replicaA.tryAcquire("secret123", limit, NOW + i) >= 0);
+        }
+        assertTrue(replicaA.tryAcquire("secret123", limit, NOW + 5) < 0);
+    }
+
+    @Test
+    void testNewWindowResetsSharedRow() {
+        RateLimit limit = new RateLimit(2, WINDOW_MS);
+        replicaA.tryAcquire("secret123", limit, NOW);
+        replicaB.tryAcquire("secret123", limit, NOW);
+
+        assertEquals(-(WINDOW_MS - 10), replicaA.tryAcquire("secret123", limit, NOW + 10));
+        assertEquals(1, replicaB.tryAcquire("secret123", limit, NOW + WINDOW_MS));
+        assertEquals(0, replicaA.tryAcquire("secret123", limit, NOW + WINDOW_MS + 1));
+    }
+
+    @Test
+    void testFallsBackToLocalLimitWhenStoreIsDown() {
+        RateLimit limit = new RateLimit(1, WINDOW_MS);
+        jdbcTemplate.execute("DROP TABLE rate_limit_bucket");
+
+        assertEquals(0, replicaA.tryAcquire("secret123", limit, NOW));
+        assertTrue(replicaA.tryAcquire("secret123", limit, NOW + 1) < 0);
+    }
+}
@@ -0,0 +1,168 @@
+package com.ragchat.chatservice.reactive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ragchat.chatservice.exception.ServiceOverloadedException;
+import com.ragchat.chatservice.service.AIResponseService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The reactive runtime end to end on Netty and R2DBC (H2 in PostgreSQL mode), with Groq mocked.
+ */
+@SpringBootTest(classes = ReactiveChatApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.main.web-application-type=reactive",
+                "spring.r2dbc.url=r2dbc:h2:mem:///reactive-chat;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "spring.r2dbc.username=sa",
+                "spring.r2dbc.password=",
+                "groq.api.key=test",
+                "api.keys=reactivekey",
+                "RATE_LIMIT_REACTIVEKEY=1000"
+        })
+@ActiveProfiles("reactive")
+public class ReactiveChatApplicationTest {
+
+    private static final String API_KEY = "reactivekey";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @MockBean
+    private AIResponseService aiResponseService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testChatStoresBothMessages() throws Exception {
+        when(aiResponseService.generateAIResponse(anyList())).thenReturn(Mono.just("Hi there!"));
+        String sessionId = createSession();
+
+        webTestClient.post().uri("/api/chat/sessions/{id}/chat", sessionId)
+                .header("X-API-KEY", API_KEY)
+                .bodyValue(Map.of("sender", "user", "message", "Hello"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.sender").isEqualTo("assistant")
+                .jsonPath("$.data.message").isEqualTo("Hi there!");
+
+        webTestClient.get().uri("/api/chat/session/{id}/messages", sessionId)
+                .header("X-API-KEY", API_KEY)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.length()").isEqualTo(2)
+                .jsonPath("$.data[0].message").isEqualTo("Hello")
+                .jsonPath("$.data[1].message").isEqualTo("Hi there!");
+
+        verify(aiResponseService).generateAIResponse(argThat((List<Map<String, Object>> prompt) ->
+                prompt.size() == 1 && "Hello".equals(prompt.get(0).get("content"))));
+    }
+
+    @Test
+    void testToggleFavoriteAndDelete() throws Exception {
+        String sessionId = createSession();
+        webTestClient.post().uri("/api/chat/session/{id}/message", sessionId)
+                .header("X-API-KEY", API_KEY)
+                .bodyValue(Map.of("sender", "user", "message", "Hello"))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.patch().uri("/api/chat/session/{id}/favorite", sessionId)
+                .header("X-API-KEY", API_KEY)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.favorite").isEqualTo(true);
+
+        webTestClient.delete().uri("/api/chat/session/{id}", sessionId)
+                .header("X-API-KEY", API_KEY)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/api/chat/session/{id}", sessionId)
+                .header("X-API-KEY", API_KEY)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo(404);
+        webTestClient.delete().uri("/api/chat/session/{id}", sessionId)
+                .header("X-API-KEY", API_KEY)
+                .exchange()
+                .expectStatus().isNotFound();
+
+        // Soft-deleted: the row and its messages stay until the purge sweep removes them
+        UUID id = UUID.fromString(sessionId);
+        assertEquals(Boolean.TRUE, databaseClient.sql("SELECT deleted_at IS NOT NULL FROM chat_session WHERE id = :id")
+                .bind("id", id).map(row -> row.get(0, Boolean.class)).one().block());
+        assertEquals(1L, databaseClient.sql("SELECT COUNT(*) FROM chat_message WHERE session_id = :id")
+                .bind("id", id).map(row -> row.get(0, Long.class)).one().block());
+    }
+
+    @Test
+    void testStreamShedByLimiterIsServiceUnavailable() throws Exception {
+        when(aiResponseService.streamAIResponse(anyList()))
+                .thenReturn(Flux.error(new ServiceOverloadedException("Too many concurrent Groq calls", 1)));
+        String sessionId = createSession();
+
+        webTestClient.post().uri("/api/chat/sessions/{id}/chat/stream", sessionId)
+                .header("X-API-KEY", API_KEY)
+                .bodyValue(Map.of("sender", "user", "message", "Hello"))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1");
+    }
+
+    @Test
+    void testRejectsInvalidRequests() {
+        webTestClient.get().uri("/api/chat/session/{id}", UUID.randomUUID())
+                .header("X-API-KEY", "wrong")
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        webTestClient.post().uri("/api/chat/session")
+                .header("X-API-KEY", API_KEY)
+                .bodyValue(Map.of("userId", "12", "name", "Reactive Chat"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Validation error")
+                .jsonPath("$.data.userId").exists();
+    }
+
+    private String createSession() throws Exception {
+        byte[] body = webTestClient.post().uri("/api/chat/session")
+                .header("X-API-KEY", API_KEY)
+                .bodyValue(Map.of("userId", "123456", "name", "Reactive Chat"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .returnResult()
+                .getResponseBodyContent();
+        JsonNode response = objectMapper.readTree(body);
+        return response.path("data").path("id").asText();
+    }
+}
@@ -0,0 +1,143 @@
+package com.ragchat.chatservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ragchat.chatservice.config.GroqClientConfig;
+import com.ragchat.chatservice.config.GroqClientProperties;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+/**
+ * AIResponseService over the real Groq client configuration, against a local stub of
+ * {@code /chat/completions}.
+ */
+public class AIResponseServiceTest {
+
+    private static final String COMPLETION = "{\"id\":\"c1\",\"model\":\"llama\",\"choices\":[{\"index\":0,"
+            + "\"message\":{\"role\":\"assistant\",\"content\":\" RTGS settles instantly. \"},\"finish_reason\":\"stop\"}],"
+            + "\"usage\":{\"prompt_tokens\":9,\"completion_tokens\":4,\"total_tokens\":13},\"x_groq\":{\"id\":\"r1\"}}";
+
+    @Mock
+    private SemanticResponseCache responseCache;
+
+    private HttpServer server;
+    private ConnectionProvider connectionProvider;
+    private SimpleMeterRegistry meterRegistry;
+    private AIResponseService service;
+    private final AtomicReference<String> acceptEncoding = new AtomicReference<>();
+    private final AtomicReference<String> requestBody = new AtomicReference<>();
+    private volatile byte[] reply = COMPLETION.getBytes(StandardCharsets.UTF_8);
+    private volatile String contentType = "application/json";
+
+    @BeforeEach
+    void setup() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/openai/v1/chat/completions", this::handle);
+        server.start();
+
+        GroqClientProperties properties = new GroqClientProperties();
+        properties.setMaxInMemorySize(DataSize.ofKilobytes(16));
+        GroqClientConfig config = new GroqClientConfig();
+        connectionProvider = config.groqConnectionProvider(properties);
+        WebClient webClient = config.groqWebClient(WebClient.builder(), connectionProvider, properties,
+                "http://localhost:" + server.getAddress().getPort() + "/openai/v1");
+
+        GroqConcurrencyLimiter limiter = new GroqConcurrencyLimiter(new SimpleMeterRegistry());
+        limiter.init();
+        RequestCoalescer coalescer = new RequestCoalescer(new SimpleMeterRegistry());
+        coalescer.init();
+        meterRegistry = new SimpleMeterRegistry();
+        service = new AIResponseService(webClient, new ObjectMapper(), responseCache, coalescer, limiter, properties,
+                meterRegistry);
+        ReflectionTestUtils.setField(service, "groqApiKey", "test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        connectionProvider.dispose();
+    }
+
+    @Test
+    void testDecodesGzippedCompletion() {
+        List<Map<String, Object>> messages = List.of(Map.of("role", "user", "content", "What is RTGS?"));
+
+        assertEquals("RTGS settles instantly.", service.getAIResponse(Map.of("messages", messages)));
+
+        assertEquals("gzip", acceptEncoding.get());
+        assertTrue(requestBody.get().contains("\"messages\":[{\"role\":\"user\",\"content\":\"What is RTGS?\"}]"));
+        assertFalse(requestBody.get().contains("\"stream\""));
+        verify(responseCache).store(eq(messages), eq("RTGS settles instantly."));
+        assertEquals(9, meterRegistry.get("groq.tokens").tag("type", "prompt").counter().count());
+        assertEquals(4, meterRegistry.get("groq.tokens").tag("type", "completion").counter().count());
+    }
+
+    @Test
+    void testStreamsDeltas() {
+        contentType = "text/event-stream";
+        reply = ("data: {\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\"}}]}\n\n"
+                + "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"RTGS \"}}]}\n\n"
+                + "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"settles\"}}]}\n\n"
+                + "data: [DONE]\n\n").getBytes(StandardCharsets.UTF_8);
+
+        List<String> deltas = service.streamAIResponse(List.of(Map.of("role", "user", "content", "Hi")))
+                .collectList().block();
+
+        assertEquals(List.of("RTGS ", "settles"), deltas);
+        assertTrue(requestBody.get().contains("\"stream\":true"));
+    }
+
+    @Test
+    void testRejectsOversizedResponse() {
+        reply = ("{\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\""
+                + "x".repeat(32 * 1024) + "\"}}]}").getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(RuntimeException.class, () ->
+                service.getAIResponse(Map.of("messages", List.of(Map.of("role", "user", "content", "Hi")))));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requestBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            acceptEncoding.set(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            byte[] body = reply;
+            if ("gzip".equals(acceptEncoding.get())) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(body);
+                }
+                body = compressed.toByteArray();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
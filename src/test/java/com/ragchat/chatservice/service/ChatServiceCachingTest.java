@@ -0,0 +1,219 @@
+package com.ragchat.chatservice.service;
+
+import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.mapper.ChatMapper;
+import com.ragchat.chatservice.model.ChatMessage;
+import com.ragchat.chatservice.model.ChatSession;
+import com.ragchat.chatservice.repository.ChatMessageRepository;
+import com.ragchat.chatservice.repository.ChatSessionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * ChatService through the real Spring caching proxy: a change must evict the entries it
+ * affects and leave every other user's and session's entries cached.
+ */
+@SpringJUnitConfig(ChatServiceCachingTest.CachingConfig.class)
+public class ChatServiceCachingTest {
+
+    private static final UUID SESSION_A = UUID.randomUUID();
+    private static final UUID SESSION_B = UUID.randomUUID();
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private ChatSessionRepository chatSessionRepository;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        // One call each: together they would make a generic varargs array (an unchecked warning)
+        reset(chatSessionRepository);
+        reset(chatMessageRepository);
+
+        ChatSession a = session(SESSION_A, "111111");
+        ChatSession b = session(SESSION_B, "222222");
+        when(chatSessionRepository.findById(SESSION_A)).thenReturn(Optional.of(a));
+        when(chatSessionRepository.findById(SESSION_B)).thenReturn(Optional.of(b));
+        when(chatSessionRepository.existsById(any(UUID.class))).thenReturn(true);
+        when(chatSessionRepository.touch(any(UUID.class), any())).thenReturn(1);
+        when(chatSessionRepository.save(any(ChatSession.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(chatMessageRepository.findBySessionId(any(UUID.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of()));
+        when(chatMessageRepository.saveAndFlush(any(ChatMessage.class))).thenAnswer(inv -> {
+            ChatMessage message = inv.getArgument(0);
+            message.setId(UUID.randomUUID());
+            return message;
+        });
+    }
+
+    @Test
+    void testToggleFavoriteEvictsOnlyThatSession() {
+        warmUp();
+        double sessionEvictions = invalidations("chatSessionById");
+
+        chatService.toggleFavorite(SESSION_A);
+        warmUp();
+
+        // One lookup by toggleFavorite itself, one cache miss afterwards
+        verify(chatSessionRepository, times(3)).findById(SESSION_A);
+        verify(chatSessionRepository, times(1)).findById(SESSION_B);
+        assertEquals(sessionEvictions + 1, invalidations("chatSessionById"));
+    }
+
+    @Test
+    void testAddMessageInvalidatesOnlyThatSessionsPages() {
+        chatService.getMessages(SESSION_A, 1, 10);
+        chatService.getMessages(SESSION_A, 2, 10);
+        chatService.getMessages(SESSION_B, 1, 10);
+
+        chatService.addMessage(SESSION_A, message("Hello"));
+        chatService.getMessages(SESSION_A, 1, 10);
+        chatService.getMessages(SESSION_A, 2, 10);
+        chatService.getMessages(SESSION_B, 1, 10);
+
+        verify(chatMessageRepository, times(4)).findBySessionId(eq(SESSION_A), any(Pageable.class));
+        verify(chatMessageRepository, times(1)).findBySessionId(eq(SESSION_B), any(Pageable.class));
+        verify(chatSessionRepository).touch(eq(SESSION_A), any());
+    }
+
+    @Test
+    void testDeleteSessionInvalidatesItsEntriesAndPages() {
+        warmUp();
+        chatService.getMessages(SESSION_A, 1, 10);
+        when(chatSessionRepository.markDeleted(eq(SESSION_A), any())).thenReturn(1);
+
+        chatService.deleteSession(SESSION_A);
+        warmUp();
+        chatService.getMessages(SESSION_A, 1, 10);
+
+        // The first warm-up and one cache miss afterwards; deleteSession itself loads nothing
+        verify(chatSessionRepository, times(2)).findById(SESSION_A);
+        verify(chatSessionRepository, times(1)).findById(SESSION_B);
+        verify(chatMessageRepository, times(2)).findBySessionId(eq(SESSION_A), any(Pageable.class));
+    }
+
+    private void warmUp() {
+        chatService.getSessionById(SESSION_A);
+        chatService.getSessionById(SESSION_B);
+    }
+
+    private double invalidations(String cache) {
+        return meterRegistry.get("chat.cache.invalidations").tag("cache", cache).counter().count();
+    }
+
+    private static ChatSession session(UUID id, String userId) {
+        ChatSession session = new ChatSession();
+        session.setId(id);
+        session.setUserId(userId);
+        session.setName("Support Chat");
+        return session;
+    }
+
+    private static MessageDTO message(String text) {
+        MessageDTO dto = new MessageDTO();
+        dto.setSender("user");
+        dto.setMessage(text);
+        return dto;
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfig {
+
+        // Boot's converters, so @Value fields such as DataSize/Duration bind as in the application
+        @Bean
+        static ConversionService conversionService() {
+            return ApplicationConversionService.getSharedInstance();
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("chatSessions", "chatMessages", "chatSessionById");
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ChatSessionRepository chatSessionRepository() {
+            return Mockito.mock(ChatSessionRepository.class);
+        }
+
+        @Bean
+        ChatMessageRepository chatMessageRepository() {
+            return Mockito.mock(ChatMessageRepository.class);
+        }
+
+        @Bean
+        ChatMapper chatMapper() {
+            return Mappers.getMapper(ChatMapper.class);
+        }
+
+        @Bean
+        ConversationContextService conversationContextService() {
+            return Mockito.mock(ConversationContextService.class);
+        }
+
+        @Bean
+        MessageRetrievalService messageRetrievalService() {
+            return Mockito.mock(MessageRetrievalService.class);
+        }
+
+        @Bean
+        SessionPurgeService sessionPurgeService() {
+            return Mockito.mock(SessionPurgeService.class);
+        }
+
+        @Bean
+        MessageArchiveService messageArchiveService() {
+            return Mockito.mock(MessageArchiveService.class);
+        }
+
+        @Bean
+        ChatCacheInvalidator chatCacheInvalidator(CacheManager cacheManager, MeterRegistry meterRegistry) {
+            return new ChatCacheInvalidator(cacheManager, meterRegistry);
+        }
+
+        @Bean
+        ChatService chatService() {
+            return new ChatService();
+        }
+    }
+}
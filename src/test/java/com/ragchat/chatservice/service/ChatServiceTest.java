@@ -1,18 +1,31 @@
 package com.ragchat.chatservice.service;
 
 import com.ragchat.chatservice.dto.ApiResponseDTO;
+import com.ragchat.chatservice.dto.ChatExchangeDTO;
 import com.ragchat.chatservice.dto.ChatSessionDTO;
+import com.ragchat.chatservice.dto.MessageCursor;
+import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.dto.MessagePageDTO;
+import com.ragchat.chatservice.dto.SessionCursor;
+import com.ragchat.chatservice.dto.SessionPageDTO;
+import com.ragchat.chatservice.dto.SessionSummaryDTO;
 import com.ragchat.chatservice.exception.ResourceNotFoundException;
+import com.ragchat.chatservice.mapper.ChatMapper;
+import com.ragchat.chatservice.model.ChatMessage;
 import com.ragchat.chatservice.model.ChatSession;
 import com.ragchat.chatservice.repository.ChatSessionRepository;
 import com.ragchat.chatservice.repository.ChatMessageRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -28,7 +41,22 @@ public class ChatServiceTest {
     private ChatMessageRepository chatMessageRepository;
 
     @Mock
-    private ModelMapper modelMapper;
+    private ChatMapper chatMapper;
+
+    @Mock
+    private ConversationContextService conversationContextService;
+
+    @Mock
+    private ChatCacheInvalidator cacheInvalidator;
+
+    @Mock
+    private MessageRetrievalService messageRetrievalService;
+
+    @Mock
+    private SessionPurgeService sessionPurgeService;
+
+    @Mock
+    private MessageArchiveService messageArchiveService;
 
     @InjectMocks
     private ChatService chatService;
@@ -52,9 +80,9 @@ public class ChatServiceTest {
 
     @Test
     void testCreateSessionSuccess() {
-        when(modelMapper.map(dto, ChatSession.class)).thenReturn(session);
+        when(chatMapper.toEntity(dto)).thenReturn(session);
         when(chatSessionRepository.saveAndFlush(any(ChatSession.class))).thenReturn(session);
-        when(modelMapper.map(session, ChatSessionDTO.class)).thenReturn(dto);
+        when(chatMapper.toDto(session)).thenReturn(dto);
 
         ApiResponseDTO response = chatService.createSession(dto);
 
@@ -80,7 +108,7 @@ public class ChatServiceTest {
     void testUpdateSession_ValidUpdate() {
         when(chatSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
         when(chatSessionRepository.save(any(ChatSession.class))).thenReturn(session);
-        when(modelMapper.map(session, ChatSessionDTO.class)).thenReturn(dto);
+        when(chatMapper.toDto(session)).thenReturn(dto);
 
         dto.setName("Updated Chat");
         ApiResponseDTO response = chatService.updateSession(session.getId(), dto);
@@ -99,13 +127,192 @@ public class ChatServiceTest {
 
     @Test
     void testDeleteSession_Success() {
-        when(chatSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+        when(chatSessionRepository.markDeleted(eq(session.getId()), any(LocalDateTime.class))).thenReturn(1);
 
         ApiResponseDTO response = chatService.deleteSession(session.getId());
 
         assertEquals(200, response.getCode());
         assertEquals("Session deleted successfully", response.getMessage());
-        verify(chatMessageRepository, times(1)).deleteBySessionId(session.getId());
-        verify(chatSessionRepository, times(1)).delete(session);
+        verify(cacheInvalidator).sessionDeleted(session.getId());
+        verify(sessionPurgeService).purgeAfterCommit(session.getId());
+        // Messages are purged in the background, never loaded or deleted on the request path
+        verifyNoInteractions(chatMessageRepository);
+        verify(chatSessionRepository, never()).delete(any(ChatSession.class));
+    }
+
+    @Test
+    void testDeleteSession_NotFound() {
+        when(chatSessionRepository.markDeleted(any(UUID.class), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThrows(ResourceNotFoundException.class, () -> chatService.deleteSession(session.getId()));
+        verifyNoInteractions(sessionPurgeService);
+    }
+
+    @Test
+    void testRecordExchange_StoresBothMessagesTogether() {
+        MessageDTO question = messageDto("user", "What is RTGS?");
+        MessageDTO reply = messageDto("assistant", "Real-time gross settlement.");
+        ChatMessage questionRow = message(LocalDateTime.now());
+        ChatMessage replyRow = message(LocalDateTime.now());
+        MessageDTO storedQuestion = messageDto("user", "What is RTGS?");
+        MessageDTO storedReply = messageDto("assistant", "Real-time gross settlement.");
+
+        when(chatSessionRepository.getReferenceById(session.getId())).thenReturn(session);
+        when(chatMapper.toEntity(question)).thenReturn(questionRow);
+        when(chatMapper.toEntity(reply)).thenReturn(replyRow);
+        when(chatMessageRepository.saveAll(List.of(questionRow, replyRow))).thenReturn(List.of(questionRow, replyRow));
+        when(chatSessionRepository.touch(session.getId(), replyRow.getCreatedAt())).thenReturn(1);
+        when(chatMapper.toDto(questionRow)).thenReturn(storedQuestion);
+        when(chatMapper.toDto(replyRow)).thenReturn(storedReply);
+
+        ChatExchangeDTO exchange = chatService.recordExchange(session.getId(), question, reply);
+
+        assertSame(storedQuestion, exchange.getUserMessage());
+        assertSame(storedReply, exchange.getAssistantMessage());
+        assertSame(session, questionRow.getSession());
+        assertSame(session, replyRow.getSession());
+        verify(chatSessionRepository, never()).findById(any());
+        verify(chatMessageRepository, times(1)).flush();
+        verify(chatSessionRepository).touch(session.getId(), replyRow.getCreatedAt());
+        verify(conversationContextService).append(session.getId(), storedQuestion);
+        verify(conversationContextService).append(session.getId(), storedReply);
+        verify(messageRetrievalService).messageStored(session.getId(), storedReply);
+        verify(cacheInvalidator).messagesChanged(session.getId());
+    }
+
+    @Test
+    void testRecordExchange_MissingSession() {
+        when(chatSessionRepository.getReferenceById(session.getId())).thenReturn(session);
+        when(chatMapper.toEntity(any(MessageDTO.class))).thenAnswer(invocation -> new ChatMessage());
+        doThrow(new DataIntegrityViolationException("fk_chat_message_session",
+                new SQLException("referenced session is missing", "23503"))).when(chatMessageRepository).flush();
+
+        assertThrows(ResourceNotFoundException.class, () -> chatService.recordExchange(session.getId(),
+                messageDto("user", "Hi"), messageDto("assistant", "Hello")));
+        verify(conversationContextService, never()).append(any(), any());
+    }
+
+    @Test
+    void testRecordExchange_SessionDeletedWhileReplyWasGenerated() {
+        // The soft-deleted row still satisfies the foreign key; the live-session touch updates nothing
+        when(chatSessionRepository.getReferenceById(session.getId())).thenReturn(session);
+        when(chatMapper.toEntity(any(MessageDTO.class))).thenAnswer(invocation -> new ChatMessage());
+        when(chatMessageRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(chatSessionRepository.touch(eq(session.getId()), any())).thenReturn(0);
+
+        assertThrows(ResourceNotFoundException.class, () -> chatService.recordExchange(session.getId(),
+                messageDto("user", "Hi"), messageDto("assistant", "Hello")));
+        verify(conversationContextService, never()).append(any(), any());
+        verify(messageRetrievalService, never()).messageStored(any(), any());
+        verify(cacheInvalidator, never()).messagesChanged(any());
+    }
+
+    @Test
+    void testRecordExchange_OtherConstraintViolationIsNotNotFound() {
+        when(chatSessionRepository.getReferenceById(session.getId())).thenReturn(session);
+        when(chatMapper.toEntity(any(MessageDTO.class))).thenAnswer(invocation -> new ChatMessage());
+        doThrow(new DataIntegrityViolationException("not-null sender",
+                new SQLException("null value in column \"sender\"", "23502"))).when(chatMessageRepository).flush();
+
+        assertThrows(DataIntegrityViolationException.class, () -> chatService.recordExchange(session.getId(),
+                messageDto("user", "Hi"), messageDto("assistant", "Hello")));
+    }
+
+    @Test
+    void testGetMessagesByCursor_ReturnsNextCursorWhenMoreExist() {
+        LocalDateTime base = LocalDateTime.of(2025, 10, 27, 20, 0);
+        ChatMessage m1 = message(base);
+        ChatMessage m2 = message(base.plusSeconds(1));
+        ChatMessage m3 = message(base.plusSeconds(2));
+        MessageCursor after = new MessageCursor(base.minusSeconds(1), UUID.randomUUID());
+
+        when(chatSessionRepository.existsById(session.getId())).thenReturn(true);
+        when(chatMessageRepository.findPageAfter(session.getId(), after.createdAt(), after.id(), 3))
+                .thenReturn(List.of(m1, m2, m3));
+        when(chatMapper.toDto(any(ChatMessage.class))).thenReturn(new MessageDTO());
+
+        ApiResponseDTO response = chatService.getMessagesByCursor(session.getId(), after.encode(), null, 2);
+        MessagePageDTO page = (MessagePageDTO) response.getData();
+
+        assertEquals(2, page.getMessages().size());
+        assertTrue(page.isHasMore());
+        assertEquals(new MessageCursor(m2.getCreatedAt(), m2.getId()), MessageCursor.decode(page.getNextCursor()));
+        assertEquals(new MessageCursor(m1.getCreatedAt(), m1.getId()), MessageCursor.decode(page.getPrevCursor()));
+    }
+
+    @Test
+    void testGetMessagesByCursor_InvalidCursor() {
+        when(chatSessionRepository.existsById(session.getId())).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                chatService.getMessagesByCursor(session.getId(), "not-a-cursor", null, 10));
+    }
+
+    @Test
+    void testGetSessions_ReturnsNextCursorWhenMoreExist() {
+        LocalDateTime base = LocalDateTime.of(2025, 10, 27, 20, 0);
+        SessionSummaryDTO favorite = summary(true, base);
+        SessionSummaryDTO recent = summary(false, base.plusMinutes(5));
+        SessionSummaryDTO older = summary(false, base.plusMinutes(1));
+        SessionCursor after = new SessionCursor(true, base.plusMinutes(9), UUID.randomUUID());
+
+        when(chatSessionRepository.findSummariesAfter("123451", true, after.updatedAt(), after.id(), Limit.of(3)))
+                .thenReturn(List.of(favorite, recent, older));
+
+        SessionPageDTO page = (SessionPageDTO) chatService.getSessions("123451", after.encode(), 2).getData();
+
+        assertEquals(List.of(favorite, recent), page.getSessions());
+        assertTrue(page.isHasMore());
+        assertEquals(new SessionCursor(false, recent.getUpdatedAt(), recent.getId()), SessionCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void testGetSessions_LastPage() {
+        when(chatSessionRepository.findSummaries("123451", Limit.of(101)))
+                .thenReturn(List.of(summary(false, LocalDateTime.now())));
+
+        SessionPageDTO page = (SessionPageDTO) chatService.getSessions("123451", null, 500).getData();
+
+        assertEquals(1, page.getSessions().size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> chatService.getSessions("123451", "not-a-cursor", 20));
+    }
+
+    @Test
+    void testGetMessages_PageSpansArchiveAndStoredMessages() {
+        ChatMessage stored = message(LocalDateTime.now());
+        MessageDTO storedDto = messageDto("assistant", "stored");
+        when(chatSessionRepository.existsById(session.getId())).thenReturn(true);
+        when(messageArchiveService.count(session.getId())).thenReturn(12L);
+        when(messageArchiveService.read(session.getId(), 10L, 5))
+                .thenReturn(List.of(messageDto("user", "archived 10"), messageDto("user", "archived 11")));
+        when(chatMessageRepository.findPageAtOffset(session.getId(), 0L, 3)).thenReturn(List.of(stored));
+        when(chatMapper.toDto(stored)).thenReturn(storedDto);
+
+        @SuppressWarnings("unchecked")
+        List<MessageDTO> page = (List<MessageDTO>) chatService.getMessages(session.getId(), 3, 5).getData();
+
+        assertEquals(List.of("archived 10", "archived 11", "stored"), page.stream().map(MessageDTO::getMessage).toList());
+        verify(chatMessageRepository, never()).findBySessionId(any(), any());
+    }
+
+    private static SessionSummaryDTO summary(boolean favorite, LocalDateTime updatedAt) {
+        return new SessionSummaryDTO(UUID.randomUUID(), "Support Chat", favorite, updatedAt, updatedAt, 0, null, null, null);
+    }
+
+    private static MessageDTO messageDto(String sender, String text) {
+        MessageDTO message = new MessageDTO();
+        message.setSender(sender);
+        message.setMessage(text);
+        return message;
+    }
+
+    private ChatMessage message(LocalDateTime createdAt) {
+        ChatMessage message = new ChatMessage();
+        message.setId(UUID.randomUUID());
+        message.setCreatedAt(createdAt);
+        message.setSession(session);
+        return message;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package com.ragchat.chatservice.service;
+
+import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.model.ChatMessage;
+import com.ragchat.chatservice.repository.ChatMessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ConversationContextServiceTest {
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConversationContextService contextService;
+    private UUID sessionId;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        contextService = new ConversationContextService(chatMessageRepository, meterRegistry);
+        ReflectionTestUtils.setField(contextService, "maxMessages", 3);
+        ReflectionTestUtils.setField(contextService, "maxTokens", 1000);
+        ReflectionTestUtils.setField(contextService, "memoryBudget", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(contextService, "idleTimeout", Duration.ofMinutes(5));
+        contextService.init();
+        sessionId = UUID.randomUUID();
+    }
+
+    @Test
+    void testHydratesOnceThenServesFromWindow() {
+        // Repository returns newest first
+        when(chatMessageRepository.findBySessionIdOrderByCreatedAtDesc(eq(sessionId), any(Pageable.class)))
+                .thenReturn(List.of(message("assistant", "Hi there"), message("user", "Hello")));
+
+        List<Map<String, Object>> first = contextService.buildContext(sessionId);
+        contextService.append(sessionId, dto("user", "What is RTGS?"));
+        List<Map<String, Object>> second = contextService.buildContext(sessionId);
+
+        assertEquals(List.of("Hello", "Hi there"), contents(first));
+        assertEquals(List.of("Hello", "Hi there", "What is RTGS?"), contents(second));
+        verify(chatMessageRepository, times(1)).findBySessionIdOrderByCreatedAtDesc(eq(sessionId), any(Pageable.class));
+        assertEquals(1.0, meterRegistry.get("chat.context.lookups").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("chat.context.lookups").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void testWindowKeepsOnlyLatestMessages() {
+        when(chatMessageRepository.findBySessionIdOrderByCreatedAtDesc(eq(sessionId), any(Pageable.class)))
+                .thenReturn(List.of());
+        contextService.buildContext(sessionId);
+
+        for (int i = 1; i <= 5; i++) {
+            contextService.append(sessionId, dto("user", "message " + i));
+        }
+
+        assertEquals(List.of("message 3", "message 4", "message 5"), contents(contextService.buildContext(sessionId)));
+    }
+
+    @Test
+    void testWindowRespectsTokenBudget() {
+        ReflectionTestUtils.setField(contextService, "maxTokens", 30);
+        contextService.init();
+        when(chatMessageRepository.findBySessionIdOrderByCreatedAtDesc(eq(sessionId), any(Pageable.class)))
+                .thenReturn(List.of());
+        contextService.buildContext(sessionId);
+
+        contextService.append(sessionId, dto("user", "x".repeat(80)));
+        contextService.append(sessionId, dto("assistant", "y".repeat(40)));
+
+        assertEquals(List.of("y".repeat(40)), contents(contextService.buildContext(sessionId)));
+    }
+
+    @Test
+    void testAppendIgnoredUntilWindowIsLoaded() {
+        contextService.append(sessionId, dto("user", "Hello"));
+
+        verifyNoInteractions(chatMessageRepository);
+    }
+
+    private static List<Object> contents(List<Map<String, Object>> prompt) {
+        return prompt.stream().map(m -> m.get("content")).toList();
+    }
+
+    private static ChatMessage message(String sender, String text) {
+        ChatMessage message = new ChatMessage();
+        message.setId(UUID.randomUUID());
+        message.setSender(sender);
+        message.setMessage(text);
+        return message;
+    }
+
+    private static MessageDTO dto(String sender, String text) {
+        MessageDTO dto = new MessageDTO();
+        dto.setId(UUID.randomUUID());
+        dto.setSender(sender);
+        dto.setMessage(text);
+        return dto;
+    }
+}
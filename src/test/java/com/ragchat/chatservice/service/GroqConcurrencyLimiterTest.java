@@ -0,0 +1,177 @@
+package com.ragchat.chatservice.service;
+
+import com.ragchat.chatservice.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GroqConcurrencyLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private GroqConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new GroqConcurrencyLimiter(meterRegistry);
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "initialLimit", 1);
+        ReflectionTestUtils.setField(limiter, "minLimit", 1);
+        ReflectionTestUtils.setField(limiter, "maxLimit", 20);
+        ReflectionTestUtils.setField(limiter, "rttTolerance", 1.5);
+        ReflectionTestUtils.setField(limiter, "backoffRatio", 0.5);
+        ReflectionTestUtils.setField(limiter, "maxQueue", 1);
+        ReflectionTestUtils.setField(limiter, "queueTimeout", Duration.ofMillis(100));
+        limiter.init();
+    }
+
+    @Test
+    void testShedsWhenQueueIsFullOrWaitTimesOut() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> limiter.run(() -> {
+            started.countDown();
+            await(release);
+            return "done";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> limiter.run(() -> "queued"));
+        while (limiter.getQueued() < 1) {
+            Thread.onSpinWait();
+        }
+        assertThrows(ServiceOverloadedException.class, () -> limiter.run(() -> "rejected"));
+
+        Exception timedOut = assertThrows(Exception.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ServiceOverloadedException.class, timedOut.getCause());
+        release.countDown();
+        assertEquals("done", running.get(5, TimeUnit.SECONDS));
+
+        assertEquals(1.0, rejected("queue_full"));
+        // Counted by the timer thread just after it fails the waiter
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (rejected("timeout") < 1.0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(1.0, rejected("timeout"));
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void testQueuedAsyncCallRunsWhenSlotFrees() {
+        Sinks.One<String> first = Sinks.one();
+        CompletableFuture<String> running = limiter.runAsync(first::asMono).toFuture();
+        CompletableFuture<String> queued = limiter.runAsync(() -> Mono.just("second")).toFuture();
+        assertEquals(1, limiter.getQueued());
+
+        first.tryEmitValue("first");
+
+        assertEquals("first", running.join());
+        assertEquals("second", queued.join());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testStreamHoldsSlotUntilItEnds() {
+        Sinks.Many<String> first = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> received = new ArrayList<>();
+        Disposable streaming = limiter.runFlux(first::asFlux).subscribe(received::add);
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(1.0, meterRegistry.get("groq.concurrency.inflight").gauge().value());
+
+        CompletableFuture<List<String>> queued = limiter.runFlux(() -> Flux.just("a", "b")).collectList().toFuture();
+        assertEquals(1, limiter.getQueued());
+        assertThrows(ServiceOverloadedException.class, () -> limiter.runFlux(() -> Flux.just("rejected")).blockLast());
+
+        first.tryEmitNext("token");
+        assertEquals(List.of("token"), received);
+        assertEquals(1, limiter.getInFlight());
+
+        // A client that goes away hands the slot to the queued stream
+        streaming.dispose();
+        assertEquals(List.of("a", "b"), queued.join());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void testLimitBacksOffOnUpstreamOverload() {
+        ReflectionTestUtils.setField(limiter, "initialLimit", 8);
+        limiter.init();
+
+        assertThrows(WebClientResponseException.class, () -> limiter.run(() -> {
+            throw WebClientResponseException.create(HttpStatus.SERVICE_UNAVAILABLE.value(), "Unavailable", null, null, null);
+        }));
+        assertEquals(4.0, limiter.getLimit());
+
+        // A client error says nothing about Groq's capacity
+        assertThrows(WebClientResponseException.class, () -> limiter.run(() -> {
+            throw WebClientResponseException.create(HttpStatus.BAD_REQUEST.value(), "Bad Request", null, null, null);
+        }));
+        assertEquals(4.0, limiter.getLimit());
+    }
+
+    @Test
+    void testLimitGrowsOnlyWhileSaturated() {
+        // One call at a time saturates a limit of 1 or 2, but not a larger one
+        for (int i = 0; i < 20; i++) {
+            limiter.run(() -> sleep(1));
+        }
+        assertTrue(limiter.getLimit() > 1.5, "limit grew to " + limiter.getLimit());
+        assertTrue(limiter.getLimit() <= 2.5, "limit grew to " + limiter.getLimit());
+    }
+
+    @Test
+    void testLimitShrinksWhenLatencyRises() {
+        ReflectionTestUtils.setField(limiter, "initialLimit", 20);
+        limiter.init();
+        for (int i = 0; i < 20; i++) {
+            limiter.run(() -> sleep(1));
+        }
+        assertEquals(20.0, limiter.getLimit());
+
+        // Calls now take far longer than the baseline
+        for (int i = 0; i < 10; i++) {
+            limiter.run(() -> sleep(30));
+        }
+        assertTrue(limiter.getLimit() < 17, "limit shrank to " + limiter.getLimit());
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("groq.concurrency.rejected").tag("reason", reason).counter().count();
+    }
+
+    private static String sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "ok";
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.ragchat.chatservice.service;
+
+import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.exception.ResourceNotFoundException;
+import com.ragchat.chatservice.exception.ServiceOverloadedException;
+import com.ragchat.chatservice.mapper.ChatMapper;
+import com.ragchat.chatservice.model.ChatMessage;
+import com.ragchat.chatservice.model.ChatSession;
+import com.ragchat.chatservice.repository.ChatMessageRepository;
+import com.ragchat.chatservice.repository.ChatSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class MessageIngestionServiceTest {
+
+    @Mock
+    private ChatSessionRepository chatSessionRepository;
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    @Mock
+    private ConversationContextService conversationContextService;
+
+    @Mock
+    private ChatCacheInvalidator cacheInvalidator;
+
+    @Mock
+    private MessageRetrievalService messageRetrievalService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MessageIngestionService ingestionService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        ingestionService = new MessageIngestionService(chatSessionRepository, chatMessageRepository,
+                Mappers.getMapper(ChatMapper.class), conversationContextService, cacheInvalidator, messageRetrievalService,
+                transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(ingestionService, "enabled", true);
+        ReflectionTestUtils.setField(ingestionService, "queueCapacity", 100);
+        ReflectionTestUtils.setField(ingestionService, "batchSize", 10);
+        ReflectionTestUtils.setField(ingestionService, "flushInterval", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(ingestionService, "offerTimeout", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(ingestionService, "ackTimeout", Duration.ofSeconds(5));
+
+        when(chatSessionRepository.getReferenceById(any(UUID.class))).thenAnswer(inv -> {
+            ChatSession session = new ChatSession();
+            session.setId(inv.getArgument(0));
+            return session;
+        });
+        when(chatSessionRepository.touch(any(UUID.class), any(LocalDateTime.class))).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        ingestionService.stop();
+    }
+
+    @Test
+    void testSubmitAndWaitReturnsStoredMessage() {
+        UUID sessionId = UUID.randomUUID();
+        when(chatMessageRepository.saveAll(anyList())).thenAnswer(inv -> assignIds(inv.getArgument(0)));
+        ingestionService.start();
+
+        MessageDTO stored = ingestionService.submitAndWait(sessionId, dto("Hello"));
+
+        assertNotNull(stored.getId());
+        assertEquals("Hello", stored.getMessage());
+        verify(conversationContextService).append(sessionId, stored);
+        verify(messageRetrievalService).messageStored(sessionId, stored);
+        verify(cacheInvalidator).messagesChanged(sessionId);
+        verify(chatSessionRepository).touch(eq(sessionId), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testFailedBatchIsRetriedPerMessage() {
+        UUID goodSession = UUID.randomUUID();
+        UUID deletedSession = UUID.randomUUID();
+        CountDownLatch blockFlusher = new CountDownLatch(1);
+
+        when(chatMessageRepository.saveAll(anyList())).thenAnswer(inv -> {
+            blockFlusher.await();
+            List<ChatMessage> batch = inv.getArgument(0);
+            if (batch.stream().anyMatch(m -> deletedSession.equals(m.getSession().getId()))) {
+                throw new DataIntegrityViolationException("fk_chat_message_session",
+                        new SQLException("referenced session is missing", "23503"));
+            }
+            return assignIds(batch);
+        });
+        ingestionService.start();
+
+        // The first message occupies the flusher so the next two share a batch
+        ingestionService.submit(goodSession, dto("warm-up"));
+        Thread worker = new Thread(() -> ingestionService.submitAndWait(goodSession, dto("kept")));
+        worker.start();
+        ingestionService.submit(deletedSession, dto("orphan"));
+        blockFlusher.countDown();
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> ingestionService.submitAndWait(deletedSession, dto("orphan again")));
+        assertDoesNotThrow(() -> worker.join(5000));
+    }
+
+    @Test
+    void testMessageForSoftDeletedSessionIsNotFound() {
+        UUID deletedSession = UUID.randomUUID();
+        // Still passes the foreign key; only the touch sees deleted_at
+        when(chatMessageRepository.saveAll(anyList())).thenAnswer(inv -> assignIds(inv.getArgument(0)));
+        when(chatSessionRepository.touch(eq(deletedSession), any(LocalDateTime.class))).thenReturn(0);
+        ingestionService.start();
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> ingestionService.submitAndWait(deletedSession, dto("too late")));
+        verify(conversationContextService, never()).append(any(), any());
+        verify(messageRetrievalService, never()).messageStored(any(), any());
+    }
+
+    @Test
+    void testRejectsWhenQueueIsFull() throws InterruptedException {
+        ReflectionTestUtils.setField(ingestionService, "queueCapacity", 1);
+        CountDownLatch blockFlusher = new CountDownLatch(1);
+        when(chatMessageRepository.saveAll(anyList())).thenAnswer(inv -> {
+            blockFlusher.await();
+            return assignIds(inv.getArgument(0));
+        });
+        ingestionService.start();
+
+        UUID sessionId = UUID.randomUUID();
+        ingestionService.submit(sessionId, dto("taken by the flusher"));
+        Thread.sleep(50);
+        ingestionService.submit(sessionId, dto("fills the queue"));
+
+        assertThrows(ServiceOverloadedException.class, () -> ingestionService.submit(sessionId, dto("rejected")));
+        blockFlusher.countDown();
+    }
+
+    private static List<ChatMessage> assignIds(List<ChatMessage> batch) {
+        batch.forEach(m -> {
+            m.setId(UUID.randomUUID());
+            m.setCreatedAt(LocalDateTime.now());
+        });
+        return batch;
+    }
+
+    private static MessageDTO dto(String text) {
+        MessageDTO dto = new MessageDTO();
+        dto.setSender("user");
+        dto.setMessage(text);
+        return dto;
+    }
+}
@@ -0,0 +1,108 @@
+package com.ragchat.chatservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+/**
+ * Partition bounds as PostgreSQL prints them, and the statements maintenance issues; the
+ * maintenance SQL itself needs PostgreSQL.
+ */
+public class MessagePartitionServiceTest {
+
+    private static final LocalDateTime OCTOBER = LocalDateTime.of(2026, 10, 1, 0, 0);
+    private static final LocalDateTime NOVEMBER = OCTOBER.plusMonths(1);
+
+    @Test
+    void testParsesMonthlyPartition() {
+        MessagePartitionService.Partition partition = MessagePartitionService.parse("chat_message_p202610",
+                "FOR VALUES FROM ('2026-10-01 00:00:00') TO ('2026-11-01 00:00:00')");
+
+        assertEquals(OCTOBER, partition.from());
+        assertEquals(NOVEMBER, partition.to());
+        assertTrue(partition.overlaps(OCTOBER, NOVEMBER));
+        assertFalse(partition.overlaps(NOVEMBER, NOVEMBER.plusMonths(1)));
+    }
+
+    @Test
+    void testParsesLegacyAndDefaultPartitions() {
+        MessagePartitionService.Partition legacy = MessagePartitionService.parse("chat_message_legacy",
+                "FOR VALUES FROM (MINVALUE) TO ('2026-11-01 00:00:00')");
+        MessagePartitionService.Partition fallback = MessagePartitionService.parse("chat_message_default", "DEFAULT");
+
+        assertNull(legacy.from());
+        assertTrue(legacy.overlaps(OCTOBER, NOVEMBER));
+        assertFalse(legacy.overlaps(NOVEMBER, NOVEMBER.plusMonths(1)));
+        assertTrue(fallback.fallback());
+        assertFalse(fallback.overlaps(OCTOBER, NOVEMBER));
+        assertThrows(IllegalStateException.class,
+                () -> MessagePartitionService.parse("odd", "FOR VALUES IN ('x')"));
+    }
+
+    // Rows written while maintenance was off land in the default partition; creating their
+    // month must move them out first, or PostgreSQL rejects the new partition
+    @Test
+    void testCreatesPartitionOverRowsInDefaultPartition() throws SQLException {
+        LocalDateTime month = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+        LocalDateTime stray = month.minusMonths(2);
+        String strayName = "chat_message_p" + DateTimeFormatter.ofPattern("yyyyMM").format(stray);
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(partitionRow("chat_message_legacy", "FOR VALUES FROM (MINVALUE) TO ('"
+                    + stray.toLocalDate() + " 00:00:00')"));
+            handler.processRow(partitionRow("chat_message_default", "DEFAULT"));
+            return null;
+        }).when(jdbc).query(startsWith("SELECT c.relname"), any(RowCallbackHandler.class));
+        when(jdbc.queryForList(startsWith("SELECT DISTINCT"), eq(LocalDateTime.class))).thenReturn(List.of(stray));
+        when(jdbc.queryForObject(startsWith("SELECT EXISTS"), eq(Boolean.class), any(), any())).thenReturn(false);
+        when(jdbc.queryForObject(startsWith("SELECT EXISTS"), eq(Boolean.class), eq(stray), eq(stray.plusMonths(1))))
+                .thenReturn(true);
+        when(jdbc.update(contains("WITH moved"), eq(stray), eq(stray.plusMonths(1)))).thenReturn(4);
+
+        MessagePartitionService partitionService = new MessagePartitionService(jdbc,
+                mock(MessageArchiveService.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(partitionService, "premakeMonths", 1);
+        ReflectionTestUtils.setField(partitionService, "hotMonths", 120);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        partitionService.maintain(jdbc, new TransactionTemplate(transactionManager));
+
+        InOrder order = inOrder(jdbc, transactionManager);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(jdbc).execute("ALTER TABLE chat_message DETACH PARTITION \"chat_message_default\"");
+        order.verify(jdbc).execute(contains("\"" + strayName + "\" PARTITION OF chat_message"));
+        order.verify(jdbc).update(contains("DELETE FROM \"chat_message_default\""), eq(stray), eq(stray.plusMonths(1)));
+        order.verify(jdbc).execute("ALTER TABLE chat_message ATTACH PARTITION \"chat_message_default\" DEFAULT");
+        order.verify(transactionManager).commit(any());
+
+        // The current and next month have no stray rows and are created directly
+        verify(jdbc, times(1)).execute(startsWith("ALTER TABLE chat_message DETACH"));
+        verify(jdbc, times(3)).execute(startsWith("CREATE TABLE IF NOT EXISTS"));
+    }
+
+    private static ResultSet partitionRow(String name, String bound) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString(1)).thenReturn(name);
+        when(rs.getString(2)).thenReturn(bound);
+        return rs;
+    }
+}
@@ -0,0 +1,206 @@
+package com.ragchat.chatservice.service;
+
+import com.ragchat.chatservice.dto.MessageDTO;
+import com.ragchat.chatservice.dto.RetrievedMessageDTO;
+import com.ragchat.chatservice.embedding.HashedNgramEmbedder;
+import com.ragchat.chatservice.embedding.QuantizedVectorStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Embedding, indexing and retrieval against H2 (PostgreSQL mode).
+ */
+public class MessageRetrievalServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 10, 27, 20, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private MessageRetrievalService retrievalService;
+    private UUID session;
+    private UUID otherSession;
+    private UUID pinMessage;
+
+    @BeforeEach
+    void setup() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("db/reactive-schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        session = session("123451");
+        otherSession = session("123451");
+        UUID strangerSession = session("999999");
+        pinMessage = message(session, "How do I reset the PIN of my debit card?", 1);
+        message(session, "What is the RTGS cut-off time?", 2);
+        message(otherSession, "Set up a standing order to my savings account", 3);
+        message(otherSession, "I forgot my credit card PIN", 4);
+        message(strangerSession, "Reset my debit card PIN please", 5);
+
+        start("");
+        awaitVectors(5);
+    }
+
+    private void start(String storePath) throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        retrievalService = new MessageRetrievalService(new HashedNgramEmbedder(512), jdbcTemplate, meterRegistry);
+        ReflectionTestUtils.setField(retrievalService, "enabled", true);
+        ReflectionTestUtils.setField(retrievalService, "augmentPrompts", true);
+        ReflectionTestUtils.setField(retrievalService, "storePath", storePath);
+        ReflectionTestUtils.setField(retrievalService, "hnswM", 16);
+        ReflectionTestUtils.setField(retrievalService, "efConstruction", 100);
+        ReflectionTestUtils.setField(retrievalService, "efSearch", 64);
+        ReflectionTestUtils.setField(retrievalService, "minSimilarity", 0.2);
+        ReflectionTestUtils.setField(retrievalService, "maxResults", 20);
+        ReflectionTestUtils.setField(retrievalService, "promptResults", 3);
+        ReflectionTestUtils.setField(retrievalService, "queueCapacity", 100);
+        ReflectionTestUtils.setField(retrievalService, "catchUpInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(retrievalService, "catchUpOverlap", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(retrievalService, "sweepInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(retrievalService, "compactRatio", 0.25);
+        retrievalService.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        retrievalService.stop();
+    }
+
+    @Test
+    void testRetrievesMostSimilarMessagesOfTheUserOnly() {
+        List<RetrievedMessageDTO> hits = retrievalService.retrieve("123451", null, "reset my card pin", 5);
+
+        assertEquals(pinMessage, hits.get(0).getId());
+        assertEquals("I forgot my credit card PIN", hits.get(1).getMessage());
+        assertTrue(hits.get(0).getScore() >= hits.get(1).getScore());
+        assertTrue(hits.stream().noneMatch(hit -> hit.getMessage().startsWith("Reset my debit")));
+    }
+
+    @Test
+    void testSessionFilter() {
+        List<RetrievedMessageDTO> hits = retrievalService.retrieve("123451", otherSession, "reset my card pin", 5);
+
+        assertEquals("I forgot my credit card PIN", hits.get(0).getMessage());
+        assertTrue(hits.stream().allMatch(hit -> hit.getSessionId().equals(otherSession)));
+    }
+
+    @Test
+    void testNewMessagesAreIndexedAndDeletedOnesDropped() throws Exception {
+        UUID id = message(otherSession, "Where is the nearest ATM for cash withdrawal?", 6);
+        MessageDTO stored = new MessageDTO();
+        stored.setId(id);
+        stored.setMessage("Where is the nearest ATM for cash withdrawal?");
+        retrievalService.messageStored(otherSession, stored);
+        awaitVectors(6);
+
+        assertEquals(id, retrievalService.retrieve("123451", null, "nearest ATM", 1).get(0).getId());
+
+        jdbcTemplate.update("DELETE FROM chat_message WHERE id = ?", pinMessage);
+        assertTrue(retrievalService.retrieve("123451", null, "reset my card pin", 5).stream()
+                .noneMatch(hit -> hit.getId().equals(pinMessage)));
+    }
+
+    @Test
+    void testSweepRemovesVectorsOfDeletedMessagesAndCompacts() {
+        jdbcTemplate.update("DELETE FROM chat_message WHERE id = ?", pinMessage);
+        jdbcTemplate.update("UPDATE chat_session SET deleted_at = ? WHERE id = ?", Timestamp.valueOf(T0), otherSession);
+
+        retrievalService.sweep();
+
+        assertEquals(2.0, meterRegistry.get("chat.retrieval.vectors").gauge().value());
+        QuantizedVectorStore store = (QuantizedVectorStore) ReflectionTestUtils.getField(
+                ReflectionTestUtils.getField(retrievalService, "catalog"), "store");
+        assertEquals(2, store.size());
+        assertEquals(0, store.removed());
+        assertEquals("What is the RTGS cut-off time?",
+                retrievalService.retrieve("123451", null, "RTGS cut-off", 5).get(0).getMessage());
+        assertEquals(1, retrievalService.retrieve("999999", null, "reset my debit card pin", 5).size());
+    }
+
+    @Test
+    void testRestartOnlyReadsMessagesAfterHighWaterMark(@TempDir Path dir) throws Exception {
+        String storePath = dir.resolve("vectors.bin").toString();
+        retrievalService.stop();
+        start(storePath);
+        awaitVectors(5);
+        retrievalService.stop();
+
+        // Created before the high-water mark minus the overlap, so a restart does not read it
+        message(session, "How do I reset the PIN of my debit card online?", -10);
+        UUID atm = message(otherSession, "Where is the nearest ATM for cash withdrawal?", 10);
+        start(storePath);
+        awaitVectors(6);
+
+        assertEquals(6.0, meterRegistry.get("chat.retrieval.vectors").gauge().value());
+        assertEquals(atm, retrievalService.retrieve("123451", null, "nearest ATM", 1).get(0).getId());
+        assertEquals(pinMessage, retrievalService.retrieve("123451", null, "reset my card pin", 1).get(0).getId());
+    }
+
+    @Test
+    void testAugmentAddsRelatedMessagesNotAlreadyInPrompt() {
+        List<Map<String, Object>> prompt = List.of(Map.of("role", "user", "content", "I forgot my credit card PIN"));
+
+        List<Map<String, Object>> augmented = retrievalService.augment("123451", prompt, "I forgot my credit card PIN");
+
+        assertEquals(2, augmented.size());
+        assertEquals("system", augmented.get(0).get("role"));
+        String related = (String) augmented.get(0).get("content");
+        assertTrue(related.contains("user: How do I reset the PIN of my debit card?"), related);
+        assertFalse(related.contains("I forgot my credit card PIN"), related);
+        assertSame(prompt.get(0), augmented.get(1));
+    }
+
+    @Test
+    void testRejectsInvalidQuery() {
+        assertThrows(IllegalArgumentException.class, () -> retrievalService.retrieve("123451", null, " ", 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> retrievalService.retrieve("123451", null, "x".repeat(2001), 5));
+        assertTrue(retrievalService.retrieve("555555", null, "card pin", 5).isEmpty());
+    }
+
+    // Waits until the worker has stored and linked the given number of vectors
+    private void awaitVectors(int count) throws InterruptedException {
+        ThreadPoolExecutor worker = (ThreadPoolExecutor) ReflectionTestUtils.getField(retrievalService, "worker");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("chat.retrieval.vectors").gauge().value() < count
+                || worker.getActiveCount() > 0 || !worker.getQueue().isEmpty()) {
+            assertTrue(System.currentTimeMillis() < deadline, "vectors were not indexed in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private UUID session(String userId) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO chat_session (id, user_id, name, favorite, created_at, updated_at) "
+                + "VALUES (?, ?, 'Support Chat', false, ?, ?)", id, userId, Timestamp.valueOf(T0), Timestamp.valueOf(T0));
+        return id;
+    }
+
+    // Each message is written the given number of minutes after T0
+    private UUID message(UUID sessionId, String text, int minute) {
+        UUID id = UUID.randomUUID();
+        Timestamp createdAt = Timestamp.valueOf(T0.plusMinutes(minute));
+        jdbcTemplate.update("INSERT INTO chat_message (id, session_id, sender, message, created_at, updated_at) "
+                + "VALUES (?, ?, 'user', ?, ?, ?)", id, sessionId, text, createdAt, createdAt);
+        return id;
+    }
+}
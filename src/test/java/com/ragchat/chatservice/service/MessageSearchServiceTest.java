@@ -0,0 +1,129 @@
+package com.ragchat.chatservice.service;
+
+import com.ragchat.chatservice.dto.MessageSearchHitDTO;
+import com.ragchat.chatservice.dto.MessageSearchPageDTO;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The substring fallback over H2 (PostgreSQL mode); full-text search itself needs PostgreSQL.
+ */
+public class MessageSearchServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 10, 27, 20, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private MessageSearchService searchService;
+    private UUID session;
+    private UUID otherSession;
+
+    @BeforeEach
+    void setup() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("db/reactive-schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        searchService = new MessageSearchService(jdbcTemplate);
+        ReflectionTestUtils.setField(searchService, "language", "english");
+        searchService.init();
+
+        session = session("123451");
+        otherSession = session("123451");
+        UUID strangerSession = session("999999");
+        message(session, "How do I check my account balance?", 1);
+        message(session, "Your ACCOUNT balance is shown in the mobile app.", 2);
+        message(session, "What is RTGS?", 3);
+        message(otherSession, "Transfer from my savings account to checking, balance first", 4);
+        message(otherSession, "Fees are 100% waived", 5);
+        message(strangerSession, "My account balance is secret", 6);
+    }
+
+    @Test
+    void testMatchesAllWordsAcrossUserSessionsNewestFirst() {
+        MessageSearchPageDTO page = search(null, "Account balance", null, 20);
+
+        assertEquals(List.of(4, 2, 1), minutesOf(page.getHits()));
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        assertEquals("Your <mark>ACCOUNT</mark> <mark>balance</mark> is shown in the mobile app.",
+                page.getHits().get(1).getSnippet());
+    }
+
+    @Test
+    void testSessionFilter() {
+        MessageSearchPageDTO page = search(session, "balance", null, 20);
+
+        assertEquals(List.of(2, 1), minutesOf(page.getHits()));
+        assertTrue(page.getHits().stream().allMatch(hit -> hit.getSessionId().equals(session)));
+    }
+
+    @Test
+    void testKeysetPagination() {
+        MessageSearchPageDTO first = search(null, "balance", null, 2);
+        assertEquals(List.of(4, 2), minutesOf(first.getHits()));
+        assertTrue(first.isHasMore());
+
+        MessageSearchPageDTO second = search(null, "balance", first.getNextCursor(), 2);
+        assertEquals(List.of(1), minutesOf(second.getHits()));
+        assertFalse(second.isHasMore());
+    }
+
+    @Test
+    void testLikeWildcardsInQueryAreLiteral() {
+        assertEquals(List.of(5), minutesOf(search(null, "100%", null, 20).getHits()));
+        assertTrue(search(null, "_", null, 20).getHits().isEmpty());
+    }
+
+    @Test
+    void testRejectsInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> search(null, " ", null, 20));
+        assertThrows(IllegalArgumentException.class, () -> search(null, "x".repeat(201), null, 20));
+        assertThrows(IllegalArgumentException.class, () -> search(null, "balance", "not-a-cursor", 20));
+    }
+
+    @Test
+    void testHighlightTrimsLongMessagesAroundFirstMatch() {
+        String message = "a".repeat(300) + " settlement " + "b".repeat(300);
+
+        String snippet = MessageSearchService.highlight(message, List.of("settlement"));
+
+        assertTrue(snippet.startsWith("… ") && snippet.endsWith(" …"), snippet);
+        assertTrue(snippet.contains("<mark>settlement</mark>"), snippet);
+        assertTrue(snippet.length() < 200, snippet);
+    }
+
+    private MessageSearchPageDTO search(UUID sessionId, String query, String after, int size) {
+        return (MessageSearchPageDTO) searchService.search("123451", sessionId, query, after, size).getData();
+    }
+
+    private UUID session(String userId) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO chat_session (id, user_id, name, favorite, created_at, updated_at) "
+                + "VALUES (?, ?, 'Support Chat', false, ?, ?)", id, userId, Timestamp.valueOf(T0), Timestamp.valueOf(T0));
+        return id;
+    }
+
+    // Each message is written the given number of minutes after T0
+    private void message(UUID sessionId, String text, int minute) {
+        Timestamp createdAt = Timestamp.valueOf(T0.plusMinutes(minute));
+        jdbcTemplate.update("INSERT INTO chat_message (id, session_id, sender, message, created_at, updated_at) "
+                + "VALUES (?, ?, 'user', ?, ?, ?)", UUID.randomUUID(), sessionId, text, createdAt, createdAt);
+    }
+
+    private static List<Integer> minutesOf(List<MessageSearchHitDTO> hits) {
+        return hits.stream().map(hit -> hit.getCreatedAt().getMinute()).toList();
+    }
+}
@@ -0,0 +1,125 @@
+package com.ragchat.chatservice.service;
+
+import com.ragchat.chatservice.dto.groq.GroqChatRequest;
+import com.ragchat.chatservice.dto.groq.GroqMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestCoalescerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RequestCoalescer coalescer;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new RequestCoalescer(meterRegistry);
+        ReflectionTestUtils.setField(coalescer, "enabled", true);
+        ReflectionTestUtils.setField(coalescer, "maxInFlight", 10);
+        coalescer.init();
+    }
+
+    @Test
+    void testConcurrentIdenticalRequestsShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() ->
+                coalescer.execute(request("What is RTGS?"), () -> {
+                    calls.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return "Real-time gross settlement";
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() ->
+                coalescer.execute(request("what is  RTGS"), () -> {
+                    calls.incrementAndGet();
+                    return "second call";
+                }));
+        while (coalesced() < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertEquals("Real-time gross settlement", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("Real-time gross settlement", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(0.0, meterRegistry.get("groq.requests.inflight").gauge().value());
+    }
+
+    @Test
+    void testDifferentParametersAreNotCoalesced() {
+        GroqChatRequest cold = new GroqChatRequest("m", List.of(user("Hi")), 0.0, null);
+        GroqChatRequest warm = new GroqChatRequest("m", List.of(user("Hi")), 0.7, null);
+
+        assertNotEquals(RequestCoalescer.key(cold), RequestCoalescer.key(warm));
+        assertNotEquals(RequestCoalescer.key(warm), RequestCoalescer.key(new GroqChatRequest("m", List.of(user("Hi")), 0.7, true)));
+        assertEquals(RequestCoalescer.key(warm), RequestCoalescer.key(new GroqChatRequest("m", List.of(user(" hi ")), 0.7, null)));
+    }
+
+    @Test
+    void testAsyncJoinersReceiveLeaderError() {
+        Sinks.One<String> upstream = Sinks.one();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> leader = coalescer.executeAsync(request("Hello"), () -> {
+            calls.incrementAndGet();
+            return upstream.asMono();
+        }).toFuture();
+        CompletableFuture<String> follower = coalescer.executeAsync(request("Hello"), () -> {
+            calls.incrementAndGet();
+            return Mono.just("second call");
+        }).toFuture();
+
+        upstream.tryEmitError(new IllegalStateException("Groq unavailable"));
+
+        assertThrows(Exception.class, leader::join);
+        Exception error = assertThrows(Exception.class, follower::join);
+        assertEquals("Groq unavailable", error.getCause().getMessage());
+        assertEquals(1, calls.get());
+        assertEquals(1.0, coalesced());
+    }
+
+    @Test
+    void testFullTableCallsDirectly() {
+        ReflectionTestUtils.setField(coalescer, "maxInFlight", 0);
+
+        assertEquals("direct", coalescer.execute(request("Hello"), () -> "direct"));
+        assertEquals(1.0, meterRegistry.get("groq.requests.coalescing").tag("role", "bypassed").counter().count());
+    }
+
+    private double coalesced() {
+        return meterRegistry.get("groq.requests.coalescing").tag("role", "coalesced").counter().count();
+    }
+
+    private static GroqChatRequest request(String question) {
+        return new GroqChatRequest("llama", List.of(user(question)), 0.7, null);
+    }
+
+    private static GroqMessage user(String content) {
+        return new GroqMessage("user", content);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ragchat.chatservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SemanticResponseCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SemanticResponseCache cache;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SemanticResponseCache(meterRegistry);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "similarityThreshold", 0.8);
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(cache, "maxEntries", 100L);
+        cache.init();
+    }
+
+    @Test
+    void testExactMatchIgnoresCaseAndPunctuation() {
+        cache.store(List.of(user("How do I check my account balance?")), "Open the app.");
+
+        assertEquals(Optional.of("Open the app."), cache.lookup(List.of(user("how do I check  my account balance"))));
+        assertEquals(1.0, lookups("exact"));
+    }
+
+    @Test
+    void testSimilarQuestionHitsAboveThreshold() {
+        cache.store(List.of(user("How do I check my account balance?")), "Open the app.");
+
+        assertEquals(Optional.of("Open the app."), cache.lookup(List.of(user("How can I check my account balance?"))));
+        assertEquals(Optional.empty(), cache.lookup(List.of(user("How do I close my account?"))));
+        assertEquals(1.0, lookups("semantic"));
+        assertEquals(1.0, lookups("miss"));
+        assertEquals(0.5, meterRegistry.get("chat.response.cache.hit.ratio").gauge().value());
+    }
+
+    @Test
+    void testHistoryMustMatch() {
+        List<Map<String, Object>> history = List.of(user("What is RTGS?"), assistant("A payment system."),
+                user("What are its limits?"));
+        cache.store(history, "No minimum.");
+
+        assertTrue(cache.lookup(List.of(user("What are its limits?"))).isEmpty());
+        assertTrue(cache.lookup(List.of(user("What is NEFT?"), assistant("A payment system."),
+                user("What are its limits?"))).isEmpty());
+        assertEquals(Optional.of("No minimum."), cache.lookup(List.of(user("what is rtgs"), assistant("A payment system."),
+                user("What are its limits"))));
+    }
+
+    @Test
+    void testDisabledCacheStoresNothing() {
+        ReflectionTestUtils.setField(cache, "enabled", false);
+        cache.store(List.of(user("Hello")), "Hi");
+
+        assertTrue(cache.lookup(List.of(user("Hello"))).isEmpty());
+        assertEquals(0.0, meterRegistry.get("chat.response.cache.entries").gauge().value());
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("chat.response.cache.lookups").tag("result", result).counter().count();
+    }
+
+    private static Map<String, Object> user(String content) {
+        return Map.of("role", "user", "content", content);
+    }
+
+    private static Map<String, Object> assistant(String content) {
+        return Map.of("role", "assistant", "content", content);
+    }
+}
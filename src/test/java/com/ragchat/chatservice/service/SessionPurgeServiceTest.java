@@ -0,0 +1,112 @@
+package com.ragchat.chatservice.service;
+
+import com.ragchat.chatservice.repository.ChatMessageRepository;
+import com.ragchat.chatservice.repository.ChatSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class SessionPurgeServiceTest {
+
+    @Mock
+    private ChatSessionRepository chatSessionRepository;
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SessionPurgeService purgeService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        purgeService = new SessionPurgeService(chatSessionRepository, chatMessageRepository, transactionManager,
+                meterRegistry);
+        ReflectionTestUtils.setField(purgeService, "batchSize", 3);
+        ReflectionTestUtils.setField(purgeService, "batchPause", Duration.ZERO);
+        ReflectionTestUtils.setField(purgeService, "sweepInterval", Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        purgeService.stop();
+    }
+
+    @Test
+    void testPurgesMessagesInBatchesThenTheSession() throws InterruptedException {
+        UUID sessionId = UUID.randomUUID();
+        when(chatMessageRepository.deleteBatchBySessionId(sessionId, 3)).thenReturn(3, 3, 1);
+        when(chatMessageRepository.deleteBySessionId(sessionId)).thenReturn(0);
+        purgeService.start();
+
+        purgeService.purgeAfterCommit(sessionId);
+
+        verify(chatSessionRepository, timeout(5000)).purgeDeleted(sessionId);
+        InOrder order = inOrder(chatMessageRepository, chatSessionRepository);
+        order.verify(chatMessageRepository, times(3)).deleteBatchBySessionId(sessionId, 3);
+        order.verify(chatMessageRepository).deleteBySessionId(sessionId);
+        order.verify(chatSessionRepository).purgeDeleted(sessionId);
+        awaitIdle();
+        assertEquals(7, meterRegistry.get("chat.purge.messages").counter().count());
+        assertEquals(1, meterRegistry.get("chat.purge.sessions").counter().count());
+        assertEquals(3, meterRegistry.get("chat.purge.batch").timer().count());
+    }
+
+    @Test
+    void testSweepResumesSessionsLeftDeleted() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(chatSessionRepository.findDeletedIds(anyInt())).thenReturn(List.of(first, second));
+
+        purgeService.start();
+
+        verify(chatSessionRepository, timeout(5000)).purgeDeleted(first);
+        verify(chatSessionRepository, timeout(5000)).purgeDeleted(second);
+    }
+
+    @Test
+    void testFailedPurgeKeepsSessionForNextSweep() throws InterruptedException {
+        UUID sessionId = UUID.randomUUID();
+        when(chatMessageRepository.deleteBatchBySessionId(sessionId, 3))
+                .thenReturn(3)
+                .thenThrow(new QueryTimeoutException("lock timeout"));
+        purgeService.start();
+
+        purgeService.purgeAfterCommit(sessionId);
+
+        awaitIdle();
+        assertEquals(1, meterRegistry.get("chat.purge.failures").counter().count());
+        assertEquals(3, meterRegistry.get("chat.purge.messages").counter().count());
+        verify(chatSessionRepository, never()).purgeDeleted(sessionId);
+    }
+
+    // Waits until no purge is queued or running
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("chat.purge.sessions").counter().count()
+                + meterRegistry.get("chat.purge.failures").counter().count() == 0
+                || meterRegistry.get("chat.purge.pending").gauge().value() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "purge did not finish in time");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ragchat.chatservice.tracing;
+
+import com.ragchat.chatservice.config.ChatTracingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TailSamplingSpanProcessorTest {
+
+    private final List<SpanData> exported = new CopyOnWriteArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private SdkTracerProvider tracerProvider;
+    private Tracer tracer;
+
+    @BeforeEach
+    void setup() {
+        ChatTracingProperties properties = new ChatTracingProperties();
+        properties.setSlowThreshold(Duration.ofMillis(50));
+        meterRegistry = new SimpleMeterRegistry();
+
+        SpanExporter exporter = new SpanExporter() {
+            @Override
+            public CompletableResultCode export(Collection<SpanData> spans) {
+                exported.addAll(spans);
+                return CompletableResultCode.ofSuccess();
+            }
+
+            @Override
+            public CompletableResultCode flush() {
+                return CompletableResultCode.ofSuccess();
+            }
+
+            @Override
+            public CompletableResultCode shutdown() {
+                return CompletableResultCode.ofSuccess();
+            }
+        };
+        tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(new TailSamplingSpanProcessor(SimpleSpanProcessor.create(exporter), properties, meterRegistry))
+                .build();
+        tracer = tracerProvider.get("test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracerProvider.close();
+    }
+
+    @Test
+    void testDropsFastSuccessfulTrace() {
+        trace(0, false);
+
+        assertTrue(exported.isEmpty());
+        assertEquals(1, decisions("dropped"));
+    }
+
+    @Test
+    void testKeepsWholeSlowTrace() {
+        trace(60, false);
+
+        assertEquals(List.of("repository", "root"), exported.stream().map(SpanData::getName).toList());
+        assertEquals(1, decisions("slow"));
+    }
+
+    @Test
+    void testKeepsTraceWithFailedChild() {
+        trace(0, true);
+
+        assertEquals(2, exported.size());
+        assertEquals(1, decisions("error"));
+    }
+
+    private void trace(long childMillis, boolean childFails) {
+        Span root = tracer.spanBuilder("root").startSpan();
+        try (Scope ignored = root.makeCurrent()) {
+            Span child = tracer.spanBuilder("repository").startSpan();
+            if (childMillis > 0) {
+                try {
+                    Thread.sleep(childMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (childFails) {
+                child.setStatus(StatusCode.ERROR);
+            }
+            child.end();
+            // Child spans are held until the root ends
+            assertTrue(exported.isEmpty());
+        } finally {
+            root.end();
+        }
+    }
+
+    private double decisions(String decision) {
+        return meterRegistry.get("tracing.tail.sampling").tag("decision", decision).counter().count();
+    }
+}
@@ -0,0 +1,5 @@
+CREATE TABLE note (
+    id   INTEGER      NOT NULL PRIMARY KEY,
+    text VARCHAR(100) NOT NULL
+);
+INSERT INTO note (id, text) VALUES (1, 'first');